@@ -0,0 +1,140 @@
+package org.fir3.teye.ui.renderer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the throughput of the {@link ModificationPool} scales with the
+ * number of threads that share it.
+ *
+ * The pool is used directly, thus the measurements neither include the
+ * element nor the renderer, which synchronize on their
+ * {@link org.fir3.teye.ui.ModificationListener} while notifying it.
+ *
+ * The <code>pollAndOffer</code> benchmarks return every instance right after
+ * obtaining it, which is served by the magazine of the thread alone. The
+ * <code>batch</code> benchmarks obtain and return {@link #BATCH_SIZE}
+ * instances at once, thus every thread exchanges its magazine with the shared
+ * depot twice per batch. The <code>allocate</code> benchmarks are the
+ * baseline without any pool.
+ *
+ * Run by <code>mvn -P benchmark compile exec:exec</code>.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ModificationPoolBenchmark {
+    private static final int BATCH_SIZE = 2 * ModificationPool.MAGAZINE_SIZE;
+    private static final float CAPACITY = 1024.0F;
+
+    @State(Scope.Benchmark)
+    public static class SharedPool {
+        final ModificationPool pool = new ModificationPool();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadBatch {
+        final ElementModification[] batch =
+                new ElementModification[ModificationPoolBenchmark.BATCH_SIZE];
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ElementModification pollAndOffer1(SharedPool shared) {
+        return ModificationPoolBenchmark.pollAndOffer(shared.pool);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public ElementModification pollAndOffer2(SharedPool shared) {
+        return ModificationPoolBenchmark.pollAndOffer(shared.pool);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ElementModification pollAndOffer4(SharedPool shared) {
+        return ModificationPoolBenchmark.pollAndOffer(shared.pool);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ElementModification pollAndOffer8(SharedPool shared) {
+        return ModificationPoolBenchmark.pollAndOffer(shared.pool);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(ModificationPoolBenchmark.BATCH_SIZE)
+    public void batch1(SharedPool shared, ThreadBatch state, Blackhole bh) {
+        ModificationPoolBenchmark.batch(shared.pool, state.batch, bh);
+    }
+
+    @Benchmark
+    @Threads(2)
+    @OperationsPerInvocation(ModificationPoolBenchmark.BATCH_SIZE)
+    public void batch2(SharedPool shared, ThreadBatch state, Blackhole bh) {
+        ModificationPoolBenchmark.batch(shared.pool, state.batch, bh);
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(ModificationPoolBenchmark.BATCH_SIZE)
+    public void batch4(SharedPool shared, ThreadBatch state, Blackhole bh) {
+        ModificationPoolBenchmark.batch(shared.pool, state.batch, bh);
+    }
+
+    @Benchmark
+    @Threads(8)
+    @OperationsPerInvocation(ModificationPoolBenchmark.BATCH_SIZE)
+    public void batch8(SharedPool shared, ThreadBatch state, Blackhole bh) {
+        ModificationPoolBenchmark.batch(shared.pool, state.batch, bh);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ElementModification allocate1() {
+        return new ElementModification();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ElementModification allocate8() {
+        return new ElementModification();
+    }
+
+    private static ElementModification pollAndOffer(ModificationPool pool) {
+        ElementModification mod = ModificationPoolBenchmark.poll(pool);
+        pool.offer(mod, ModificationPoolBenchmark.CAPACITY);
+
+        return mod;
+    }
+
+    private static void batch(
+            ModificationPool pool,
+            ElementModification[] batch,
+            Blackhole bh) {
+        for (int i = 0; i < batch.length; i++)
+            batch[i] = ModificationPoolBenchmark.poll(pool);
+
+        for (int i = 0; i < batch.length; i++) {
+            bh.consume(batch[i]);
+            pool.offer(batch[i], ModificationPoolBenchmark.CAPACITY);
+            batch[i] = null;
+        }
+    }
+
+    private static ElementModification poll(ModificationPool pool) {
+        // NOTE:    This mirrors AbstractRenderer.newModification, which
+        //          allocates whenever the pool is empty.
+
+        ElementModification mod = pool.poll();
+
+        if (mod == null)
+            mod = new ElementModification();
+
+        return mod;
+    }
+}
@@ -0,0 +1,319 @@
+package org.fir3.teye.context;
+
+import org.fir3.teye.util.PowerOfTwo;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lock-free queue of {@link Runnable} tasks with a fixed capacity.
+ *
+ * The queue is a preallocated ring buffer in the style of Dmitry Vyukov's
+ * bounded MPMC queue: every slot carries a sequence number that tells
+ * producers and consumers whether the slot is ready to be written or read.
+ * Enqueuing and dequeuing a task does not allocate.
+ *
+ * If the queue is full, the {@link OverflowPolicy} decides how to proceed.
+ * Waiting producers never hold a monitor, they park with an exponential
+ * backoff instead. Before a producer starts waiting, it wakes up the
+ * consumer, because the consumer may be waiting for events itself and would
+ * otherwise never make space.
+ */
+final class BoundedTaskQueue extends TaskQueue {
+    private static final long MIN_BACKOFF_NANOS =
+            TimeUnit.MICROSECONDS.toNanos(1L);
+
+    private static final long MAX_BACKOFF_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(1L);
+
+    /**
+     * A task that can be replaced by later tasks of the same key, as long as
+     * it has not been taken by the consumer.
+     */
+    private static final class KeyedTask implements Runnable {
+        private final Object key;
+        private final ConcurrentMap<Object, KeyedTask> pending;
+        private final AtomicReference<Runnable> task;
+
+        KeyedTask(
+                Object key,
+                Runnable task,
+                ConcurrentMap<Object, KeyedTask> pending) {
+            this.key = key;
+            this.pending = pending;
+            this.task = new AtomicReference<>(task);
+        }
+
+        /**
+         * Replaces the pending task.
+         *
+         * @return  Either <code>true</code>, if the task has been replaced, or
+         *          <code>false</code>, if the consumer took it already.
+         */
+        boolean replace(Runnable task) {
+            while (true) {
+                Runnable current = this.task.get();
+
+                if (current == null)
+                    return false;
+
+                if (this.task.compareAndSet(current, task))
+                    return true;
+            }
+        }
+
+        @Override
+        public void run() {
+            // NOTE:    The holder is unregistered first. A producer that
+            //          replaces the task in between is still picked up below,
+            //          while any later producer enqueues a new holder.
+
+            this.pending.remove(this.key, this);
+
+            Runnable task = this.task.getAndSet(null);
+
+            if (task != null)
+                task.run();
+        }
+    }
+
+    private final int mask;
+    private final Runnable[] tasks;
+    private final long[] enqueueNanos;
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueuePosition;
+    private final AtomicLong dequeuePosition;
+    private final OverflowPolicy policy;
+    private final ConcurrentMap<Object, KeyedTask> pending;
+    private final LongAdder droppedCount;
+    private final LongAdder coalescedCount;
+    private final Runnable wakeup;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param capacity  The maximum number of queued tasks. Needs to be a
+     *                  power of two of at least two.
+     *
+     * @param policy    Determines how producers proceed, if the queue is full.
+     * @param wakeup    Wakes up the consumer. Called by a producer, before it
+     *                  waits for space.
+     *
+     * @throws IllegalArgumentException If <code>capacity</code> is invalid.
+     * @throws NullPointerException     If <code>policy</code> or
+     *                                  <code>wakeup</code> is
+     *                                  <code>null</code>.
+     */
+    BoundedTaskQueue(int capacity, OverflowPolicy policy, Runnable wakeup) {
+        if (capacity < 2 || !PowerOfTwo.isPowerOfTwo(capacity))
+            throw new IllegalArgumentException("Invalid capacity!");
+
+        if (policy == null)
+            throw new NullPointerException("policy is null!");
+
+        if (wakeup == null)
+            throw new NullPointerException("wakeup is null!");
+
+        this.mask = capacity - 1;
+        this.tasks = new Runnable[capacity];
+        this.enqueueNanos = new long[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+
+        for (int i = 0; i < capacity; i++)
+            this.sequences.set(i, i);
+
+        this.enqueuePosition = new AtomicLong();
+        this.dequeuePosition = new AtomicLong();
+        this.policy = policy;
+        this.pending = policy == OverflowPolicy.COALESCE_BY_KEY
+                ? new ConcurrentHashMap<>()
+                : null;
+
+        this.droppedCount = new LongAdder();
+        this.coalescedCount = new LongAdder();
+        this.wakeup = wakeup;
+    }
+
+    @Override
+    void offer(Runnable task) {
+        if (task == null)
+            throw new NullPointerException("task is null!");
+
+        this.enqueue(task);
+    }
+
+    @Override
+    void offer(Object key, Runnable task) {
+        if (this.pending == null || key == null) {
+            this.offer(task);
+            return;
+        }
+
+        if (task == null)
+            throw new NullPointerException("task is null!");
+
+        while (true) {
+            KeyedTask existing = this.pending.get(key);
+
+            if (existing != null) {
+                if (existing.replace(task)) {
+                    this.coalescedCount.increment();
+                    return;
+                }
+
+                // The consumer took the pending task already, but did not
+                // unregister it yet.
+
+                this.pending.remove(key, existing);
+                continue;
+            }
+
+            KeyedTask holder = new KeyedTask(key, task, this.pending);
+
+            if (this.pending.putIfAbsent(key, holder) == null) {
+                this.enqueue(holder);
+                return;
+            }
+        }
+    }
+
+    @Override
+    Runnable poll() {
+        return this.dequeue(true);
+    }
+
+    @Override
+    boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    @Override
+    int size() {
+        // NOTE:    Both positions are read separately, thus the difference
+        //          is only an approximation while tasks are being moved.
+
+        long dequeue = this.dequeuePosition.get();
+        long enqueue = this.enqueuePosition.get();
+
+        return (int) Math.max(0L, Math.min(enqueue - dequeue, this.mask + 1));
+    }
+
+    @Override
+    long getDroppedCount() {
+        return this.droppedCount.sum();
+    }
+
+    @Override
+    long getCoalescedCount() {
+        return this.coalescedCount.sum();
+    }
+
+    private void enqueue(Runnable task) {
+        if (this.tryEnqueue(task))
+            return;
+
+        if (this.policy == OverflowPolicy.DROP_OLDEST) {
+            do {
+                Runnable dropped = this.dequeue(false);
+
+                if (dropped == null)
+                    continue;
+
+                this.droppedCount.increment();
+
+                if (dropped instanceof DiscardableTask)
+                    ((DiscardableTask) dropped).discarded();
+            } while (!this.tryEnqueue(task));
+
+            return;
+        }
+
+        // NOTE:    The consumer has to be woken up before this producer waits,
+        //          because the wakeup of the caller is only sent after the
+        //          task has been enqueued. A consumer that waits for events
+        //          would never make space otherwise.
+
+        this.wakeup.run();
+
+        long start = System.nanoTime();
+        long backoff = BoundedTaskQueue.MIN_BACKOFF_NANOS;
+
+        do {
+            LockSupport.parkNanos(this, backoff);
+            backoff = Math.min(backoff * 2, BoundedTaskQueue.MAX_BACKOFF_NANOS);
+        } while (!this.tryEnqueue(task));
+
+        this.recordBlocked(System.nanoTime() - start);
+    }
+
+    private boolean tryEnqueue(Runnable task) {
+        long position = this.enqueuePosition.get();
+        int index;
+
+        while (true) {
+            index = (int) position & this.mask;
+
+            long difference = this.sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (this.enqueuePosition.compareAndSet(position, position + 1))
+                    break;
+
+                position = this.enqueuePosition.get();
+            } else if (difference < 0) {
+                // The slot still holds the task of the previous round.
+
+                return false;
+            } else {
+                position = this.enqueuePosition.get();
+            }
+        }
+
+        this.tasks[index] = task;
+        this.enqueueNanos[index] = System.nanoTime();
+        this.sequences.set(index, position + 1);
+
+        return true;
+    }
+
+    private Runnable dequeue(boolean recordLatency) {
+        long position = this.dequeuePosition.get();
+        int index;
+
+        while (true) {
+            index = (int) position & this.mask;
+
+            long difference = this.sequences.get(index) - (position + 1);
+
+            if (difference == 0) {
+                if (this.dequeuePosition.compareAndSet(position, position + 1))
+                    break;
+
+                position = this.dequeuePosition.get();
+            } else if (difference < 0) {
+                // The slot has not been written in this round yet.
+
+                return null;
+            } else {
+                position = this.dequeuePosition.get();
+            }
+        }
+
+        Runnable task = this.tasks[index];
+        long enqueueNanos = this.enqueueNanos[index];
+
+        this.tasks[index] = null;
+        this.sequences.set(index, position + this.mask + 1);
+
+        if (recordLatency)
+            this.recordLatency(enqueueNanos);
+
+        return task;
+    }
+}
@@ -1,95 +1,680 @@
 package org.fir3.teye.context;
 
 import org.fir3.teye.ui.UI;
+import org.fir3.teye.ui.renderer.ModificationMode;
+import org.fir3.teye.util.PowerOfTwo;
 import org.lwjgl.glfw.Callbacks;
 import org.lwjgl.glfw.GLFW;
-import org.lwjgl.glfw.GLFWErrorCallback;
 import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
 import org.lwjgl.system.MemoryUtil;
 
-import java.util.LinkedList;
-import java.util.Queue;
-
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A window with an OpenGL context and a dedicated thread that renders the
+ * {@link UI} into it.
+ *
+ * Multiple instances may run concurrently, each on its own thread. The static
+ * methods of this class address the context of the calling thread, or the
+ * default context, if the calling thread is not a context thread. Other
+ * contexts are addressed by their {@link ContextExecutor}.
+ */
 public final class Context implements Runnable {
     private static final String THREAD_NAME = "Context";
     private static final String WINDOW_TITLE = "Mediashare Context";
+    private static final String UPLOAD_WINDOW_TITLE = "Texture Uploader";
+    private static final String MBEAN_NAME = "org.fir3.teye:type=FrameTimer";
+    private static final String RENDERER_MBEAN_NAME =
+            "org.fir3.teye:type=RendererStatistics";
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /**
+     * The time in seconds that the owner of the event pump waits for events
+     * at most, while it is waiting for another context to become ready.
+     */
+    private static final double READY_POLL_SECONDS = 0.01;
+
+    private static final String[] SWAP_CONTROL_TEAR_EXTENSIONS = {
+            "WGL_EXT_swap_control_tear",
+            "GLX_EXT_swap_control_tear"
+    };
+
+    /**
+     * The running contexts in the order of their creation.
+     */
+    private static final List<Context> CONTEXTS = new CopyOnWriteArrayList<>();
+
+    private static final ThreadLocal<Context> CURRENT = new ThreadLocal<>();
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    public static Context create(int width, int height, RenderApi renderApi) {
+        return Context.create(width, height, renderApi, new ContextConfig());
+    }
 
-    private static Context INSTANCE;
-
-    public static synchronized void create(
+    /**
+     * Creates a new context and starts its thread.
+     *
+     * @param width     The width of the window.
+     * @param height    The height of the window.
+     * @param renderApi The render API of the window.
+     * @param config    The settings of the context.
+     *
+     * @return  The new context.
+     *
+     * @throws NullPointerException     If <code>config</code>, its
+     *                                  presentation policy, its overflow
+     *                                  policy or its modification mode is
+     *                                  <code>null</code>.
+     *
+     * @throws IllegalArgumentException If any setting of <code>config</code>
+     *                                  is invalid.
+     *
+     * @throws IllegalStateException    If the context that shall share its
+     *                                  objects with the new one has been
+     *                                  closed already.
+     */
+    public static Context create(
             int width, int height,
-            RenderApi renderApi) {
-        if (Context.INSTANCE != null)
-            throw new IllegalStateException(
-                    "Context has been created already!");
+            RenderApi renderApi,
+            ContextConfig config) {
+        if (config == null)
+            throw new NullPointerException("config is null!");
+
+        if (config.maxTasksPerFrame() < 1)
+            throw new IllegalArgumentException("Invalid maxTasksPerFrame!");
+
+        if (config.maxTaskNanosPerFrame() < 0L)
+            throw new IllegalArgumentException(
+                    "Invalid maxTaskNanosPerFrame!");
+
+        if (config.frameBudgetNanos() < 1L)
+            throw new IllegalArgumentException("Invalid frameBudgetNanos!");
+
+        if (config.presentationPolicy() == null)
+            throw new NullPointerException("presentationPolicy is null!");
+
+        if (config.inputBufferCapacity() < 1 ||
+                !PowerOfTwo.isPowerOfTwo(config.inputBufferCapacity()))
+            throw new IllegalArgumentException(
+                    "Invalid inputBufferCapacity!");
+
+        if (config.taskQueueCapacity() != 0 &&
+                (config.taskQueueCapacity() < 2 ||
+                !PowerOfTwo.isPowerOfTwo(config.taskQueueCapacity())))
+            throw new IllegalArgumentException("Invalid taskQueueCapacity!");
+
+        if (config.overflowPolicy() == null)
+            throw new NullPointerException("overflowPolicy is null!");
+
+        if (config.modificationMode() == null)
+            throw new NullPointerException("modificationMode is null!");
+
+        Context shareWith = config.shareWith();
 
-        Context.INSTANCE = new Context(width, height, renderApi);
+        if (shareWith != null && shareWith.destroyed)
+            throw new IllegalStateException("shareWith has been closed!");
 
-        Thread contextThread = new Thread(
-                Context.INSTANCE,
-                Context.THREAD_NAME);
+        Context ctx = new Context(width, height, renderApi, config);
 
-        contextThread.start();
+        Context.CONTEXTS.add(ctx);
+        ctx.contextThread.start();
+
+        return ctx;
+    }
+
+    /**
+     * Returns the context that has been created first and that is still
+     * running.
+     *
+     * @return  The default context.
+     *
+     * @throws IllegalStateException    If there is no running context.
+     */
+    public static Context getDefault() {
+        Iterator<Context> it = Context.CONTEXTS.iterator();
+
+        if (!it.hasNext())
+            throw new IllegalStateException("Context has not been created!");
+
+        return it.next();
     }
 
+    /**
+     * Returns the context whose thread is the calling thread.
+     *
+     * @return  The context of the calling thread, or <code>null</code>, if
+     *          the calling thread is not a context thread.
+     */
+    public static Context current() {
+        return Context.CURRENT.get();
+    }
+
+    /**
+     * Runs the specified <code>task</code> on the thread of the current or,
+     * if there is none, the default context.
+     *
+     * @see ContextExecutor#execute(Runnable)
+     */
     public static void execute(Runnable task) {
-        if (Context.inContextThread()) {
-            task.run();
-            return;
-        }
+        Context.target().executor.execute(task);
+    }
 
-        synchronized (Context.INSTANCE.tasks) {
-            Context.INSTANCE.tasks.offer(task);
-        }
+    /**
+     * Runs the specified <code>task</code> on the thread of the current or,
+     * if there is none, the default context, replacing a pending task of the
+     * same <code>key</code>, if supported by the context's overflow policy.
+     *
+     * @see ContextExecutor#execute(Object, Runnable)
+     */
+    public static void execute(Object key, Runnable task) {
+        Context.target().executor.execute(key, task);
+    }
+
+    /**
+     * Runs the specified <code>task</code> on the thread of the current or,
+     * if there is none, the default context and returns a future of its
+     * result.
+     *
+     * @see ContextExecutor#submit(Callable)
+     */
+    public static <V> CompletableFuture<V> submit(Callable<V> task) {
+        return Context.target().executor.submit(task);
+    }
 
-        Context.wakeup();
+    /**
+     * Runs the specified <code>task</code> on the thread of the current or,
+     * if there is none, the default context and returns a future that is
+     * completed after the task has been run.
+     *
+     * @see ContextExecutor#submit(Runnable)
+     */
+    public static CompletableFuture<Void> submit(Runnable task) {
+        return Context.target().executor.submit(task);
     }
 
+    /**
+     * Runs the specified <code>tasks</code> on the thread of the current or,
+     * if there is none, the default context.
+     *
+     * @see ContextExecutor#executeAll(Collection)
+     */
+    public static void executeAll(Collection<? extends Runnable> tasks) {
+        Context.target().executor.executeAll(tasks);
+    }
+
+    /**
+     * Returns whether the calling thread is the thread of any context.
+     *
+     * NOTE:    Since multiple contexts may run at the same time, this does not
+     *          tell whether the calling thread is the thread of a specific
+     *          context. Use {@link ContextExecutor#inContextThread()} for
+     *          that.
+     *
+     * @return  Either <code>true</code>, if {@link #current()} is not
+     *          <code>null</code>, otherwise <code>false</code>.
+     */
     public static boolean inContextThread() {
-        Context ctx = Context.INSTANCE;
+        return Context.CURRENT.get() != null;
+    }
+
+    public static void wakeup() {
+        Context ctx = Context.targetOrNull();
+
+        if (ctx != null)
+            ctx.wakeup0();
+    }
+
+    /**
+     * Requests the current or, if there is none, the default context to leave
+     * its main loop and to destroy itself.
+     *
+     * This is the only way to terminate a headless context, but it may also
+     * be used for closing the window of a regular one.
+     *
+     * @see #requestClose()
+     */
+    public static void close() {
+        Context ctx = Context.targetOrNull();
+
+        if (ctx != null)
+            ctx.requestClose();
+    }
+
+    /**
+     * Reads the most recently rendered frame of the current headless context
+     * into the specified <code>dst</code> buffer.
+     *
+     * The pixels are written as RGBA_8888, row by row, starting with the
+     * top-left pixel. Hence, <code>dst</code> needs to provide at least
+     * <code>width * height * 4</code> remaining bytes.
+     *
+     * This method must be called from the context thread only (see
+     * {@link #execute(Runnable)}).
+     *
+     * @param dst   The direct buffer that receives the pixel data.
+     *
+     * @throws IllegalStateException    If the calling thread is not a
+     *                                  context thread, or if its context is
+     *                                  not headless.
+     *
+     * @throws NullPointerException     If <code>dst</code> is
+     *                                  <code>null</code>.
+     *
+     * @throws IllegalArgumentException If <code>dst</code> is not direct or
+     *                                  too short.
+     */
+    public static void readPixels(ByteBuffer dst) {
+        Context ctx = Context.CURRENT.get();
 
         if (ctx == null)
-            return false;
+            throw new IllegalStateException("Not inside context!");
 
-        return Thread.currentThread().getId() == ctx.contextThread.getId();
+        OffscreenSurface surface = ctx.offscreenSurface;
+
+        if (surface == null)
+            throw new IllegalStateException("Context is not headless!");
+
+        surface.read(dst);
     }
 
-    public static void wakeup() {
-        GLFW.glfwPostEmptyEvent();
+    private static Context target() {
+        Context ctx = Context.CURRENT.get();
+        return (ctx != null) ? ctx : Context.getDefault();
+    }
+
+    private static Context targetOrNull() {
+        Context ctx = Context.CURRENT.get();
+
+        if (ctx != null)
+            return ctx;
+
+        Iterator<Context> it = Context.CONTEXTS.iterator();
+        return it.hasNext() ? it.next() : null;
     }
 
     private final int width;
     private final int height;
     private final RenderApi renderApi;
-    private final Queue<Runnable> tasks;
+    private final int maxTasksPerFrame;
+    private final long maxTaskNanosPerFrame;
+    private final boolean renderOnDemand;
+    private final boolean asyncTextureUpload;
+    private final boolean registerMBean;
+    private final PresentationPolicy presentationPolicy;
+    private final ModificationMode modificationMode;
+    private final Context shareWith;
+    private final ContextExecutor executor;
+    private final FrameTimer frameTimer;
+    private final InputRing input;
+    private final InputBatch inputBatch;
+    private final Thread contextThread;
+
+    /**
+     * Counted down after the window and the UI of this context have been
+     * initialized (or their initialization failed).
+     */
+    private final CountDownLatch ready;
 
-    private Thread contextThread;
     private long windowPtr;
-
-    private Context(int width, int height, RenderApi renderApi) {
+    private long uploadWindowPtr;
+    private TextureUploader textureUploader;
+    private OffscreenSurface offscreenSurface;
+    private long nextFrameNanos;
+    private volatile UI ui;
+    private volatile boolean eventPumpOwner;
+    private volatile boolean closeRequested;
+    private volatile boolean destroyed;
+
+    private Context(
+            int width, int height,
+            RenderApi renderApi,
+            ContextConfig config) {
         this.width = width;
         this.height = height;
         this.renderApi = renderApi;
-        this.tasks = new LinkedList<>();
+        this.maxTasksPerFrame = config.maxTasksPerFrame();
+        this.maxTaskNanosPerFrame = config.maxTaskNanosPerFrame();
+        this.renderOnDemand = config.renderOnDemand();
+        this.asyncTextureUpload = config.asyncTextureUpload();
+        this.registerMBean = config.registerMBean();
+        this.presentationPolicy = config.presentationPolicy();
+        this.shareWith = config.shareWith();
+        this.modificationMode = config.modificationMode();
+        this.executor = new ContextExecutor(
+                this,
+                config.taskQueueCapacity() > 0
+                        ? new BoundedTaskQueue(
+                                config.taskQueueCapacity(),
+                                config.overflowPolicy(),
+                                this::wakeup0)
+                        : new LinkedTaskQueue());
+        this.frameTimer = new FrameTimer(
+                config.frameBudgetNanos(),
+                config.frameMetrics());
+        this.input = new InputRing(
+                config.inputBufferCapacity(),
+                this::wakeup0);
+        this.inputBatch = new InputBatch(config.inputBufferCapacity());
+        this.ready = new CountDownLatch(1);
+
+        int threadNumber = Context.THREAD_COUNTER.incrementAndGet();
+
+        this.contextThread = new Thread(
+                this,
+                (threadNumber == 1)
+                        ? Context.THREAD_NAME
+                        : Context.THREAD_NAME + "-" + threadNumber);
+    }
+
+    /**
+     * Returns the executor that runs tasks on the thread of this context.
+     *
+     * @return  The executor of this context.
+     */
+    public ContextExecutor getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * Returns the timer that measures the phases of the main loop of this
+     * context.
+     *
+     * @return  The frame timer of this context.
+     */
+    public FrameTimer getFrameTimer() {
+        return this.frameTimer;
+    }
+
+    /**
+     * Returns the UI that is rendered by this context.
+     *
+     * @return  The UI, or <code>null</code>, if it has not been initialized
+     *          yet or if the context has been destroyed already.
+     */
+    public UI getUI() {
+        return this.ui;
+    }
+
+    /**
+     * Returns whether the calling thread is the thread of this context.
+     *
+     * @return  Either <code>true</code>, if the calling thread is the context
+     *          thread, otherwise <code>false</code>.
+     */
+    public boolean isContextThread() {
+        return Thread.currentThread() == this.contextThread;
+    }
+
+    /**
+     * Requests this context to leave its main loop and to destroy itself.
+     */
+    public void requestClose() {
+        this.closeRequested = true;
+        this.wakeup0();
+    }
+
+    /**
+     * Wakes up the context thread, if it is waiting for events.
+     */
+    void wakeup0() {
+        // NOTE:    Only the owner of the event pump waits for GLFW events, all
+        //          other contexts park their threads instead.
+
+        if (this.eventPumpOwner)
+            WindowSystem.postEmptyEvent();
+        else
+            LockSupport.unpark(this.contextThread);
     }
 
     @Override
     public void run() {
-        this.contextThread = Thread.currentThread();
+        Context.CURRENT.set(this);
+
+        try {
+            this.eventPumpOwner = WindowSystem.acquire(this);
+        } catch (RuntimeException ex) {
+            this.destroyed = true;
+            Context.CONTEXTS.remove(this);
+            Context.CURRENT.remove();
+            this.ready.countDown();
+            throw ex;
+        }
+
+        try {
+            this.initialize();
+        } catch (RuntimeException ex) {
+            this.destroy();
+            throw ex;
+        } finally {
+            this.ready.countDown();
+        }
+
+        UI ui = this.ui;
+        ObjectName mbeanName = null;
+        ObjectName rendererMBeanName = null;
+
+        if (this.registerMBean) {
+            mbeanName = this.registerMBean(
+                    this.frameTimer,
+                    Context.MBEAN_NAME);
+
+            rendererMBeanName = this.registerMBean(
+                    new RendererStatisticsView(this),
+                    Context.RENDERER_MBEAN_NAME);
+        }
+
+        // Entering the main loop
+
+        this.frameTimer.begin();
+        this.nextFrameNanos = System.nanoTime();
+
+        while (true) {
+            if (this.closeRequested ||
+                    GLFW.glfwWindowShouldClose(this.windowPtr))
+                break;
+
+            // NOTE:    The number of tasks and the time that we spend on them
+            //          is limited, otherwise a burst of tasks could delay the
+            //          next frame for an arbitrary amount of time.
+
+            this.executor.drain(
+                    this.maxTasksPerFrame,
+                    this.maxTaskNanosPerFrame);
+
+            // The input events that arrived since the previous iteration are
+            // passed to the UI at once.
+
+            this.input.drainTo(this.inputBatch);
+
+            if (!this.inputBatch.isEmpty())
+                ui.processInput(this.inputBatch);
+
+            this.frameTimer.lap(FramePhase.TASKS);
+
+            // NOTE:    The modification state must not be cleared, if the
+            //          next frame is not due yet. Otherwise, the modification
+            //          would be lost until the next one arrives.
+
+            boolean rendered = false;
 
-        // Initializing GLFW
+            if (this.isFrameDue()) {
+                // NOTE:    The modification state needs to be cleared in any
+                //          case, because the UI only wakes us up, if it
+                //          transitions from unmodified to modified.
 
-        GLFWErrorCallback.createPrint(System.err).set();
+                boolean modified = ui.clearModified();
 
-        if (!GLFW.glfwInit())
-            throw new IllegalStateException("Cannot initialize GLFW!");
+                rendered = modified || !this.renderOnDemand ||
+                        this.presentationPolicy.getMode() ==
+                                PresentationPolicy.Mode.UNTHROTTLED;
+            }
+
+            if (rendered) {
+                ui.render();
+                this.frameTimer.lap(FramePhase.RENDER);
+
+                this.present();
+                this.frameTimer.lap(FramePhase.PRESENT);
+
+                this.scheduleNextFrame();
+            }
+
+            this.waitForEvents(ui);
+            this.frameTimer.lap(FramePhase.WAIT);
+            this.frameTimer.endFrame(rendered);
+        }
+
+        if (mbeanName != null)
+            this.unregisterMBean(mbeanName);
+
+        if (rendererMBeanName != null)
+            this.unregisterMBean(rendererMBeanName);
+
+        this.destroy();
+    }
+
+    private void initialize() {
+        // If we share our objects with another context, that context needs to
+        // be initialized completely, including its UI.
+
+        if (this.shareWith != null) {
+            this.awaitReady(this.shareWith);
 
-        // Creating the GLFW window
+            if (this.shareWith.ui == null)
+                throw new IllegalStateException("shareWith is not running!");
+        }
+
+        // Creating the GLFW windows
+
+        this.runOnEventPump(this::createWindows);
+
+        if (this.uploadWindowPtr != MemoryUtil.NULL) {
+            this.textureUploader = new TextureUploader(this.uploadWindowPtr);
+            this.textureUploader.start();
+        }
+
+        // Context initialization
 
+        GLFW.glfwMakeContextCurrent(this.windowPtr);
+        GLFW.glfwSwapInterval(this.getSwapInterval());
+        GL.createCapabilities();
+
+        // If we are running headless, the default framebuffer of the
+        // invisible window is replaced by an offscreen one.
+
+        if (this.renderApi.isHeadless()) {
+            this.offscreenSurface = new OffscreenSurface(
+                    this.width,
+                    this.height);
+
+            this.offscreenSurface.initialize();
+        }
+
+        // Initializing the UI
+
+        UI ui = UI.create(
+                this.renderApi,
+                this.width, this.height,
+                this.executor,
+                this.textureUploader,
+                (this.shareWith != null) ? this.shareWith.ui : null,
+                this.modificationMode);
+        ui.initialize();
+
+        this.ui = ui;
+    }
+
+    private void destroy() {
+        this.destroyed = true;
+
+        // Stopping the texture uploader, before the textures are destroyed
+
+        if (this.textureUploader != null) {
+            this.textureUploader.shutdown();
+            this.textureUploader = null;
+        }
+
+        // Destroying the UI
+
+        UI ui = this.ui;
+
+        if (ui != null) {
+            this.ui = null;
+            ui.destroy();
+        }
+
+        if (this.offscreenSurface != null) {
+            this.offscreenSurface.dispose();
+            this.offscreenSurface = null;
+        }
+
+        // Destroying the context
+        //
+        // NOTE:    The context must not be current on this thread anymore, if
+        //          the window is destroyed by the owner of the event pump.
+
+        GL.setCapabilities(null);
+        GLFW.glfwMakeContextCurrent(MemoryUtil.NULL);
+
+        this.runOnEventPump(this::destroyWindows);
+        Context.CONTEXTS.remove(this);
+
+        // Releasing the window system
+        //
+        // NOTE:    If we own the event pump, we need to keep processing the
+        //          events and tasks of the other contexts, until all of them
+        //          have been closed.
+
+        if (this.eventPumpOwner) {
+            while (!WindowSystem.releaseIfLast()) {
+                this.executor.drain(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+                if (this.executor.isEmpty())
+                    GLFW.glfwWaitEvents();
+                else
+                    GLFW.glfwPollEvents();
+            }
+
+            this.eventPumpOwner = false;
+        } else {
+            WindowSystem.release();
+        }
+
+        Context.CURRENT.remove();
+    }
+
+    /**
+     * Creates the GLFW window(s) of this context.
+     *
+     * This method must be called from the thread of the event pump owner.
+     */
+    private void createWindows() {
         GLFW.glfwDefaultWindowHints();
         GLFW.glfwWindowHint(GLFW.GLFW_RESIZABLE, GLFW.GLFW_FALSE);
 
         switch (this.renderApi) {
+            case OpenGL_Headless:
+                // The window is only required as carrier of the OpenGL
+                // context, thus it is never shown.
+
+                GLFW.glfwWindowHint(GLFW.GLFW_VISIBLE, GLFW.GLFW_FALSE);
+
+                // NOTE:    Falling through is intended here.
+
             case OpenGL:
                 GLFW.glfwWindowHint(
                         GLFW.GLFW_CLIENT_API,
@@ -114,52 +699,300 @@ public final class Context implements Runnable {
                 throw new UnsupportedOperationException("Unknown render API!");
         }
 
+        long sharePtr = (this.shareWith != null)
+                ? this.shareWith.windowPtr
+                : MemoryUtil.NULL;
+
         this.windowPtr = GLFW.glfwCreateWindow(
                 this.width, this.height,
                 Context.WINDOW_TITLE,
-                MemoryUtil.NULL, MemoryUtil.NULL);
+                MemoryUtil.NULL, sharePtr);
 
         if (this.windowPtr == MemoryUtil.NULL)
             throw new IllegalStateException("Failed creating window!");
 
-        // Context initialization
+        // The events of this window are processed by the owner of the event
+        // pump, which may not be us.
+        //
+        // If the window content has been damaged, we need to render it again,
+        // also if nothing has been modified.
+
+        GLFW.glfwSetWindowCloseCallback(
+                this.windowPtr,
+                windowPtr -> this.wakeup0());
+
+        GLFW.glfwSetWindowRefreshCallback(
+                this.windowPtr,
+                windowPtr -> {
+                    UI ui = this.ui;
+
+                    if (ui != null)
+                        ui.invalidate();
+                });
+
+        // The input events are buffered until the next frame of this
+        // context.
+
+        GLFW.glfwSetKeyCallback(
+                this.windowPtr,
+                (windowPtr, key, scancode, action, mods) ->
+                        this.input.offerKey(key, scancode, action, mods));
+
+        GLFW.glfwSetCharCallback(
+                this.windowPtr,
+                (windowPtr, codepoint) -> this.input.offerChar(codepoint));
+
+        GLFW.glfwSetMouseButtonCallback(
+                this.windowPtr,
+                (windowPtr, button, action, mods) ->
+                        this.input.offerMouseButton(button, action, mods));
+
+        GLFW.glfwSetCursorPosCallback(
+                this.windowPtr,
+                (windowPtr, x, y) -> this.input.offerCursorPos(x, y));
+
+        GLFW.glfwSetScrollCallback(
+                this.windowPtr,
+                (windowPtr, dx, dy) -> this.input.offerScroll(dx, dy));
+
+        // If requested, we create a second (invisible) window whose OpenGL
+        // context shares its objects with the main context. That context is
+        // used by the texture upload thread.
+        //
+        // NOTE:    If we share the textures of another context, they are
+        //          uploaded by the uploader of that context.
+
+        if (this.asyncTextureUpload && this.shareWith == null) {
+            GLFW.glfwWindowHint(GLFW.GLFW_VISIBLE, GLFW.GLFW_FALSE);
+
+            this.uploadWindowPtr = GLFW.glfwCreateWindow(
+                    1, 1,
+                    Context.UPLOAD_WINDOW_TITLE,
+                    MemoryUtil.NULL, this.windowPtr);
+
+            if (this.uploadWindowPtr == MemoryUtil.NULL)
+                throw new IllegalStateException(
+                        "Failed creating upload window!");
+        }
+    }
 
-        GLFW.glfwMakeContextCurrent(this.windowPtr);
-        GLFW.glfwSwapInterval(1);
-        GL.createCapabilities();
+    /**
+     * Destroys the GLFW window(s) of this context.
+     *
+     * This method must be called from the thread of the event pump owner.
+     */
+    private void destroyWindows() {
+        if (this.uploadWindowPtr != MemoryUtil.NULL) {
+            GLFW.glfwDestroyWindow(this.uploadWindowPtr);
+            this.uploadWindowPtr = MemoryUtil.NULL;
+        }
 
-        // Initializing the UI
+        if (this.windowPtr != MemoryUtil.NULL) {
+            Callbacks.glfwFreeCallbacks(this.windowPtr);
+            GLFW.glfwDestroyWindow(this.windowPtr);
+            this.windowPtr = MemoryUtil.NULL;
+        }
+    }
 
-        UI ui = UI.create(this.renderApi, this.width, this.height);
-        ui.initialize();
+    /**
+     * Runs the specified <code>task</code> on the thread of the event pump
+     * owner and waits for its completion.
+     *
+     * @param task  The task that calls GLFW functions, which must not be
+     *              called concurrently.
+     */
+    private void runOnEventPump(Runnable task) {
+        if (this.eventPumpOwner) {
+            task.run();
+            return;
+        }
 
-        // Entering the main loop
+        // NOTE:    The task must not be discarded by the overflow policy of
+        //          the owner, since windows would be leaked otherwise.
 
-        while (true) {
-            if (GLFW.glfwWindowShouldClose(this.windowPtr))
-                break;
+        WindowSystem.getOwner().getExecutor().submitInternal(task).join();
+    }
+
+    /**
+     * Blocks until the specified <code>other</code> context has been
+     * initialized.
+     *
+     * @param other The context that is awaited.
+     */
+    private void awaitReady(Context other) {
+        boolean interrupted = false;
+
+        while (other.ready.getCount() > 0L) {
+            // NOTE:    The other context may need us for creating its window,
+            //          if we are the owner of the event pump.
+
+            if (this.eventPumpOwner) {
+                this.executor.drain(Integer.MAX_VALUE, Long.MAX_VALUE);
+                GLFW.glfwWaitEventsTimeout(Context.READY_POLL_SECONDS);
+                continue;
+            }
 
-            synchronized (this.tasks) {
-                while (!this.tasks.isEmpty())
-                    this.tasks.poll().run();
+            try {
+                other.ready.await();
+            } catch (InterruptedException ex) {
+                interrupted = true;
             }
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
 
-            ui.render();
+    private int getSwapInterval() {
+        switch (this.presentationPolicy.getMode()) {
+            case VSYNC:
+                return 1;
 
-            GLFW.glfwSwapBuffers(this.windowPtr);
-            GLFW.glfwWaitEvents();
+            case ADAPTIVE:
+                // NOTE:    A negative interval enables the adaptive vsync, but
+                //          only if the platform supports it.
+
+                for (String extension : Context.SWAP_CONTROL_TEAR_EXTENSIONS) {
+                    if (GLFW.glfwExtensionSupported(extension))
+                        return -1;
+                }
+
+                return 1;
+
+            case FRAME_CAP:
+            case UNTHROTTLED:
+                return 0;
+
+            default:
+                throw new UnsupportedOperationException(
+                        "Unknown presentation mode!");
         }
+    }
 
-        // Destroying the UI
+    private boolean isFrameDue() {
+        if (this.presentationPolicy.getMode() !=
+                PresentationPolicy.Mode.FRAME_CAP)
+            return true;
 
-        ui.destroy();
+        return System.nanoTime() - this.nextFrameNanos >= 0L;
+    }
 
-        // Destroying the context
+    private void scheduleNextFrame() {
+        if (this.presentationPolicy.getMode() !=
+                PresentationPolicy.Mode.FRAME_CAP)
+            return;
+
+        // NOTE:    If we are late, the schedule restarts from now on, instead
+        //          of rendering a burst of frames for catching up.
+
+        long now = System.nanoTime();
+
+        this.nextFrameNanos += this.presentationPolicy.getFrameIntervalNanos();
 
-        Callbacks.glfwFreeCallbacks(this.windowPtr);
-        GLFW.glfwDestroyWindow(this.windowPtr);
+        if (this.nextFrameNanos - now < 0L)
+            this.nextFrameNanos = now;
+    }
+
+    private void waitForEvents(UI ui) {
+        // If there are still some tasks left, we must not block, because
+        // nobody is going to wake us up for them again.
+
+        if (!this.executor.isEmpty() || !this.input.isEmpty() ||
+                this.presentationPolicy.getMode() ==
+                        PresentationPolicy.Mode.UNTHROTTLED) {
+            this.pollEvents();
+            return;
+        }
+
+        // With a frame cap, a pending frame must be rendered when it is due,
+        // also if no further event arrives until then.
+
+        boolean framePending = !this.renderOnDemand || ui.isModified();
+
+        if (this.presentationPolicy.getMode() !=
+                PresentationPolicy.Mode.FRAME_CAP || !framePending) {
+            this.waitEvents(0L);
+            return;
+        }
+
+        long remainingNanos = this.nextFrameNanos - System.nanoTime();
+
+        if (remainingNanos > 0L)
+            this.waitEvents(remainingNanos);
+        else
+            this.pollEvents();
+    }
+
+    private void pollEvents() {
+        if (this.eventPumpOwner)
+            GLFW.glfwPollEvents();
+    }
+
+    /**
+     * Blocks until an event arrives or until this context is woken up.
+     *
+     * @param timeoutNanos  The maximum waiting time in nanoseconds, or zero
+     *                      for waiting without a timeout.
+     */
+    private void waitEvents(long timeoutNanos) {
+        if (this.eventPumpOwner) {
+            if (timeoutNanos > 0L) {
+                GLFW.glfwWaitEventsTimeout(
+                        timeoutNanos / Context.NANOS_PER_SECOND);
+            } else {
+                GLFW.glfwWaitEvents();
+            }
+
+            return;
+        }
+
+        // NOTE:    The events of our window are processed by the owner of the
+        //          event pump, whose callbacks wake us up, if required.
+
+        if (timeoutNanos > 0L)
+            LockSupport.parkNanos(this, timeoutNanos);
+        else
+            LockSupport.park(this);
+    }
+
+    private ObjectName registerMBean(Object mbean, String mbeanName) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            ObjectName name = new ObjectName(
+                    mbeanName + ",context=" +
+                            ObjectName.quote(this.contextThread.getName()));
+            server.registerMBean(mbean, name);
+
+            return name;
+        } catch (JMException ex) {
+            throw new IllegalStateException(
+                    "Failed registering MBean!", ex);
+        }
+    }
+
+    private void unregisterMBean(ObjectName name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            server.unregisterMBean(name);
+        } catch (JMException ex) {
+            throw new IllegalStateException(
+                    "Failed unregistering MBean!", ex);
+        }
+    }
+
+    private void present() {
+        // Since there is nobody who would see the frame, a headless context
+        // only waits for the frame to be finished. This keeps the frame
+        // timing meaningful for benchmarks and ensures that readPixels always
+        // returns a complete frame.
+
+        if (this.offscreenSurface != null) {
+            GL11.glFinish();
+            return;
+        }
 
-        GLFW.glfwTerminate();
-        GLFW.glfwSetErrorCallback(null).free();
+        GLFW.glfwSwapBuffers(this.windowPtr);
     }
 }
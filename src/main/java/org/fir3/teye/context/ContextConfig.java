@@ -0,0 +1,125 @@
+package org.fir3.teye.context;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.fir3.teye.ui.renderer.ModificationMode;
+
+/**
+ * The tunable settings of a {@link Context}.
+ *
+ * A fresh instance contains the default values of all settings.
+ */
+@Data
+@Accessors(fluent = true, chain = true)
+public final class ContextConfig {
+    private static final int DEFAULT_MAX_TASKS_PER_FRAME = Integer.MAX_VALUE;
+    private static final long DEFAULT_MAX_TASK_NANOS_PER_FRAME = 8_000_000L;
+    private static final long DEFAULT_FRAME_BUDGET_NANOS = 16_666_667L;
+    private static final int DEFAULT_INPUT_BUFFER_CAPACITY =
+            InputRing.DEFAULT_CAPACITY;
+
+    /**
+     * The maximum number of queued tasks that the context thread runs before
+     * it renders the next frame.
+     */
+    private int maxTasksPerFrame = ContextConfig.DEFAULT_MAX_TASKS_PER_FRAME;
+
+    /**
+     * The maximum time in nanoseconds that the context thread spends running
+     * queued tasks before it renders the next frame.
+     *
+     * The remaining tasks are run after the frame has been rendered.
+     */
+    private long maxTaskNanosPerFrame =
+            ContextConfig.DEFAULT_MAX_TASK_NANOS_PER_FRAME;
+
+    /**
+     * If enabled, a frame is only rendered and presented, if the scene has
+     * been modified since the previous frame.
+     *
+     * Modifications that happen while a frame is being presented are
+     * coalesced into a single following frame.
+     */
+    private boolean renderOnDemand;
+
+    /**
+     * If enabled, texture data is uploaded by a dedicated thread with its own
+     * OpenGL context, which shares its objects with the context of the
+     * {@link Context}.
+     *
+     * New textures are then rendered without their pixel data, until the
+     * upload has been completed.
+     */
+    private boolean asyncTextureUpload;
+
+    /**
+     * The maximum time in nanoseconds that the queued tasks and the rendering
+     * of a frame may take, before the frame is counted as dropped by the
+     * {@link FrameTimer}.
+     *
+     * The default value corresponds to a refresh rate of 60 Hz.
+     */
+    private long frameBudgetNanos = ContextConfig.DEFAULT_FRAME_BUDGET_NANOS;
+
+    /**
+     * An optional sink that receives the timings of each frame, in addition
+     * to the built-in {@link FrameTimer}.
+     */
+    private FrameMetrics frameMetrics;
+
+    /**
+     * If enabled, the {@link FrameTimer} of the context and the statistics of
+     * its renderer are registered at the platform MBean server while the
+     * context is running.
+     */
+    private boolean registerMBean;
+
+    /**
+     * Determines how often frames are presented and how the context thread
+     * waits between them.
+     */
+    private PresentationPolicy presentationPolicy = PresentationPolicy.vsync();
+
+    /**
+     * If not <code>null</code>, the OpenGL context of the new context shares
+     * its objects with the specified one. In particular, the textures that
+     * are created by either UI can be used by both.
+     *
+     * The specified context must still be running, when the new one is
+     * initialized.
+     */
+    private Context shareWith;
+
+    /**
+     * The maximum number of input events that are buffered between two
+     * frames. Needs to be a power of two.
+     *
+     * Further events are dropped, until the context thread processed the
+     * buffered ones.
+     */
+    private int inputBufferCapacity =
+            ContextConfig.DEFAULT_INPUT_BUFFER_CAPACITY;
+
+    /**
+     * The maximum number of tasks that may be queued for the context thread,
+     * or zero, if the queue is unbounded. Needs to be a power of two of at
+     * least two otherwise.
+     *
+     * A bounded queue protects the context thread from being flooded by many
+     * producer threads. The {@link #overflowPolicy(OverflowPolicy)} determines
+     * what happens to tasks that are submitted while the queue is full.
+     */
+    private int taskQueueCapacity;
+
+    /**
+     * Determines how producers proceed, if the bounded task queue is full.
+     * Ignored, if the queue is unbounded.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    /**
+     * Determines whether the renderer handles modified elements immediately,
+     * in the thread of the modifying setter, or collects them once per frame.
+     */
+    private ModificationMode modificationMode = ModificationMode.PUSH;
+}
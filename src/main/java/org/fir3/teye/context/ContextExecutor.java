@@ -0,0 +1,351 @@
+package org.fir3.teye.context;
+
+import org.fir3.teye.util.Histogram;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs tasks on the thread of a specific {@link Context}.
+ *
+ * The static methods of {@link Context} delegate to the executor of the
+ * context of the calling thread (or the default context). This class allows
+ * addressing any other context explicitly.
+ */
+public final class ContextExecutor implements Executor {
+    /**
+     * A task of {@link #submit(Callable)}, which completes its future either
+     * with the result of the task or exceptionally, if it has been discarded.
+     */
+    private static final class SubmittedTask<V>
+            implements TaskQueue.DiscardableTask {
+        private final Callable<V> task;
+        private final CompletableFuture<V> future;
+
+        SubmittedTask(Callable<V> task) {
+            this.task = task;
+            this.future = new CompletableFuture<>();
+        }
+
+        @Override
+        public void run() {
+            try {
+                this.future.complete(this.task.call());
+            } catch (Throwable ex) {
+                this.future.completeExceptionally(ex);
+            }
+        }
+
+        @Override
+        public void discarded() {
+            this.future.completeExceptionally(
+                    new RejectedExecutionException("Task discarded!"));
+        }
+    }
+
+    private final BooleanSupplier contextThread;
+    private final Runnable wakeup;
+    private final TaskQueue tasks;
+
+    /**
+     * The tasks of the framework itself, e.g. the creation of windows, which
+     * are neither bounded nor subject to the {@link OverflowPolicy}.
+     */
+    private final TaskQueue internalTasks;
+
+    ContextExecutor(Context context, TaskQueue tasks) {
+        this(context::isContextThread, context::wakeup0, tasks);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param contextThread Returns whether the calling thread is the context
+     *                      thread.
+     *
+     * @param wakeup        Wakes up the context thread.
+     * @param tasks         The queue that the context thread drains.
+     */
+    ContextExecutor(
+            BooleanSupplier contextThread,
+            Runnable wakeup,
+            TaskQueue tasks) {
+        this.contextThread = contextThread;
+        this.wakeup = wakeup;
+        this.tasks = tasks;
+        this.internalTasks = new LinkedTaskQueue();
+    }
+
+    /**
+     * Runs the specified <code>task</code> on the context thread.
+     *
+     * If the calling thread is the context thread, the task is run
+     * immediately.
+     *
+     * @param task  The task that shall be run.
+     *
+     * @throws NullPointerException If <code>task</code> is <code>null</code>.
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (this.inContextThread()) {
+            task.run();
+            return;
+        }
+
+        this.tasks.offer(task);
+        this.wakeup();
+    }
+
+    /**
+     * Runs the specified <code>task</code> on the context thread, like
+     * {@link #execute(Runnable)}.
+     *
+     * If the context has been configured with
+     * {@link OverflowPolicy#COALESCE_BY_KEY} and a task of the same
+     * <code>key</code> is still waiting to be run, that task is replaced by
+     * the specified one. This is useful for updates that supersede each
+     * other, e.g. the latest value of a frequently changing property.
+     * Otherwise, the <code>key</code> is ignored.
+     *
+     * @param key   The key that identifies tasks that supersede each other, or
+     *              <code>null</code>, if the task must not be replaced.
+     *
+     * @param task  The task that shall be run.
+     *
+     * @throws NullPointerException If <code>task</code> is <code>null</code>.
+     */
+    public void execute(Object key, Runnable task) {
+        if (this.inContextThread()) {
+            task.run();
+            return;
+        }
+
+        this.tasks.offer(key, task);
+        this.wakeup();
+    }
+
+    /**
+     * Runs the specified <code>task</code> on the context thread and returns
+     * a future of its result.
+     *
+     * If the calling thread is the context thread, the task is run
+     * immediately and the returned future is completed already.
+     *
+     * @param task  The task that shall be run.
+     * @param <V>   The type of the task's result.
+     *
+     * @return  A future that is completed with the result of the task, or
+     *          completed exceptionally, if the task threw an exception. If
+     *          the task has been discarded by
+     *          {@link OverflowPolicy#DROP_OLDEST}, the future is completed
+     *          with a {@link RejectedExecutionException}.
+     *
+     * @throws NullPointerException If <code>task</code> is <code>null</code>.
+     */
+    public <V> CompletableFuture<V> submit(Callable<V> task) {
+        if (task == null)
+            throw new NullPointerException("task is null!");
+
+        SubmittedTask<V> submitted = new SubmittedTask<>(task);
+        this.execute(submitted);
+
+        return submitted.future;
+    }
+
+    /**
+     * Runs the specified <code>task</code> on the context thread and returns
+     * a future that is completed after the task has been run.
+     *
+     * @param task  The task that shall be run.
+     *
+     * @return  A future that is completed with <code>null</code> after the
+     *          task has been run, or completed exceptionally, if the task
+     *          threw an exception.
+     *
+     * @throws NullPointerException If <code>task</code> is <code>null</code>.
+     *
+     * @see #submit(Callable)
+     */
+    public CompletableFuture<Void> submit(Runnable task) {
+        if (task == null)
+            throw new NullPointerException("task is null!");
+
+        return this.submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the specified task of the framework on the context thread, like
+     * {@link #submit(Runnable)}.
+     *
+     * Unlike the tasks of the user, the task never waits for space and is
+     * never discarded, regardless of the {@link OverflowPolicy}. The context
+     * thread runs the internal tasks before any other task.
+     *
+     * @param task  The task that shall be run.
+     * @return  A future that is completed after the task has been run.
+     *
+     * @throws NullPointerException If <code>task</code> is <code>null</code>.
+     */
+    CompletableFuture<Void> submitInternal(Runnable task) {
+        if (task == null)
+            throw new NullPointerException("task is null!");
+
+        SubmittedTask<Void> submitted = new SubmittedTask<>(() -> {
+            task.run();
+            return null;
+        });
+
+        if (this.inContextThread()) {
+            submitted.run();
+        } else {
+            this.internalTasks.offer(submitted);
+            this.wakeup();
+        }
+
+        return submitted.future;
+    }
+
+    /**
+     * Runs the specified <code>tasks</code> on the context thread in the order
+     * of the passed collection.
+     *
+     * Unlike calling {@link #execute(Runnable)} for each of the tasks, this
+     * wakes up the context thread only once, unless the tasks do not fit into
+     * a bounded queue. In that case, the context thread is woken up before
+     * the caller waits for space.
+     *
+     * @param tasks The tasks that shall be run.
+     *
+     * @throws NullPointerException If <code>tasks</code> or any of its
+     *                              elements is <code>null</code>. In that
+     *                              case, none of the tasks is run.
+     */
+    public void executeAll(Collection<? extends Runnable> tasks) {
+        if (tasks == null)
+            throw new NullPointerException("tasks is null!");
+
+        // NOTE:    The tasks are validated first, because the tasks before an
+        //          invalid one would wait for an unrelated wakeup otherwise.
+
+        for (Runnable task : tasks) {
+            if (task == null)
+                throw new NullPointerException("task is null!");
+        }
+
+        if (this.inContextThread()) {
+            for (Runnable task : tasks)
+                task.run();
+
+            return;
+        }
+
+        if (tasks.isEmpty())
+            return;
+
+        try {
+            for (Runnable task : tasks)
+                this.tasks.offer(task);
+        } finally {
+            this.wakeup();
+        }
+    }
+
+    /**
+     * Wakes up the context thread, if it is waiting for events.
+     */
+    public void wakeup() {
+        this.wakeup.run();
+    }
+
+    /**
+     * Returns whether the calling thread is the thread of the context.
+     *
+     * @return  Either <code>true</code>, if the calling thread is the context
+     *          thread, otherwise <code>false</code>.
+     */
+    public boolean inContextThread() {
+        return this.contextThread.getAsBoolean();
+    }
+
+    /**
+     * Returns the number of tasks that are waiting for the context thread.
+     *
+     * @return  A snapshot of the queue depth.
+     */
+    public int getQueueDepth() {
+        return this.tasks.size();
+    }
+
+    /**
+     * Returns the number of tasks that have been discarded by
+     * {@link OverflowPolicy#DROP_OLDEST}.
+     *
+     * @return  The number of discarded tasks.
+     */
+    public long getDroppedTaskCount() {
+        return this.tasks.getDroppedCount();
+    }
+
+    /**
+     * Returns the number of tasks that have been replaced by a later task of
+     * the same key with {@link OverflowPolicy#COALESCE_BY_KEY}.
+     *
+     * @return  The number of replaced tasks.
+     */
+    public long getCoalescedTaskCount() {
+        return this.tasks.getCoalescedCount();
+    }
+
+    /**
+     * Returns the histogram of the nanoseconds that tasks waited in the queue
+     * before the context thread took them.
+     *
+     * @return  The histogram of the queueing latency.
+     */
+    public Histogram getQueueLatency() {
+        return this.tasks.getLatencyHistogram();
+    }
+
+    /**
+     * Returns the histogram of the nanoseconds that producers waited for
+     * space in the bounded queue.
+     *
+     * @return  The histogram of the time that producers have been blocked.
+     */
+    public Histogram getBlockedTime() {
+        return this.tasks.getBlockedHistogram();
+    }
+
+    /**
+     * Runs the queued tasks within the specified limits.
+     *
+     * This method must be called from the context thread only.
+     *
+     * NOTE:    The internal tasks are run first and do not count towards the
+     *          limits, since the framework depends on them.
+     *
+     * @see TaskQueue#drain(int, long)
+     */
+    int drain(int maxTasks, long maxNanos) {
+        int count = this.internalTasks.drain(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+        return count + this.tasks.drain(maxTasks, maxNanos);
+    }
+
+    /**
+     * Returns whether there are no queued tasks.
+     *
+     * This method must be called from the context thread only.
+     */
+    boolean isEmpty() {
+        return this.internalTasks.isEmpty() && this.tasks.isEmpty();
+    }
+}
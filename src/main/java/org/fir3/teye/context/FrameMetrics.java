@@ -0,0 +1,33 @@
+package org.fir3.teye.context;
+
+/**
+ * A sink for the frame timings that are measured by the {@link Context}.
+ *
+ * Implementations are called from the context thread once per iteration of
+ * the main loop, hence they should return quickly and must not block.
+ */
+@FunctionalInterface
+public interface FrameMetrics {
+    /**
+     * Called after an iteration of the context main loop completed.
+     *
+     * All durations are in nanoseconds.
+     *
+     * @param tasksNanos    The time spent on running queued tasks.
+     * @param renderNanos   The time spent on rendering the UI.
+     * @param presentNanos  The time spent on presenting the frame.
+     * @param waitNanos     The time spent on waiting for events.
+     * @param rendered      Whether a frame has been rendered in this
+     *                      iteration. If not, <code>renderNanos</code> and
+     *                      <code>presentNanos</code> are zero.
+     * @param dropped       Whether the rendered frame exceeded the frame
+     *                      budget of the context.
+     */
+    void frameCompleted(
+            long tasksNanos,
+            long renderNanos,
+            long presentNanos,
+            long waitNanos,
+            boolean rendered,
+            boolean dropped);
+}
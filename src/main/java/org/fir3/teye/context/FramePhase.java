@@ -0,0 +1,33 @@
+package org.fir3.teye.context;
+
+/**
+ * The phases of a single iteration of the {@link Context} main loop, in the
+ * order of their occurrence.
+ */
+public enum FramePhase {
+    /**
+     * Running the tasks that have been queued for the context thread.
+     */
+    TASKS,
+
+    /**
+     * Rendering the UI into the back buffer.
+     */
+    RENDER,
+
+    /**
+     * Presenting the rendered frame (e.g. swapping the buffers).
+     */
+    PRESENT,
+
+    /**
+     * Waiting for and processing window events.
+     */
+    WAIT;
+
+    /**
+     * A cached copy of {@link #values()}, because that method allocates a new
+     * array on each call.
+     */
+    static final FramePhase[] VALUES = FramePhase.values();
+}
@@ -0,0 +1,229 @@
+package org.fir3.teye.context;
+
+import org.fir3.teye.util.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the time that the {@link Context} main loop spends in each of its
+ * {@link FramePhase}s.
+ *
+ * The measurement methods are called by the context thread only and do not
+ * allocate any memory. The query methods may be called from any thread.
+ */
+public final class FrameTimer implements FrameTimerMXBean {
+    private static final double MEDIAN = 50.0;
+    private static final double HIGH_PERCENTILE = 99.0;
+
+    private final Histogram[] histograms;
+    private final long frameBudgetNanos;
+    private final FrameMetrics metrics;
+    private final AtomicLong frameCount;
+    private final AtomicLong droppedFrameCount;
+
+    // NOTE:    The following fields are accessed by the context thread only.
+
+    private final long[] spans;
+    private long mark;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param frameBudgetNanos  The maximum time in nanoseconds that the
+     *                          tasks and the rendering of a frame may take,
+     *                          before the frame is counted as dropped.
+     *
+     * @param metrics           An optional sink that receives the timings of
+     *                          each frame, or <code>null</code>.
+     *
+     * @throws IllegalArgumentException If <code>frameBudgetNanos</code> is
+     *                                  less than one.
+     */
+    FrameTimer(long frameBudgetNanos, FrameMetrics metrics) {
+        if (frameBudgetNanos < 1L)
+            throw new IllegalArgumentException("Invalid frameBudgetNanos!");
+
+        this.histograms = new Histogram[FramePhase.VALUES.length];
+
+        for (int i = 0; i < this.histograms.length; i++)
+            this.histograms[i] = new Histogram();
+
+        this.frameBudgetNanos = frameBudgetNanos;
+        this.metrics = metrics;
+        this.frameCount = new AtomicLong();
+        this.droppedFrameCount = new AtomicLong();
+        this.spans = new long[FramePhase.VALUES.length];
+    }
+
+    /**
+     * Starts the measurement of the first frame.
+     */
+    void begin() {
+        this.mark = System.nanoTime();
+    }
+
+    /**
+     * Adds the time since the previous call of this method (or
+     * {@link #begin()}) to the span of the specified <code>phase</code>.
+     *
+     * @param phase The phase that just ended.
+     */
+    void lap(FramePhase phase) {
+        long now = System.nanoTime();
+
+        this.spans[phase.ordinal()] += now - this.mark;
+        this.mark = now;
+    }
+
+    /**
+     * Records the spans of the current iteration of the main loop and starts
+     * the next one.
+     *
+     * @param rendered  Whether a frame has been rendered in the current
+     *                  iteration.
+     */
+    void endFrame(boolean rendered) {
+        long tasks = this.spans[FramePhase.TASKS.ordinal()];
+        long render = this.spans[FramePhase.RENDER.ordinal()];
+        long present = this.spans[FramePhase.PRESENT.ordinal()];
+        long wait = this.spans[FramePhase.WAIT.ordinal()];
+
+        // NOTE:    The presentation time is not taken into account, because
+        //          swapping the buffers blocks until the next vertical sync,
+        //          if vsync is enabled. A frame is dropped, if the work that
+        //          precedes the swap does not fit into the budget.
+
+        boolean dropped = rendered && tasks + render > this.frameBudgetNanos;
+
+        this.histograms[FramePhase.TASKS.ordinal()].record(tasks);
+        this.histograms[FramePhase.WAIT.ordinal()].record(wait);
+
+        if (rendered) {
+            this.histograms[FramePhase.RENDER.ordinal()].record(render);
+            this.histograms[FramePhase.PRESENT.ordinal()].record(present);
+            this.frameCount.incrementAndGet();
+        }
+
+        if (dropped)
+            this.droppedFrameCount.incrementAndGet();
+
+        if (this.metrics != null) {
+            this.metrics.frameCompleted(
+                    tasks, render, present, wait,
+                    rendered, dropped);
+        }
+
+        for (int i = 0; i < this.spans.length; i++)
+            this.spans[i] = 0L;
+    }
+
+    /**
+     * Returns the duration at the specified <code>percentile</code> of the
+     * specified <code>phase</code>.
+     *
+     * @param phase         The phase.
+     * @param percentile    The percentile between 0.0 and 100.0.
+     *
+     * @return  The duration in nanoseconds.
+     *
+     * @throws NullPointerException     If <code>phase</code> is
+     *                                  <code>null</code>.
+     *
+     * @throws IllegalArgumentException If <code>percentile</code> is not
+     *                                  between 0.0 and 100.0.
+     */
+    public long getPercentileNanos(FramePhase phase, double percentile) {
+        if (phase == null)
+            throw new NullPointerException("phase is null!");
+
+        return this.histograms[phase.ordinal()].getPercentile(percentile);
+    }
+
+    /**
+     * Returns the longest duration of the specified <code>phase</code>.
+     *
+     * @param phase The phase.
+     * @return  The duration in nanoseconds.
+     *
+     * @throws NullPointerException If <code>phase</code> is <code>null</code>.
+     */
+    public long getMaximumNanos(FramePhase phase) {
+        if (phase == null)
+            throw new NullPointerException("phase is null!");
+
+        return this.histograms[phase.ordinal()].getMaximum();
+    }
+
+    @Override
+    public long getFrameCount() {
+        return this.frameCount.get();
+    }
+
+    @Override
+    public long getDroppedFrameCount() {
+        return this.droppedFrameCount.get();
+    }
+
+    @Override
+    public long getTasksP50Micros() {
+        return this.getMicros(FramePhase.TASKS, FrameTimer.MEDIAN);
+    }
+
+    @Override
+    public long getTasksP99Micros() {
+        return this.getMicros(FramePhase.TASKS, FrameTimer.HIGH_PERCENTILE);
+    }
+
+    @Override
+    public long getRenderP50Micros() {
+        return this.getMicros(FramePhase.RENDER, FrameTimer.MEDIAN);
+    }
+
+    @Override
+    public long getRenderP99Micros() {
+        return this.getMicros(FramePhase.RENDER, FrameTimer.HIGH_PERCENTILE);
+    }
+
+    @Override
+    public long getPresentP50Micros() {
+        return this.getMicros(FramePhase.PRESENT, FrameTimer.MEDIAN);
+    }
+
+    @Override
+    public long getPresentP99Micros() {
+        return this.getMicros(FramePhase.PRESENT, FrameTimer.HIGH_PERCENTILE);
+    }
+
+    @Override
+    public long getWaitP50Micros() {
+        return this.getMicros(FramePhase.WAIT, FrameTimer.MEDIAN);
+    }
+
+    @Override
+    public long getWaitP99Micros() {
+        return this.getMicros(FramePhase.WAIT, FrameTimer.HIGH_PERCENTILE);
+    }
+
+    @Override
+    public long getPercentileMicros(String phaseName, double percentile) {
+        if (phaseName == null)
+            throw new NullPointerException("phaseName is null!");
+
+        return this.getMicros(FramePhase.valueOf(phaseName), percentile);
+    }
+
+    @Override
+    public void reset() {
+        for (Histogram histogram : this.histograms)
+            histogram.reset();
+
+        this.frameCount.set(0L);
+        this.droppedFrameCount.set(0L);
+    }
+
+    private long getMicros(FramePhase phase, double percentile) {
+        return TimeUnit.NANOSECONDS.toMicros(
+                this.getPercentileNanos(phase, percentile));
+    }
+}
@@ -0,0 +1,36 @@
+package org.fir3.teye.context;
+
+/**
+ * The management interface of the {@link FrameTimer}.
+ *
+ * All durations are in microseconds.
+ */
+public interface FrameTimerMXBean {
+    long getFrameCount();
+    long getDroppedFrameCount();
+
+    long getTasksP50Micros();
+    long getTasksP99Micros();
+    long getRenderP50Micros();
+    long getRenderP99Micros();
+    long getPresentP50Micros();
+    long getPresentP99Micros();
+    long getWaitP50Micros();
+    long getWaitP99Micros();
+
+    /**
+     * Returns the duration at the specified <code>percentile</code> of the
+     * phase with the specified <code>phaseName</code>.
+     *
+     * @param phaseName     The name of a {@link FramePhase}.
+     * @param percentile    The percentile between 0.0 and 100.0.
+     *
+     * @return  The duration in microseconds.
+     */
+    long getPercentileMicros(String phaseName, double percentile);
+
+    /**
+     * Discards all measurements.
+     */
+    void reset();
+}
@@ -0,0 +1,156 @@
+package org.fir3.teye.context;
+
+/**
+ * The input events that arrived during a single frame.
+ *
+ * Instances are reused for every frame, hence they must not be retained
+ * after the {@link org.fir3.teye.ui.UI} has processed them.
+ */
+public final class InputBatch {
+    static final int TYPE_KEY = 0;
+    static final int TYPE_CHAR = 1;
+    static final int TYPE_MOUSE_BUTTON = 2;
+    static final int TYPE_CURSOR_POS = 3;
+    static final int TYPE_SCROLL = 4;
+
+    static final int INTS_PER_EVENT = 4;
+    static final int DOUBLES_PER_EVENT = 2;
+
+    private final int[] types;
+    private final int[] ints;
+    private final double[] doubles;
+    private int size;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param capacity  The maximum number of events per batch.
+     *
+     * @throws IllegalArgumentException If <code>capacity</code> is less than
+     *                                  one.
+     */
+    InputBatch(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Invalid capacity!");
+
+        this.types = new int[capacity];
+        this.ints = new int[capacity * InputBatch.INTS_PER_EVENT];
+        this.doubles = new double[capacity * InputBatch.DOUBLES_PER_EVENT];
+    }
+
+    /**
+     * Returns the number of (coalesced) events of this batch.
+     *
+     * @return  The number of events.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Passes the events of this batch to the specified <code>listener</code>
+     * in the order of their arrival.
+     *
+     * @param listener  The listener that receives the events.
+     *
+     * @throws NullPointerException If <code>listener</code> is
+     *                              <code>null</code>.
+     */
+    public void dispatch(InputListener listener) {
+        if (listener == null)
+            throw new NullPointerException("listener is null!");
+
+        for (int i = 0; i < this.size; i++) {
+            int intBase = i * InputBatch.INTS_PER_EVENT;
+            int doubleBase = i * InputBatch.DOUBLES_PER_EVENT;
+
+            switch (this.types[i]) {
+                case InputBatch.TYPE_KEY:
+                    listener.keyChanged(
+                            this.ints[intBase],
+                            this.ints[intBase + 1],
+                            this.ints[intBase + 2],
+                            this.ints[intBase + 3]);
+                    break;
+
+                case InputBatch.TYPE_CHAR:
+                    listener.characterTyped(this.ints[intBase]);
+                    break;
+
+                case InputBatch.TYPE_MOUSE_BUTTON:
+                    listener.mouseButtonChanged(
+                            this.ints[intBase],
+                            this.ints[intBase + 1],
+                            this.ints[intBase + 2]);
+                    break;
+
+                case InputBatch.TYPE_CURSOR_POS:
+                    listener.cursorMoved(
+                            this.doubles[doubleBase],
+                            this.doubles[doubleBase + 1]);
+                    break;
+
+                case InputBatch.TYPE_SCROLL:
+                    listener.scrolled(
+                            this.doubles[doubleBase],
+                            this.doubles[doubleBase + 1]);
+                    break;
+
+                default:
+                    throw new IllegalStateException("Unknown event type!");
+            }
+        }
+    }
+
+    void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Appends the specified event to this batch.
+     *
+     * If the previous event of this batch is a cursor movement (or scroll
+     * event) and the new one is of the same type, both are coalesced.
+     *
+     * @throws IllegalStateException    If the batch is full.
+     */
+    void add(
+            int type,
+            int i0, int i1, int i2, int i3,
+            double d0, double d1) {
+        if (this.size > 0 && this.types[this.size - 1] == type) {
+            int doubleBase = (this.size - 1) * InputBatch.DOUBLES_PER_EVENT;
+
+            if (type == InputBatch.TYPE_CURSOR_POS) {
+                this.doubles[doubleBase] = d0;
+                this.doubles[doubleBase + 1] = d1;
+                return;
+            }
+
+            if (type == InputBatch.TYPE_SCROLL) {
+                this.doubles[doubleBase] += d0;
+                this.doubles[doubleBase + 1] += d1;
+                return;
+            }
+        }
+
+        if (this.size == this.types.length)
+            throw new IllegalStateException("Batch is full!");
+
+        int intBase = this.size * InputBatch.INTS_PER_EVENT;
+        int doubleBase = this.size * InputBatch.DOUBLES_PER_EVENT;
+
+        this.types[this.size] = type;
+        this.ints[intBase] = i0;
+        this.ints[intBase + 1] = i1;
+        this.ints[intBase + 2] = i2;
+        this.ints[intBase + 3] = i3;
+        this.doubles[doubleBase] = d0;
+        this.doubles[doubleBase + 1] = d1;
+        this.size++;
+    }
+}
@@ -0,0 +1,37 @@
+package org.fir3.teye.context;
+
+/**
+ * Receives the input events of a {@link Context} window.
+ *
+ * The methods are called on the context thread, once per frame for all
+ * events that arrived since the previous frame, in the order of their
+ * arrival. The parameters correspond to the ones of the respective GLFW
+ * callbacks.
+ */
+public interface InputListener {
+    default void keyChanged(int key, int scancode, int action, int mods) {}
+    default void characterTyped(int codepoint) {}
+    default void mouseButtonChanged(int button, int action, int mods) {}
+
+    /**
+     * Called if the cursor has been moved.
+     *
+     * Consecutive cursor movements within the same frame are coalesced into
+     * a single call with the most recent position.
+     *
+     * @param x The new x-coordinate of the cursor.
+     * @param y The new y-coordinate of the cursor.
+     */
+    default void cursorMoved(double x, double y) {}
+
+    /**
+     * Called if the mouse wheel (or touchpad) has been scrolled.
+     *
+     * Consecutive scroll events within the same frame are coalesced into a
+     * single call with the sum of their offsets.
+     *
+     * @param dx    The horizontal scroll offset.
+     * @param dy    The vertical scroll offset.
+     */
+    default void scrolled(double dx, double dy) {}
+}
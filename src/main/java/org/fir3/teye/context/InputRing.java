@@ -0,0 +1,187 @@
+package org.fir3.teye.context;
+
+import org.fir3.teye.util.PowerOfTwo;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A preallocated single-producer single-consumer ring buffer for the input
+ * events of a window.
+ *
+ * The producer is the thread that processes the GLFW events of the window
+ * (the owner of the event pump), the consumer is the context thread, which
+ * drains all events into an {@link InputBatch} once per frame.
+ *
+ * Recording an event never allocates. If the ring is full, new events are
+ * dropped.
+ */
+final class InputRing {
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private final int mask;
+    private final int[] types;
+    private final int[] ints;
+    private final double[] doubles;
+
+    /**
+     * The index of the next event that will be read by the consumer.
+     */
+    private final AtomicLong head;
+
+    /**
+     * The index of the next event that will be written by the producer.
+     */
+    private final AtomicLong tail;
+
+    private final AtomicLong droppedCount;
+    private final Runnable wakeup;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param capacity  The maximum number of buffered events. Needs to be a
+     *                  power of two.
+     *
+     * @param wakeup    Invoked by the producer, if it recorded an event into
+     *                  an empty ring. Any later event of the same frame does
+     *                  not need a separate wakeup of the consumer.
+     *
+     * @throws IllegalArgumentException If <code>capacity</code> is not a
+     *                                  positive power of two.
+     *
+     * @throws NullPointerException     If <code>wakeup</code> is
+     *                                  <code>null</code>.
+     */
+    InputRing(int capacity, Runnable wakeup) {
+        if (capacity < 1 || !PowerOfTwo.isPowerOfTwo(capacity))
+            throw new IllegalArgumentException("Invalid capacity!");
+
+        if (wakeup == null)
+            throw new NullPointerException("wakeup is null!");
+
+        this.mask = capacity - 1;
+        this.types = new int[capacity];
+        this.ints = new int[capacity * InputBatch.INTS_PER_EVENT];
+        this.doubles = new double[capacity * InputBatch.DOUBLES_PER_EVENT];
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+        this.droppedCount = new AtomicLong();
+        this.wakeup = wakeup;
+    }
+
+    void offerKey(int key, int scancode, int action, int mods) {
+        this.offer(
+                InputBatch.TYPE_KEY,
+                key, scancode, action, mods,
+                0.0, 0.0);
+    }
+
+    void offerChar(int codepoint) {
+        this.offer(InputBatch.TYPE_CHAR, codepoint, 0, 0, 0, 0.0, 0.0);
+    }
+
+    void offerMouseButton(int button, int action, int mods) {
+        this.offer(
+                InputBatch.TYPE_MOUSE_BUTTON,
+                button, action, mods, 0,
+                0.0, 0.0);
+    }
+
+    void offerCursorPos(double x, double y) {
+        this.offer(InputBatch.TYPE_CURSOR_POS, 0, 0, 0, 0, x, y);
+    }
+
+    void offerScroll(double dx, double dy) {
+        this.offer(InputBatch.TYPE_SCROLL, 0, 0, 0, 0, dx, dy);
+    }
+
+    /**
+     * Moves all buffered events into the specified <code>batch</code>,
+     * coalescing consecutive cursor movements and scroll events.
+     *
+     * This method must be called by the consumer only.
+     *
+     * @param batch The batch that is cleared and filled afterwards.
+     */
+    void drainTo(InputBatch batch) {
+        batch.clear();
+
+        long head = this.head.get();
+        long tail = this.tail.get();
+
+        for (long i = head; i < tail; i++) {
+            int index = (int) i & this.mask;
+            int intBase = index * InputBatch.INTS_PER_EVENT;
+            int doubleBase = index * InputBatch.DOUBLES_PER_EVENT;
+
+            batch.add(
+                    this.types[index],
+                    this.ints[intBase],
+                    this.ints[intBase + 1],
+                    this.ints[intBase + 2],
+                    this.ints[intBase + 3],
+                    this.doubles[doubleBase],
+                    this.doubles[doubleBase + 1]);
+        }
+
+        this.head.set(tail);
+    }
+
+    /**
+     * Returns whether there are no buffered events.
+     *
+     * NOTE:    The consumer must check this after {@link #drainTo(InputBatch)}
+     *          and before it goes to sleep. Otherwise, an event that has been
+     *          recorded while draining might not wake it up.
+     *
+     * @return  Either <code>true</code>, if the ring is empty, otherwise
+     *          <code>false</code>.
+     */
+    boolean isEmpty() {
+        return this.head.get() == this.tail.get();
+    }
+
+    /**
+     * Returns the number of events that have been dropped, because the ring
+     * was full.
+     *
+     * @return  The number of dropped events.
+     */
+    long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    private void offer(
+            int type,
+            int i0, int i1, int i2, int i3,
+            double d0, double d1) {
+        long tail = this.tail.get();
+
+        if (tail - this.head.get() > this.mask) {
+            this.droppedCount.incrementAndGet();
+            return;
+        }
+
+        int index = (int) tail & this.mask;
+        int intBase = index * InputBatch.INTS_PER_EVENT;
+        int doubleBase = index * InputBatch.DOUBLES_PER_EVENT;
+
+        this.types[index] = type;
+        this.ints[intBase] = i0;
+        this.ints[intBase + 1] = i1;
+        this.ints[intBase + 2] = i2;
+        this.ints[intBase + 3] = i3;
+        this.doubles[doubleBase] = d0;
+        this.doubles[doubleBase + 1] = d1;
+
+        // NOTE:    The event is published before the consumer's position is
+        //          read. Either the consumer sees the new event when it checks
+        //          isEmpty() before sleeping, or we see that the ring has been
+        //          empty and wake it up.
+
+        this.tail.set(tail + 1);
+
+        if (this.head.get() == tail)
+            this.wakeup.run();
+    }
+}
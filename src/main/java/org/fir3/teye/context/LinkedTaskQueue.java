@@ -0,0 +1,196 @@
+package org.fir3.teye.context;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An unbounded, lock-free multi-producer/single-consumer queue of
+ * {@link Runnable} tasks.
+ *
+ * The queue is an intrusive linked list in the style of Dmitry Vyukov's
+ * MPSC node queue: producers swap themselves into the tail with a single
+ * atomic exchange and never wait for each other or for the consumer.
+ *
+ * To avoid producing garbage for every queued task, a fixed number of nodes
+ * is preallocated and recycled through a stamped, index-based free stack. If
+ * the free stack is exhausted, producers fall back to allocating fresh nodes
+ * that are left to the garbage collector after use.
+ */
+final class LinkedTaskQueue extends TaskQueue {
+    private static final int DEFAULT_POOL_SIZE = 1024;
+
+    /**
+     * The marker value of {@link Node#poolIndex} for nodes that are not part
+     * of the preallocated pool.
+     */
+    private static final int NOT_POOLED = -1;
+
+    private static final class Node {
+        private final int poolIndex;
+        private volatile Node next;
+        private Runnable task;
+        private long enqueueNanos;
+
+        Node(int poolIndex) {
+            this.poolIndex = poolIndex;
+        }
+    }
+
+    private final Node[] pool;
+    private final int[] poolNext;
+
+    /**
+     * The top of the free stack.
+     *
+     * The lower 32 bits contain the pool index of the top node plus one
+     * (zero means empty), while the upper 32 bits contain a stamp that is
+     * incremented by every modification. The stamp prevents the ABA problem
+     * that would otherwise occur because nodes are reused.
+     */
+    private final AtomicLong poolTop;
+
+    private final AtomicReference<Node> tail;
+    private Node head;
+
+    /**
+     * The number of tasks that have been offered.
+     */
+    private final LongAdder offeredCount;
+
+    /**
+     * The number of tasks that have been polled. Only written by the
+     * consumer.
+     */
+    private volatile long polledCount;
+
+    LinkedTaskQueue() {
+        this(LinkedTaskQueue.DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param poolSize  The number of nodes that will be preallocated and
+     *                  recycled.
+     *
+     * @throws IllegalArgumentException If <code>poolSize</code> is negative.
+     */
+    LinkedTaskQueue(int poolSize) {
+        if (poolSize < 0)
+            throw new IllegalArgumentException("Invalid poolSize!");
+
+        this.pool = new Node[poolSize];
+        this.poolNext = new int[poolSize];
+
+        // Initially, every pooled node is part of the free stack.
+
+        for (int i = 0; i < poolSize; i++) {
+            this.pool[i] = new Node(i);
+            this.poolNext[i] = i;
+        }
+
+        this.poolTop = new AtomicLong(poolSize);
+
+        // The stub node is never handed out to producers, thus it does not
+        // need to be part of the pool.
+
+        Node stub = new Node(LinkedTaskQueue.NOT_POOLED);
+
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+        this.offeredCount = new LongAdder();
+    }
+
+    @Override
+    void offer(Runnable task) {
+        if (task == null)
+            throw new NullPointerException("task is null!");
+
+        Node node = this.obtainNode();
+        node.task = task;
+        node.enqueueNanos = System.nanoTime();
+
+        // NOTE:    Between the exchange and the assignment of the next
+        //          reference, the consumer cannot see the new node. This is
+        //          fine, because the consumer will pick it up after the
+        //          assignment took place.
+
+        Node previous = this.tail.getAndSet(node);
+        previous.next = node;
+
+        this.offeredCount.increment();
+    }
+
+    @Override
+    Runnable poll() {
+        Node head = this.head;
+        Node next = head.next;
+
+        if (next == null)
+            return null;
+
+        Runnable task = next.task;
+        next.task = null;
+        this.recordLatency(next.enqueueNanos);
+
+        // The next node becomes the new stub, while the previous stub can be
+        // recycled.
+
+        this.head = next;
+        head.next = null;
+        this.releaseNode(head);
+        this.polledCount++;
+
+        return task;
+    }
+
+    @Override
+    boolean isEmpty() {
+        return this.head.next == null;
+    }
+
+    @Override
+    int size() {
+        // NOTE:    The counter of offered tasks is incremented after the task
+        //          has been linked, thus the consumer may poll a task before
+        //          it has been counted.
+
+        return (int) Math.max(
+                0L,
+                this.offeredCount.sum() - this.polledCount);
+    }
+
+    private Node obtainNode() {
+        while (true) {
+            long top = this.poolTop.get();
+            int index = (int) top - 1;
+
+            if (index < 0)
+                return new Node(LinkedTaskQueue.NOT_POOLED);
+
+            long stamp = (top >>> 32) + 1;
+            long newTop = (stamp << 32) | (this.poolNext[index] & 0xFFFFFFFFL);
+
+            if (this.poolTop.compareAndSet(top, newTop))
+                return this.pool[index];
+        }
+    }
+
+    private void releaseNode(Node node) {
+        int index = node.poolIndex;
+
+        if (index == LinkedTaskQueue.NOT_POOLED)
+            return;
+
+        while (true) {
+            long top = this.poolTop.get();
+            long stamp = (top >>> 32) + 1;
+
+            this.poolNext[index] = (int) top;
+
+            if (this.poolTop.compareAndSet(top, (stamp << 32) | (index + 1)))
+                return;
+        }
+    }
+}
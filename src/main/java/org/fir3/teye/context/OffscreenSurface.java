@@ -0,0 +1,169 @@
+package org.fir3.teye.context;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL30;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An OpenGL framebuffer object that replaces the default framebuffer of a
+ * window, if the {@link Context} runs headless.
+ */
+final class OffscreenSurface {
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final int width;
+    private final int height;
+    private int framebufferId;
+    private int colorRenderbufferId;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param width     The width of the surface.
+     * @param height    The height of the surface.
+     *
+     * @throws IllegalArgumentException If <code>width</code> or
+     *                                  <code>height</code> is less than one.
+     */
+    OffscreenSurface(int width, int height) {
+        if (width < 1)  throw new IllegalArgumentException("Invalid width!");
+        if (height < 1) throw new IllegalArgumentException("Invalid height!");
+
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Creates the OpenGL framebuffer and binds it as draw and read target.
+     *
+     * This method must be called from the OpenGL context thread only.
+     *
+     * @throws IllegalStateException    If this instance has been initialized
+     *                                  already, or if the framebuffer is not
+     *                                  supported by the current context.
+     */
+    void initialize() {
+        if (this.framebufferId > 0)
+            throw new IllegalStateException("Already initialized!");
+
+        this.colorRenderbufferId = GL30.glGenRenderbuffers();
+        GL30.glBindRenderbuffer(GL30.GL_RENDERBUFFER, this.colorRenderbufferId);
+        GL30.glRenderbufferStorage(
+                GL30.GL_RENDERBUFFER,
+                GL11.GL_RGBA8,
+                this.width, this.height);
+
+        this.framebufferId = GL30.glGenFramebuffers();
+        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, this.framebufferId);
+        GL30.glFramebufferRenderbuffer(
+                GL30.GL_FRAMEBUFFER,
+                GL30.GL_COLOR_ATTACHMENT0,
+                GL30.GL_RENDERBUFFER,
+                this.colorRenderbufferId);
+
+        int status = GL30.glCheckFramebufferStatus(GL30.GL_FRAMEBUFFER);
+
+        if (status != GL30.GL_FRAMEBUFFER_COMPLETE) {
+            this.dispose();
+            throw new IllegalStateException(
+                    "Incomplete framebuffer: " + status);
+        }
+    }
+
+    /**
+     * Reads the current content of this surface into <code>dst</code>.
+     *
+     * The pixels are written as RGBA_8888, starting with the top-left pixel
+     * of the surface (like any other pixel data of this project).
+     *
+     * This method must be called from the OpenGL context thread only.
+     *
+     * @param dst   The destination buffer. It needs to be a direct buffer.
+     *
+     * @throws NullPointerException     If <code>dst</code> is
+     *                                  <code>null</code>.
+     *
+     * @throws IllegalArgumentException If <code>dst</code> is not direct or
+     *                                  has too few remaining bytes.
+     *
+     * @throws IllegalStateException    If this instance has not been
+     *                                  initialized.
+     */
+    void read(ByteBuffer dst) {
+        if (dst == null)
+            throw new NullPointerException("dst is null!");
+
+        if (!dst.isDirect())
+            throw new IllegalArgumentException("dst is not direct!");
+
+        int rowSize = this.width * OffscreenSurface.BYTES_PER_PIXEL;
+
+        if (dst.remaining() < rowSize * this.height)
+            throw new IllegalArgumentException("dst is too short!");
+
+        if (this.framebufferId < 1)
+            throw new IllegalStateException("Not initialized!");
+
+        GL30.glBindFramebuffer(GL30.GL_READ_FRAMEBUFFER, this.framebufferId);
+
+        // NOTE:    The whole surface is read at once, since every read waits
+        //          for the pipeline. OpenGL starts with the bottom row, thus
+        //          the rows are flipped afterwards.
+
+        GL11.glReadPixels(
+                0, 0,
+                this.width, this.height,
+                GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE,
+                dst);
+
+        OffscreenSurface.flipRows(dst, dst.position(), rowSize, this.height);
+        dst.position(dst.position() + rowSize * this.height);
+    }
+
+    /**
+     * Reverses the order of the rows in the specified region of
+     * <code>buf</code>.
+     *
+     * @param buf       The buffer that contains the rows.
+     * @param offset    The index of the first byte of the first row.
+     * @param rowSize   The number of bytes per row.
+     * @param rowCount  The number of rows.
+     */
+    static void flipRows(
+            ByteBuffer buf,
+            int offset,
+            int rowSize, int rowCount) {
+        byte[] top = new byte[rowSize];
+        byte[] bottom = new byte[rowSize];
+        ByteBuffer view = buf.duplicate();
+
+        for (int row = 0; row < rowCount / 2; row++) {
+            int topOffset = offset + row * rowSize;
+            int bottomOffset = offset + (rowCount - row - 1) * rowSize;
+
+            view.position(topOffset);
+            view.get(top);
+            view.position(bottomOffset);
+            view.get(bottom);
+
+            view.position(topOffset);
+            view.put(bottom);
+            view.position(bottomOffset);
+            view.put(top);
+        }
+    }
+
+    void dispose() {
+        if (this.framebufferId > 0) {
+            GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
+            GL30.glDeleteFramebuffers(this.framebufferId);
+            this.framebufferId = 0;
+        }
+
+        if (this.colorRenderbufferId > 0) {
+            GL30.glDeleteRenderbuffers(this.colorRenderbufferId);
+            this.colorRenderbufferId = 0;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.fir3.teye.context;
+
+/**
+ * Determines how a bounded task queue of a {@link Context} reacts, if a
+ * producer submits a task while the queue is full.
+ *
+ * @see ContextConfig#taskQueueCapacity(int)
+ */
+public enum OverflowPolicy {
+    /**
+     * The producer waits until the context thread took enough tasks to make
+     * space for the new one.
+     */
+    BLOCK,
+
+    /**
+     * The oldest queued task is discarded without being run to make space for
+     * the new one. The producer never waits.
+     *
+     * The future of a discarded task of
+     * {@link ContextExecutor#submit(java.util.concurrent.Callable)} is
+     * completed with a
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    DROP_OLDEST,
+
+    /**
+     * A task that is submitted with a key replaces the pending task of the
+     * same key, if there is one, and therefore never occupies additional
+     * space. Tasks without a key, or whose key has no pending task, wait for
+     * space like with {@link #BLOCK}.
+     *
+     * @see ContextExecutor#execute(Object, Runnable)
+     */
+    COALESCE_BY_KEY
+}
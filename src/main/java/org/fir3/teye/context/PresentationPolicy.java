@@ -0,0 +1,102 @@
+package org.fir3.teye.context;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Determines how often the {@link Context} presents frames and how it waits
+ * between them.
+ *
+ * Instances are obtained by the static factory methods of this class.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PresentationPolicy {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static final PresentationPolicy VSYNC =
+            new PresentationPolicy(Mode.VSYNC, 0L);
+
+    private static final PresentationPolicy ADAPTIVE =
+            new PresentationPolicy(Mode.ADAPTIVE, 0L);
+
+    private static final PresentationPolicy UNTHROTTLED =
+            new PresentationPolicy(Mode.UNTHROTTLED, 0L);
+
+    public enum Mode {
+        VSYNC,
+        FRAME_CAP,
+        ADAPTIVE,
+        UNTHROTTLED
+    }
+
+    /**
+     * Presents each frame synchronized with the vertical retrace of the
+     * display.
+     *
+     * This is the default policy.
+     *
+     * @return  The vsync policy.
+     */
+    public static PresentationPolicy vsync() {
+        return PresentationPolicy.VSYNC;
+    }
+
+    /**
+     * Presents frames without synchronization with the display, but at most
+     * <code>framesPerSecond</code> times per second.
+     *
+     * Between the frames, the context thread sleeps until either the next
+     * frame is due or an event needs to be processed.
+     *
+     * @param framesPerSecond   The maximum number of frames per second.
+     *
+     * @return  The frame cap policy.
+     *
+     * @throws IllegalArgumentException If <code>framesPerSecond</code> is
+     *                                  less than one.
+     */
+    public static PresentationPolicy frameCap(int framesPerSecond) {
+        if (framesPerSecond < 1)
+            throw new IllegalArgumentException("Invalid framesPerSecond!");
+
+        return new PresentationPolicy(
+                Mode.FRAME_CAP,
+                PresentationPolicy.NANOS_PER_SECOND / framesPerSecond);
+    }
+
+    /**
+     * Presents frames synchronized with the vertical retrace of the display,
+     * unless a frame is late. Late frames are presented immediately, which
+     * may cause tearing instead of stuttering.
+     *
+     * If the adaptive synchronization is not supported by the platform, this
+     * behaves like {@link #vsync()}.
+     *
+     * @return  The adaptive policy.
+     */
+    public static PresentationPolicy adaptive() {
+        return PresentationPolicy.ADAPTIVE;
+    }
+
+    /**
+     * Renders and presents frames continuously without any synchronization
+     * or waiting, also if nothing has been modified.
+     *
+     * This is intended for measuring the throughput of the renderer.
+     *
+     * @return  The unthrottled policy.
+     */
+    public static PresentationPolicy unthrottled() {
+        return PresentationPolicy.UNTHROTTLED;
+    }
+
+    private final Mode mode;
+
+    /**
+     * The minimum time between two frames in nanoseconds, or zero, if the
+     * frame rate is not capped.
+     */
+    private final long frameIntervalNanos;
+}
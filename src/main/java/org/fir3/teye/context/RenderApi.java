@@ -1,6 +1,25 @@
 package org.fir3.teye.context;
 
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
 public enum RenderApi {
-    OpenGL,
-    OpenGL_ES
+    OpenGL(false),
+    OpenGL_ES(false),
+
+    /**
+     * OpenGL without a visible window.
+     *
+     * Frames are rendered into an offscreen framebuffer that can be read back
+     * by {@link Context#readPixels(java.nio.ByteBuffer)}.
+     */
+    OpenGL_Headless(true);
+
+    /**
+     * Whether the frames are rendered offscreen instead of being presented
+     * inside a visible window.
+     */
+    @Getter
+    private final boolean headless;
 }
@@ -0,0 +1,31 @@
+package org.fir3.teye.context;
+
+/**
+ * The management interface of the statistics of the renderer of a
+ * {@link Context} (see
+ * {@link org.fir3.teye.ui.renderer.RendererStatistics}).
+ *
+ * All counts are totals since the renderer has been created.
+ */
+public interface RendererStatisticsMXBean {
+    long getFrameCount();
+    long getModificationCount();
+    long getMosaicsTouched();
+    long getBufferUpdates();
+    long getUploadedBytes();
+    long getDrawingGroups();
+    long getDrawCalls();
+    int getLastFrameDrawingGroups();
+    int getLastFrameDrawCalls();
+
+    /**
+     * Returns the number of received modifications of the attribute with the
+     * specified <code>attributeName</code>.
+     *
+     * @param attributeName The name of an
+     *                      {@link org.fir3.teye.ui.renderer.ElementAttribute}.
+     *
+     * @return  The number of modifications.
+     */
+    long getModificationCount(String attributeName);
+}
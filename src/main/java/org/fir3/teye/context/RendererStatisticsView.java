@@ -0,0 +1,94 @@
+package org.fir3.teye.context;
+
+import org.fir3.teye.ui.UI;
+import org.fir3.teye.ui.renderer.ElementAttribute;
+import org.fir3.teye.ui.renderer.RendererStatistics;
+
+/**
+ * Exposes the statistics of the renderer of a {@link Context} through JMX.
+ *
+ * Every query takes a new snapshot of the counters. While the context has no
+ * UI, all counts are zero.
+ */
+final class RendererStatisticsView implements RendererStatisticsMXBean {
+    private final Context context;
+
+    RendererStatisticsView(Context context) {
+        if (context == null)
+            throw new NullPointerException("context is null!");
+
+        this.context = context;
+    }
+
+    @Override
+    public long getFrameCount() {
+        RendererStatistics statistics = this.snapshot();
+        return statistics == null ? 0L : statistics.getFrameCount();
+    }
+
+    @Override
+    public long getModificationCount() {
+        RendererStatistics statistics = this.snapshot();
+        return statistics == null ? 0L : statistics.getModificationCount();
+    }
+
+    @Override
+    public long getMosaicsTouched() {
+        RendererStatistics statistics = this.snapshot();
+        return statistics == null ? 0L : statistics.getMosaicsTouched();
+    }
+
+    @Override
+    public long getBufferUpdates() {
+        RendererStatistics statistics = this.snapshot();
+        return statistics == null ? 0L : statistics.getBufferUpdates();
+    }
+
+    @Override
+    public long getUploadedBytes() {
+        RendererStatistics statistics = this.snapshot();
+        return statistics == null ? 0L : statistics.getUploadedBytes();
+    }
+
+    @Override
+    public long getDrawingGroups() {
+        RendererStatistics statistics = this.snapshot();
+        return statistics == null ? 0L : statistics.getDrawingGroups();
+    }
+
+    @Override
+    public long getDrawCalls() {
+        RendererStatistics statistics = this.snapshot();
+        return statistics == null ? 0L : statistics.getDrawCalls();
+    }
+
+    @Override
+    public int getLastFrameDrawingGroups() {
+        RendererStatistics statistics = this.snapshot();
+        return statistics == null ? 0 : statistics.getLastFrameDrawingGroups();
+    }
+
+    @Override
+    public int getLastFrameDrawCalls() {
+        RendererStatistics statistics = this.snapshot();
+        return statistics == null ? 0 : statistics.getLastFrameDrawCalls();
+    }
+
+    @Override
+    public long getModificationCount(String attributeName) {
+        if (attributeName == null)
+            throw new NullPointerException("attributeName is null!");
+
+        ElementAttribute attribute = ElementAttribute.valueOf(attributeName);
+        RendererStatistics statistics = this.snapshot();
+
+        return statistics == null
+                ? 0L
+                : statistics.getModificationCount(attribute);
+    }
+
+    private RendererStatistics snapshot() {
+        UI ui = this.context.getUI();
+        return ui == null ? null : ui.getRendererStatistics();
+    }
+}
@@ -0,0 +1,198 @@
+package org.fir3.teye.context;
+
+import org.fir3.teye.util.Histogram;
+
+/**
+ * The base class of the queues that carry {@link Runnable} tasks from any
+ * number of producer threads to a single consumer thread.
+ *
+ * Any thread may call {@link #offer(Runnable)} concurrently, while only a
+ * single thread (the consumer) is allowed to call {@link #poll()} or
+ * {@link #drain(int, long)}.
+ *
+ * Besides the tasks themselves, every queue keeps track of the time that
+ * tasks spent waiting for the consumer. Implementations report this by
+ * calling {@link #recordLatency(long)} for every task that is returned by
+ * {@link #poll()}.
+ */
+abstract class TaskQueue {
+    /**
+     * A task that needs to know, if a queue discards it without running it
+     * (see {@link OverflowPolicy#DROP_OLDEST}).
+     */
+    interface DiscardableTask extends Runnable {
+        /**
+         * Called instead of {@link #run()}, if the task has been discarded.
+         *
+         * This is called by the producer thread that made space for its own
+         * task.
+         */
+        void discarded();
+    }
+
+    private final Histogram latencyHistogram;
+    private final Histogram blockedHistogram;
+
+    TaskQueue() {
+        this.latencyHistogram = new Histogram();
+        this.blockedHistogram = new Histogram();
+    }
+
+    /**
+     * Appends the specified <code>task</code> to the end of this queue.
+     *
+     * This method may be called by any thread. Depending on the
+     * implementation, it may block until there is space for the task.
+     *
+     * @param task  The task that shall be appended.
+     *
+     * @throws NullPointerException If <code>task</code> is <code>null</code>.
+     */
+    abstract void offer(Runnable task);
+
+    /**
+     * Appends the specified <code>task</code> to the end of this queue, but
+     * allows the implementation to replace a pending task of the same
+     * <code>key</code> instead.
+     *
+     * By default, the <code>key</code> is ignored.
+     *
+     * @param key   The key that identifies tasks that supersede each other, or
+     *              <code>null</code>, if the task must not be coalesced.
+     *
+     * @param task  The task that shall be appended.
+     *
+     * @throws NullPointerException If <code>task</code> is <code>null</code>.
+     */
+    void offer(Object key, Runnable task) {
+        this.offer(task);
+    }
+
+    /**
+     * Removes and returns the first task of this queue.
+     *
+     * This method must only be called by the consumer thread.
+     *
+     * @return  Either the first task or <code>null</code>, if there is none.
+     */
+    abstract Runnable poll();
+
+    /**
+     * Returns whether this queue contains no tasks.
+     *
+     * If called by a producer thread, the result is only a snapshot that may
+     * be outdated already.
+     *
+     * @return  Either <code>true</code>, if there is no task, otherwise
+     *          <code>false</code>.
+     */
+    abstract boolean isEmpty();
+
+    /**
+     * Returns the number of queued tasks.
+     *
+     * The result is only a snapshot that may be outdated already.
+     *
+     * @return  The number of tasks that are waiting for the consumer.
+     */
+    abstract int size();
+
+    /**
+     * Returns the number of tasks that have been discarded, because the
+     * queue was full.
+     *
+     * @return  The number of discarded tasks.
+     */
+    long getDroppedCount() {
+        return 0L;
+    }
+
+    /**
+     * Returns the number of tasks that have been replaced by a later task of
+     * the same key before they were run.
+     *
+     * @return  The number of replaced tasks.
+     */
+    long getCoalescedCount() {
+        return 0L;
+    }
+
+    /**
+     * Returns the histogram of the nanoseconds that tasks spent in this queue
+     * before they were taken by the consumer.
+     *
+     * @return  The latency histogram.
+     */
+    Histogram getLatencyHistogram() {
+        return this.latencyHistogram;
+    }
+
+    /**
+     * Returns the histogram of the nanoseconds that producers spent waiting
+     * for space in this queue.
+     *
+     * @return  The histogram of blocked producers. Empty for queues that
+     *          never block.
+     */
+    Histogram getBlockedHistogram() {
+        return this.blockedHistogram;
+    }
+
+    /**
+     * Runs the tasks of this queue in order until either the queue is empty,
+     * <code>maxTasks</code> tasks have been run or the execution took longer
+     * than <code>maxNanos</code> nanoseconds.
+     *
+     * The time budget is checked after each task, so a single long running
+     * task cannot be interrupted, but it prevents that further tasks are run
+     * in the same call.
+     *
+     * This method must only be called by the consumer thread.
+     *
+     * @param maxTasks  The maximum number of tasks that are run by this call.
+     * @param maxNanos  The maximum time in nanoseconds that this call may
+     *                  spend running tasks.
+     *
+     * @return  The number of tasks that have been run.
+     */
+    int drain(int maxTasks, long maxNanos) {
+        long start = System.nanoTime();
+        int count = 0;
+
+        while (count < maxTasks) {
+            Runnable task = this.poll();
+
+            if (task == null)
+                break;
+
+            task.run();
+            count++;
+
+            if (System.nanoTime() - start >= maxNanos)
+                break;
+        }
+
+        return count;
+    }
+
+    /**
+     * Records that a task, which has been enqueued at
+     * <code>enqueueNanos</code>, has been taken by the consumer.
+     *
+     * @param enqueueNanos  The value of {@link System#nanoTime()} at the time
+     *                      the task has been enqueued.
+     */
+    final void recordLatency(long enqueueNanos) {
+        this.latencyHistogram.record(System.nanoTime() - enqueueNanos);
+    }
+
+    /**
+     * Records that a producer waited <code>nanos</code> nanoseconds for space
+     * in this queue.
+     *
+     * @param nanos The time that the producer has been blocked.
+     */
+    final void recordBlocked(long nanos) {
+        this.blockedHistogram.record(nanos);
+    }
+}
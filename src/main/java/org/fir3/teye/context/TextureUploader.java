@@ -0,0 +1,125 @@
+package org.fir3.teye.context;
+
+import org.lwjgl.glfw.GLFW;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.system.MemoryUtil;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A dedicated thread with its own OpenGL context that shares its objects with
+ * the OpenGL context of the {@link Context}.
+ *
+ * Tasks that are passed to {@link #execute(Runnable)} are run on this thread
+ * in the order of their submission. They may upload data into shared OpenGL
+ * objects without blocking the rendering of the {@link Context}.
+ */
+final class TextureUploader implements Runnable, Executor {
+    private static final String THREAD_NAME = "Context Texture Uploader";
+
+    private final long windowPtr;
+    private final TaskQueue tasks;
+    private final Thread thread;
+    private volatile boolean stopRequested;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param windowPtr The (invisible) GLFW window whose OpenGL context will
+     *                  be made current on the uploader thread. The context
+     *                  needs to share its objects with the context of the
+     *                  {@link Context} window.
+     */
+    TextureUploader(long windowPtr) {
+        if (windowPtr == MemoryUtil.NULL)
+            throw new IllegalArgumentException("Invalid windowPtr!");
+
+        this.windowPtr = windowPtr;
+        this.tasks = new LinkedTaskQueue();
+        this.thread = new Thread(this, TextureUploader.THREAD_NAME);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Queues the specified <code>task</code> for being run on the uploader
+     * thread.
+     *
+     * @param task  The task that shall be run.
+     *
+     * @throws RejectedExecutionException   If the uploader has been shut down
+     *                                      already. This may happen, if the
+     *                                      uploader is used by the renderer of
+     *                                      another {@link Context} that shares
+     *                                      its textures.
+     */
+    @Override
+    public void execute(Runnable task) {
+        synchronized (this) {
+            if (this.stopRequested)
+                throw new RejectedExecutionException("Uploader is shut down!");
+
+            this.tasks.offer(task);
+        }
+
+        LockSupport.unpark(this.thread);
+    }
+
+    @Override
+    public void run() {
+        GLFW.glfwMakeContextCurrent(this.windowPtr);
+        GL.createCapabilities();
+
+        while (true) {
+            if (this.tasks.drain(Integer.MAX_VALUE, Long.MAX_VALUE) > 0)
+                continue;
+
+            // NOTE:    The stop request is only checked after the queue has
+            //          been drained, thus all submitted uploads complete. A
+            //          task may still have been offered between draining and
+            //          checking, hence the queue is drained once more.
+
+            if (this.stopRequested) {
+                this.tasks.drain(Integer.MAX_VALUE, Long.MAX_VALUE);
+                break;
+            }
+
+            LockSupport.park(this);
+        }
+
+        GL.setCapabilities(null);
+        GLFW.glfwMakeContextCurrent(MemoryUtil.NULL);
+    }
+
+    void start() {
+        this.thread.start();
+    }
+
+    /**
+     * Runs the remaining tasks, stops the uploader thread and waits until it
+     * released its OpenGL context.
+     *
+     * Afterwards, the window of this uploader may be destroyed.
+     */
+    void shutdown() {
+        synchronized (this) {
+            this.stopRequested = true;
+        }
+
+        LockSupport.unpark(this.thread);
+
+        boolean interrupted = false;
+
+        while (this.thread.isAlive()) {
+            try {
+                this.thread.join();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+}
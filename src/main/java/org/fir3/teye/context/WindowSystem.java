@@ -0,0 +1,121 @@
+package org.fir3.teye.context;
+
+import org.lwjgl.glfw.GLFW;
+import org.lwjgl.glfw.GLFWErrorCallback;
+
+/**
+ * Tracks the contexts that use GLFW.
+ *
+ * Most GLFW functions (window management and event processing) must not be
+ * called concurrently. Hence, the first {@link Context} that acquires the
+ * window system initializes GLFW and becomes the owner of the event pump:
+ * All windows are created, destroyed and serviced by its thread. If the owner
+ * is closed while other contexts are still running, its thread keeps
+ * processing events until the last of them has been closed.
+ */
+final class WindowSystem {
+    private static Context owner;
+    private static int referenceCount;
+
+    /**
+     * Registers the specified <code>context</code> as user of GLFW.
+     *
+     * This method must be called from the thread of the specified context.
+     *
+     * @param context   The context that is about to create its window.
+     *
+     * @return  Either <code>true</code>, if the context is the owner of the
+     *          event pump, otherwise <code>false</code>.
+     *
+     * @throws IllegalStateException    If GLFW cannot be initialized.
+     */
+    static synchronized boolean acquire(Context context) {
+        if (WindowSystem.referenceCount > 0) {
+            WindowSystem.referenceCount++;
+            return false;
+        }
+
+        GLFWErrorCallback.createPrint(System.err).set();
+
+        if (!GLFW.glfwInit()) {
+            GLFW.glfwSetErrorCallback(null).free();
+            throw new IllegalStateException("Cannot initialize GLFW!");
+        }
+
+        WindowSystem.owner = context;
+        WindowSystem.referenceCount = 1;
+
+        return true;
+    }
+
+    /**
+     * Returns the context whose thread owns the event pump.
+     *
+     * @return  The owner, or <code>null</code>, if GLFW is not initialized.
+     */
+    static synchronized Context getOwner() {
+        return WindowSystem.owner;
+    }
+
+    /**
+     * Wakes up the owner of the event pump, if it is waiting for events.
+     *
+     * NOTE:    This is synchronized with {@link #releaseIfLast()}, because
+     *          GLFW must not be called while or after it is terminated. A
+     *          wakeup that is sent by another thread during the shutdown of
+     *          the owner is discarded instead.
+     *
+     * @return  Either <code>true</code>, if the event has been posted, or
+     *          <code>false</code>, if GLFW is not initialized.
+     */
+    static synchronized boolean postEmptyEvent() {
+        if (WindowSystem.owner == null)
+            return false;
+
+        GLFW.glfwPostEmptyEvent();
+        return true;
+    }
+
+    /**
+     * Unregisters a context that is not the owner of the event pump.
+     *
+     * The window of the context must have been destroyed already.
+     */
+    static void release() {
+        Context pump;
+
+        synchronized (WindowSystem.class) {
+            WindowSystem.referenceCount--;
+            pump = WindowSystem.owner;
+        }
+
+        // The owner may be waiting for the last context to be released.
+
+        pump.getExecutor().wakeup();
+    }
+
+    /**
+     * Unregisters the owner of the event pump and terminates GLFW, if no
+     * other context is registered anymore.
+     *
+     * This method must be called from the thread of the owner.
+     *
+     * @return  Either <code>true</code>, if GLFW has been terminated, or
+     *          <code>false</code>, if the owner needs to keep processing
+     *          events for other contexts.
+     */
+    static synchronized boolean releaseIfLast() {
+        if (WindowSystem.referenceCount > 1)
+            return false;
+
+        WindowSystem.referenceCount = 0;
+        WindowSystem.owner = null;
+
+        GLFW.glfwTerminate();
+        GLFW.glfwSetErrorCallback(null).free();
+
+        return true;
+    }
+
+    private WindowSystem() {}
+}
@@ -0,0 +1,301 @@
+package org.fir3.teye.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lean alternative to {@link AbstractModifiable} for objects that exist in
+ * large numbers, like the elements of a renderer.
+ *
+ * Instead of keeping track of the obtained {@link Modification} instances,
+ * the assigned {@link ModificationListener} is bound together with a
+ * generation number that is incremented whenever the listener is replaced.
+ * A modification is only reported, if the binding that it has been obtained
+ * from is still the current one. Otherwise, it is released to the listener
+ * that it has been obtained from. Hence, just like {@link AbstractModifiable},
+ * a listener never receives modifications of another listener.
+ *
+ * Notifications do not lock. Instead, each instance counts the
+ * notifications that are in progress, and
+ * {@link #setModificationListener(ModificationListener)} parks until they
+ * have finished after replacing the listener. Thus, once the listener has
+ * been replaced, the previous one is never notified again.
+ *
+ * NOTE:    The obtained modification is stored in a plain field, therefore
+ *          the modifications must be reported by a single thread at a time
+ *          and each modification must be reported or released before the
+ *          next one is obtained.
+ *
+ * @param <M>   The modifiable itself.
+ * @param <T>   The type of the modifications that may be reported to the
+ *              {@link ModificationListener}.
+ */
+public abstract class AbstractLightweightModifiable<
+        M extends Modifiable<M, T>,
+        T extends Modification>
+        implements Modifiable<M, T> {
+    private static final class Binding<
+            M extends Modifiable<M, T>,
+            T extends Modification> {
+        private final ModificationListener<M, T> listener;
+        private final long generation;
+
+        private Binding(ModificationListener<M, T> listener, long generation) {
+            this.listener = listener;
+            this.generation = generation;
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<
+            AbstractLightweightModifiable, Binding> BINDING =
+            AtomicReferenceFieldUpdater.newUpdater(
+                    AbstractLightweightModifiable.class,
+                    Binding.class,
+                    "binding");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<
+            AbstractLightweightModifiable> IN_FLIGHT =
+            AtomicIntegerFieldUpdater.newUpdater(
+                    AbstractLightweightModifiable.class,
+                    "inFlight");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<
+            AbstractLightweightModifiable, Thread> WAITER =
+            AtomicReferenceFieldUpdater.newUpdater(
+                    AbstractLightweightModifiable.class,
+                    Thread.class,
+                    "waiter");
+
+    /**
+     * The instances whose listeners are being notified by the current
+     * thread, innermost last.
+     */
+    private static final ThreadLocal<List<AbstractLightweightModifiable<?, ?>>>
+            NOTIFYING = ThreadLocal.withInitial(ArrayList::new);
+
+    private static final long MIN_BACKOFF_NANOS =
+            TimeUnit.MICROSECONDS.toNanos(1L);
+
+    private static final long MAX_BACKOFF_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(1L);
+
+    private volatile Binding<M, T> binding;
+
+    /**
+     * The number of notifications that are in progress.
+     */
+    private volatile int inFlight;
+
+    /**
+     * The thread that waits for the notifications in progress, which is
+     * unparked whenever one of them finishes, or <code>null</code>.
+     */
+    private volatile Thread waiter;
+
+    /**
+     * The binding that the last obtained modification belongs to.
+     */
+    private Binding<M, T> obtainedBinding;
+
+    protected AbstractLightweightModifiable() {
+        this.binding = new Binding<>(null, 0L);
+    }
+
+    /**
+     * Assigns the specified <code>listener</code> to this instance.
+     *
+     * If the previous listener is being notified by another thread, this
+     * method blocks until the notification has finished.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setModificationListener(ModificationListener<M, T> listener) {
+        Binding<M, T> previous;
+
+        do {
+            previous = this.binding;
+        } while (!AbstractLightweightModifiable.BINDING.compareAndSet(
+                this,
+                previous,
+                new Binding<>(listener, previous.generation + 1L)));
+
+        // NOTE:    A notification is counted before it reads the binding,
+        //          while the binding is replaced before the count is read
+        //          here. Hence, either the notification sees the new
+        //          binding, or it is awaited. The listener may replace itself
+        //          while it is being notified, which must not wait for its
+        //          own notifications.
+
+        int ownNotifications = this.countOwnNotifications();
+
+        if (this.inFlight <= ownNotifications)
+            return;
+
+        Thread current = Thread.currentThread();
+
+        // Only one waiter is unparked, any other one parks with a backoff.
+
+        boolean registered = AbstractLightweightModifiable.WAITER
+                .compareAndSet(this, null, current);
+
+        long backoff = AbstractLightweightModifiable.MIN_BACKOFF_NANOS;
+
+        try {
+            while (this.inFlight > ownNotifications) {
+                if (registered) {
+                    LockSupport.park(this);
+                    continue;
+                }
+
+                LockSupport.parkNanos(this, backoff);
+                backoff = Math.min(
+                        backoff * 2,
+                        AbstractLightweightModifiable.MAX_BACKOFF_NANOS);
+            }
+        } finally {
+            if (registered)
+                this.waiter = null;
+        }
+    }
+
+    /**
+     * Notifies the assigned {@link ModificationListener} that this instance
+     * has been modified.
+     *
+     * If the {@link ModificationListener} has been replaced since the
+     * <code>modification</code> has been obtained, it is released to the
+     * {@link ModificationListener} that it has been obtained from instead.
+     *
+     * @param modification  The modification that this instance experienced,
+     *                      as returned by {@link #obtainModification()}.
+     */
+    @SuppressWarnings("unchecked")
+    protected void notifyModified(T modification) {
+        Binding<M, T> obtained = this.obtainedBinding;
+        this.obtainedBinding = null;
+
+        if (obtained == null || obtained.listener == null)
+            return;
+
+        List<AbstractLightweightModifiable<?, ?>> notifying =
+                AbstractLightweightModifiable.NOTIFYING.get();
+
+        AbstractLightweightModifiable.IN_FLIGHT.incrementAndGet(this);
+        notifying.add(this);
+
+        try {
+            if (obtained.generation != this.binding.generation) {
+                obtained.listener.releaseModification(modification, true);
+                return;
+            }
+
+            obtained.listener.notifyModified((M) this, modification);
+        } finally {
+            notifying.remove(notifying.size() - 1);
+            AbstractLightweightModifiable.IN_FLIGHT.decrementAndGet(this);
+
+            Thread waiter = this.waiter;
+
+            if (waiter != null)
+                LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * Notifies the assigned {@link ModificationListener} that this instance
+     * has been modified, if the <code>previousValue</code> is not equal to the
+     * <code>newValue</code>.
+     *
+     * The equality check is performed by
+     * {@link Objects#equals(Object, Object)}.
+     *
+     * @param previousValue The previous value.
+     * @param newValue      The new value.
+     * @param modification  The modification that this instance may have
+     *                      experienced.
+     *
+     * @param <V>           The type of the values.
+     */
+    protected <V> void notifyIfModified(
+            V previousValue, V newValue,
+            T modification) {
+        if (Objects.equals(previousValue, newValue)) {
+            this.releaseModification(modification);
+            return;
+        }
+
+        this.notifyModified(modification);
+    }
+
+    /**
+     * Returns whether a {@link ModificationListener} has been assigned to this
+     * instance or not.
+     *
+     * @return  Either <code>true</code>, if a {@link ModificationListener} has
+     *          been assigned, otherwise <code>false</code>.
+     */
+    protected boolean hasListener() {
+        return this.binding.listener != null;
+    }
+
+    /**
+     * Obtains a new modification object, or returns <code>null</code>, if
+     * there is no {@link ModificationListener} assigned to this instance.
+     *
+     * You should always notify the assigned {@link ModificationListener} with
+     * this object, or release it by
+     * {@link #releaseModification(Modification)}, before obtaining the next
+     * one.
+     *
+     * @return  The new modification object or <code>null</code>, if there is
+     *          no assigned {@link ModificationListener}.
+     */
+    protected T obtainModification() {
+        Binding<M, T> binding = this.binding;
+
+        if (binding.listener == null)
+            return null;
+
+        this.obtainedBinding = binding;
+        return binding.listener.newModification();
+    }
+
+    /**
+     * Returns the specified <code>modification</code> to the
+     * {@link ModificationListener} that it has been obtained from, without
+     * reporting it.
+     *
+     * @param modification  The modification that is no longer in use.
+     */
+    protected void releaseModification(T modification) {
+        Binding<M, T> obtained = this.obtainedBinding;
+        this.obtainedBinding = null;
+
+        if (obtained != null && obtained.listener != null)
+            obtained.listener.releaseModification(modification, true);
+    }
+
+    /**
+     * Returns the number of notifications of this instance that are in
+     * progress on the current thread.
+     */
+    private int countOwnNotifications() {
+        int count = 0;
+
+        for (AbstractLightweightModifiable<?, ?> instance :
+                AbstractLightweightModifiable.NOTIFYING.get()) {
+            if (instance == this)
+                count++;
+        }
+
+        return count;
+    }
+}
@@ -1,35 +1,163 @@
 package org.fir3.teye.ui;
 
 import org.fir3.teye.context.Context;
+import org.fir3.teye.context.ContextExecutor;
+import org.fir3.teye.context.InputBatch;
+import org.fir3.teye.context.InputListener;
 import org.fir3.teye.context.RenderApi;
+import org.fir3.teye.ui.renderer.ModificationMode;
 import org.fir3.teye.ui.renderer.Renderer;
+import org.fir3.teye.ui.renderer.RendererStatistics;
 import org.fir3.teye.ui.renderer.gl.GLRenderer;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public final class UI implements ModificationListener<
         Renderer<Modification.NullModification>,
         Modification.NullModification> {
-    private static UI INSTANCE;
-
+    /**
+     * Creates a UI for the context of the calling thread.
+     *
+     * @param renderApi The render API of the current context.
+     * @param width     The width of the viewport.
+     * @param height    The height of the viewport.
+     *
+     * @return  The new instance.
+     *
+     * @throws IllegalStateException    If the calling thread is not a context
+     *                                  thread.
+     */
     public static UI create(RenderApi renderApi, int width, int height) {
-        if (UI.INSTANCE != null)
-            throw new IllegalStateException("Already initialized!");
+        Context context = Context.current();
+
+        if (context == null)
+            throw new IllegalStateException("Not inside context!");
+
+        return UI.create(
+                renderApi,
+                width, height,
+                context.getExecutor(),
+                null, null,
+                ModificationMode.PUSH);
+    }
+
+    /**
+     * Creates a new UI instance.
+     *
+     * @param renderApi         The render API of the current context.
+     * @param width             The width of the viewport.
+     * @param height            The height of the viewport.
+     * @param contextExecutor   The executor of the context that renders the
+     *                          UI.
+     * @param uploadExecutor    An executor that uploads texture data on a
+     *                          thread with a shared OpenGL context, or
+     *                          <code>null</code>, if texture data shall be
+     *                          uploaded synchronously.
+     * @param textureSource     If not <code>null</code>, the new UI shares
+     *                          the textures of the specified one. The OpenGL
+     *                          contexts of both UIs need to share their
+     *                          objects.
+     * @param modificationMode  Determines whether the renderer handles
+     *                          modified elements immediately or once per
+     *                          frame.
+     *
+     * @return  The new instance.
+     *
+     * @throws NullPointerException     If <code>contextExecutor</code> or
+     *                                  <code>modificationMode</code> is
+     *                                  <code>null</code>.
+     *
+     * @throws IllegalArgumentException If <code>textureSource</code> uses
+     *                                  another render API.
+     */
+    public static UI create(
+            RenderApi renderApi,
+            int width, int height,
+            ContextExecutor contextExecutor,
+            Executor uploadExecutor,
+            UI textureSource,
+            ModificationMode modificationMode) {
+        if (contextExecutor == null)
+            throw new NullPointerException("contextExecutor is null!");
 
-        return (UI.INSTANCE = new UI(renderApi, width, height));
+        if (modificationMode == null)
+            throw new NullPointerException("modificationMode is null!");
+
+        return new UI(
+                renderApi,
+                width, height,
+                contextExecutor,
+                uploadExecutor,
+                textureSource,
+                modificationMode);
     }
 
+    /**
+     * Returns the UI of the context of the calling thread, or of the default
+     * context, if the calling thread is not a context thread.
+     *
+     * @return  The UI instance.
+     *
+     * @throws IllegalStateException    If there is no such context, or if its
+     *                                  UI has not been initialized yet.
+     */
     public static UI getInstance() {
-        if (UI.INSTANCE == null)
+        Context context = Context.current();
+
+        if (context == null)
+            context = Context.getDefault();
+
+        UI ui = context.getUI();
+
+        if (ui == null)
             throw new IllegalStateException("Not initialized!");
 
-        return UI.INSTANCE;
+        return ui;
     }
 
     private final Renderer<Modification.NullModification> renderer;
+    private final ContextExecutor contextExecutor;
+
+    /**
+     * Whether the scene has been modified since the last call of
+     * {@link #clearModified()}.
+     *
+     * This starts as <code>true</code>, because nothing has been rendered
+     * yet.
+     */
+    private final AtomicBoolean modified;
+
+    private volatile InputListener inputListener;
+
+    private UI(
+            RenderApi renderApi,
+            int width, int height,
+            ContextExecutor contextExecutor,
+            Executor uploadExecutor,
+            UI textureSource,
+            ModificationMode modificationMode) {
+        this.contextExecutor = contextExecutor;
+        this.modified = new AtomicBoolean(true);
 
-    private UI(RenderApi renderApi, int width, int height) {
         switch (renderApi) {
             case OpenGL:
-                this.renderer = new GLRenderer(width, height);
+            case OpenGL_Headless:
+                GLRenderer sourceRenderer = null;
+
+                if (textureSource != null) {
+                    if (!(textureSource.renderer instanceof GLRenderer))
+                        throw new IllegalArgumentException(
+                                "Invalid textureSource!");
+
+                    sourceRenderer = (GLRenderer) textureSource.renderer;
+                }
+
+                this.renderer = new GLRenderer(
+                        width, height,
+                        uploadExecutor,
+                        sourceRenderer,
+                        modificationMode);
                 break;
 
             case OpenGL_ES:
@@ -50,13 +178,83 @@ public final class UI implements ModificationListener<
         this.renderer.render();
     }
 
+    /**
+     * Returns a snapshot of the counters of the renderer.
+     *
+     * This method may be called by any thread.
+     *
+     * @return  The current statistics of the renderer.
+     */
+    public RendererStatistics getRendererStatistics() {
+        return this.renderer.getStatistics();
+    }
+
+    /**
+     * Sets the listener that receives the input events of the window.
+     *
+     * @param inputListener The new listener, or <code>null</code>, if input
+     *                      events shall be ignored.
+     */
+    public void setInputListener(InputListener inputListener) {
+        this.inputListener = inputListener;
+    }
+
+    /**
+     * Passes the input events of the current frame to the input listener.
+     *
+     * This method must be called from the context thread only.
+     *
+     * @param batch The input events of the current frame.
+     */
+    public void processInput(InputBatch batch) {
+        InputListener listener = this.inputListener;
+
+        if (listener != null)
+            batch.dispatch(listener);
+    }
+
+    /**
+     * Marks the current scene as modified, although the renderer did not
+     * report any modification (e.g. because the window content has been
+     * damaged).
+     */
+    public void invalidate() {
+        if (this.modified.compareAndSet(false, true))
+            this.contextExecutor.wakeup();
+    }
+
+    /**
+     * Returns whether the scene has been modified since the previous call of
+     * {@link #clearModified()}, without resetting that state.
+     *
+     * @return  Either <code>true</code>, if the scene has been modified,
+     *          otherwise <code>false</code>.
+     */
+    public boolean isModified() {
+        return this.modified.get();
+    }
+
+    /**
+     * Returns whether the scene has been modified since the previous call of
+     * this method and resets that state.
+     *
+     * Any modification that happens after this call, will be reported by the
+     * next call. Therefore, this should be called right before rendering.
+     *
+     * @return  Either <code>true</code>, if the scene has been modified,
+     *          otherwise <code>false</code>.
+     */
+    public boolean clearModified() {
+        return this.modified.getAndSet(false);
+    }
+
     public void destroy() {
         this.requireContextThread();
         this.renderer.destroy();
     }
 
     private void requireContextThread() {
-        if (Context.inContextThread())
+        if (this.contextExecutor.inContextThread())
             return;
 
         throw new IllegalStateException("Not inside context!");
@@ -66,7 +264,11 @@ public final class UI implements ModificationListener<
     public void notifyModified(
             Renderer<Modification.NullModification> modified,
             Modification.NullModification modification) {
-        Context.wakeup();
+        // NOTE:    Only the first modification after a frame needs to wake up
+        //          the context thread, all further modifications until the
+        //          next frame are covered by the same wakeup.
+
+        this.invalidate();
     }
 
     @Override
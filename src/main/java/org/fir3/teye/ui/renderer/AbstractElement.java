@@ -1,11 +1,35 @@
 package org.fir3.teye.ui.renderer;
 
+import lombok.AccessLevel;
 import lombok.Getter;
-import org.fir3.teye.ui.AbstractModifiable;
-
+import org.fir3.teye.ui.AbstractLightweightModifiable;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The base implementation of {@link Element}.
+ *
+ * The attributes of an element may be modified by any thread, as long as
+ * each element is modified by a single thread at a time. The renderer does
+ * not read the attributes directly, but a snapshot of them (the render
+ * state), which it captures whenever it handles a modification. Modifying
+ * threads and the capturing renderer are coordinated by a
+ * {@link StampedLock}: Modifications hold its write lock for the few
+ * instructions that change an attribute, while the renderer copies the
+ * attributes optimistically, without blocking the modifying threads.
+ *
+ * An edit (see {@link #beginEdit()}) does not hold the write lock. Instead,
+ * it keeps a copy of the attributes as they were when the edit began (the
+ * edit base), which the renderer captures instead of the attributes until
+ * the edit has been committed. Thus, the renderer sees either none or all of
+ * the changes of an edit, and an edit that is never committed cannot block
+ * the renderer.
+ */
 @Getter
 public abstract class AbstractElement<E extends AbstractElement<E>>
-        extends AbstractModifiable<E, ElementModification>
+        extends AbstractLightweightModifiable<E, ElementModification>
         implements Element {
     private static void checkInRange(
             int minimum, int maximum,
@@ -19,58 +43,205 @@ public abstract class AbstractElement<E extends AbstractElement<E>>
             throw new IllegalArgumentException("Out of range!");
     }
 
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<AbstractElement>
+            DIRTY_ATTRIBUTES = AtomicIntegerFieldUpdater.newUpdater(
+                    AbstractElement.class,
+                    "dirtyAttributes");
+
     private int x, y, width, height,
             red, green, blue, alpha,
             textureX, textureY, textureWidth, textureHeight,
             zIndex;
 
     private Texture texture;
+    private boolean visible;
+
+    /**
+     * The snapshot of the attributes that the renderer uses.
+     *
+     * Only accessed by the rendering thread.
+     */
+    private final ElementState renderState;
+
+    /**
+     * The attributes as they were when the current edit began. Allocated by
+     * the first edit of this element.
+     */
+    @Getter(AccessLevel.NONE)
+    private ElementState editBase;
+
+    /**
+     * Whether the renderer captures the {@link #editBase} instead of the
+     * attributes. Guarded by the {@link #stateLock}.
+     */
+    @Getter(AccessLevel.NONE)
+    private boolean editing;
+
+    @Getter(AccessLevel.NONE)
+    private final StampedLock stateLock;
+
+    /**
+     * The number of nested edits that are in progress.
+     */
+    @Getter(AccessLevel.NONE)
+    private int editDepth;
+
+    /**
+     * The bitmask of the attributes that have been modified by the current
+     * edit.
+     */
+    @Getter(AccessLevel.NONE)
+    private int editedAttributes;
+
+    /**
+     * The renderer that collects the modifications of this element, if it
+     * uses {@link ModificationMode#PULL}, otherwise <code>null</code>.
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile AbstractRenderer<E> dirtyTracker;
+
+    /**
+     * The bitmask of the attributes that have been modified since the
+     * {@link #dirtyTracker} collected this element the last time.
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile int dirtyAttributes;
+
+    /**
+     * The next element in the stack of dirty elements of the
+     * {@link #dirtyTracker}.
+     */
+    @Getter(AccessLevel.NONE)
+    E nextDirty;
+
+    /**
+     * The merged modifications of this element that the renderer has not
+     * handled yet, if it uses {@link ModificationMode#COALESCE}.
+     *
+     * Guarded by {@link #coalesceLock}.
+     */
+    @Getter(AccessLevel.NONE)
+    ElementModification coalescedModification;
+
+    /**
+     * The monitor that guards {@link #coalescedModification}.
+     *
+     * NOTE:    The monitor of the element itself is not used, since it is
+     *          accessible to any user of the element.
+     */
+    @Getter(AccessLevel.NONE)
+    final Object coalesceLock;
+
+    protected AbstractElement() {
+        this.renderState = new ElementState();
+        this.stateLock = new StampedLock();
+        this.coalesceLock = new Object();
+        this.visible = true;
+    }
+
+    @Override
+    public void beginEdit() {
+        if (this.editDepth++ > 0)
+            return;
+
+        // NOTE:    The renderer does not read the edit base before the edit
+        //          has been published below, hence it is copied without
+        //          holding the lock.
+
+        if (this.editBase == null)
+            this.editBase = new ElementState();
+
+        this.copyTo(this.editBase);
+
+        long stamp = this.stateLock.writeLock();
+        this.editing = true;
+        this.stateLock.unlockWrite(stamp);
+    }
+
+    @Override
+    public void commitEdit() {
+        if (this.editDepth == 0)
+            throw new IllegalStateException("No edit in progress!");
+
+        if (--this.editDepth > 0)
+            return;
+
+        // Publishing all changes of the edit at once
+
+        long stamp = this.stateLock.writeLock();
+        this.editing = false;
+        this.stateLock.unlockWrite(stamp);
+
+        int editedAttributes = this.editedAttributes;
+        this.editedAttributes = 0;
+
+        if (editedAttributes == 0)
+            return;
+
+        AbstractRenderer<E> dirtyTracker = this.dirtyTracker;
+
+        if (dirtyTracker != null) {
+            this.markDirty(dirtyTracker, editedAttributes);
+            return;
+        }
+
+        ElementModification mod = this.obtainModification();
+
+        if (mod == null)
+            return;
+
+        mod.modifiedAttributes(editedAttributes);
+        this.notifyModified(mod);
+    }
 
     @Override
     public void setX(int x) {
         AbstractElement.checkGreaterEqual(0, x);
-        this.notifyIfModified(this.x, this.x = x, ElementAttribute.X);
+
+        int previous = this.exchange(ElementAttribute.X, x);
+        this.notifyIfModified(previous, x, ElementAttribute.X);
     }
 
     @Override
     public void setY(int y) {
         AbstractElement.checkGreaterEqual(0, y);
-        this.notifyIfModified(this.y, this.y = y, ElementAttribute.Y);
+
+        int previous = this.exchange(ElementAttribute.Y, y);
+        this.notifyIfModified(previous, y, ElementAttribute.Y);
     }
 
     @Override
     public void setWidth(int width) {
         AbstractElement.checkGreaterEqual(0, width);
 
-        this.notifyIfModified(
-                this.width, this.width = width,
-                ElementAttribute.WIDTH);
+        int previous = this.exchange(ElementAttribute.WIDTH, width);
+        this.notifyIfModified(previous, width, ElementAttribute.WIDTH);
     }
 
     @Override
     public void setHeight(int height) {
         AbstractElement.checkGreaterEqual(0, height);
 
-        this.notifyIfModified(
-                this.height, this.height = height,
-                ElementAttribute.HEIGHT);
+        int previous = this.exchange(ElementAttribute.HEIGHT, height);
+        this.notifyIfModified(previous, height, ElementAttribute.HEIGHT);
     }
 
     @Override
     public void setRed(int red) {
         AbstractElement.checkInRange(0, 255, red);
 
-        this.notifyIfModified(
-                this.red, this.red = red,
-                ElementAttribute.RED_COMPONENT);
+        int previous = this.exchange(ElementAttribute.RED_COMPONENT, red);
+        this.notifyIfModified(previous, red, ElementAttribute.RED_COMPONENT);
     }
 
     @Override
     public void setGreen(int green) {
         AbstractElement.checkInRange(0, 255, green);
 
+        int previous = this.exchange(ElementAttribute.GREEN_COMPONENT, green);
         this.notifyIfModified(
-                this.green, this.green = green,
+                previous, green,
                 ElementAttribute.GREEN_COMPONENT);
     }
 
@@ -78,82 +249,372 @@ public abstract class AbstractElement<E extends AbstractElement<E>>
     public void setBlue(int blue) {
         AbstractElement.checkInRange(0, 255, blue);
 
-        this.notifyIfModified(
-                this.blue, this.blue = blue,
-                ElementAttribute.BLUE_COMPONENT);
+        int previous = this.exchange(ElementAttribute.BLUE_COMPONENT, blue);
+        this.notifyIfModified(previous, blue, ElementAttribute.BLUE_COMPONENT);
     }
 
     @Override
     public void setAlpha(int alpha) {
         AbstractElement.checkInRange(0, 255, alpha);
 
+        int previous = this.exchange(ElementAttribute.ALPHA_COMPONENT, alpha);
         this.notifyIfModified(
-                this.alpha, this.alpha = alpha,
+                previous, alpha,
                 ElementAttribute.ALPHA_COMPONENT);
     }
 
     @Override
     public void setTexture(Texture texture) {
-        this.notifyIfModified(
-                this.texture, this.texture = texture,
-                ElementAttribute.TEXTURE);
+        Texture previous = this.exchangeTexture(texture);
+        this.notifyIfModified(previous, texture);
     }
 
     @Override
     public void setTextureX(int x) {
         AbstractElement.checkGreaterEqual(0, x);
 
-        this.notifyIfModified(
-                this.textureX, this.textureX = x,
-                ElementAttribute.TEXTURE_X);
+        int previous = this.exchange(ElementAttribute.TEXTURE_X, x);
+        this.notifyIfModified(previous, x, ElementAttribute.TEXTURE_X);
     }
 
     @Override
     public void setTextureY(int y) {
         AbstractElement.checkGreaterEqual(0, y);
 
-        this.notifyIfModified(
-                this.textureY, this.textureY = y,
-                ElementAttribute.TEXTURE_Y);
+        int previous = this.exchange(ElementAttribute.TEXTURE_Y, y);
+        this.notifyIfModified(previous, y, ElementAttribute.TEXTURE_Y);
     }
 
     @Override
     public void setTextureWidth(int width) {
         AbstractElement.checkGreaterEqual(0, width);
 
-        this.notifyIfModified(
-                this.textureWidth, this.textureWidth = width,
-                ElementAttribute.TEXTURE_WIDTH);
+        int previous = this.exchange(ElementAttribute.TEXTURE_WIDTH, width);
+        this.notifyIfModified(previous, width, ElementAttribute.TEXTURE_WIDTH);
     }
 
     @Override
     public void setTextureHeight(int height) {
         AbstractElement.checkGreaterEqual(0, height);
 
+        int previous = this.exchange(ElementAttribute.TEXTURE_HEIGHT, height);
         this.notifyIfModified(
-                this.textureHeight, this.textureHeight = height,
+                previous, height,
                 ElementAttribute.TEXTURE_HEIGHT);
     }
 
     @Override
     public void setZIndex(int zIndex) {
-        this.notifyIfModified(
-                this.zIndex, this.zIndex = zIndex,
-                ElementAttribute.Z_INDEX);
+        int previous = this.exchange(ElementAttribute.Z_INDEX, zIndex);
+        this.notifyIfModified(previous, zIndex, ElementAttribute.Z_INDEX);
     }
 
-    private  <V> void notifyIfModified(
-            V previousValue, V newValue,
+    @Override
+    public void setVisible(boolean visible) {
+        int value = visible ? 1 : 0;
+
+        int previous = this.exchange(ElementAttribute.VISIBLE, value);
+        this.notifyIfModified(previous, value, ElementAttribute.VISIBLE);
+    }
+
+    /**
+     * Assigns the <code>value</code> to the specified <code>attribute</code>
+     * while holding the write lock, unless an edit is in progress, which the
+     * renderer does not read the attributes of.
+     *
+     * @param attribute The modified attribute, except for
+     *                  {@link ElementAttribute#TEXTURE}.
+     *
+     * @param value     The new value.
+     * @return  The previous value.
+     */
+    private int exchange(ElementAttribute attribute, int value) {
+        long stamp = this.lockState();
+
+        try {
+            return this.exchange0(attribute, value);
+        } finally {
+            this.unlockState(stamp);
+        }
+    }
+
+    private Texture exchangeTexture(Texture texture) {
+        long stamp = this.lockState();
+
+        try {
+            Texture previous = this.texture;
+            this.texture = texture;
+
+            return previous;
+        } finally {
+            this.unlockState(stamp);
+        }
+    }
+
+    private int exchange0(ElementAttribute attribute, int value) {
+        int previous;
+
+        switch (attribute) {
+            case X:
+                previous = this.x;
+                this.x = value;
+                break;
+
+            case Y:
+                previous = this.y;
+                this.y = value;
+                break;
+
+            case WIDTH:
+                previous = this.width;
+                this.width = value;
+                break;
+
+            case HEIGHT:
+                previous = this.height;
+                this.height = value;
+                break;
+
+            case RED_COMPONENT:
+                previous = this.red;
+                this.red = value;
+                break;
+
+            case GREEN_COMPONENT:
+                previous = this.green;
+                this.green = value;
+                break;
+
+            case BLUE_COMPONENT:
+                previous = this.blue;
+                this.blue = value;
+                break;
+
+            case ALPHA_COMPONENT:
+                previous = this.alpha;
+                this.alpha = value;
+                break;
+
+            case TEXTURE_X:
+                previous = this.textureX;
+                this.textureX = value;
+                break;
+
+            case TEXTURE_Y:
+                previous = this.textureY;
+                this.textureY = value;
+                break;
+
+            case TEXTURE_WIDTH:
+                previous = this.textureWidth;
+                this.textureWidth = value;
+                break;
+
+            case TEXTURE_HEIGHT:
+                previous = this.textureHeight;
+                this.textureHeight = value;
+                break;
+
+            case Z_INDEX:
+                previous = this.zIndex;
+                this.zIndex = value;
+                break;
+
+            case VISIBLE:
+                previous = this.visible ? 1 : 0;
+                this.visible = value != 0;
+                break;
+
+            default:
+                throw new IllegalArgumentException("Invalid attribute!");
+        }
+
+        return previous;
+    }
+
+    /**
+     * Returns the stamp of the write lock, or zero, if an edit is in
+     * progress.
+     */
+    private long lockState() {
+        if (this.editDepth > 0)
+            return 0L;
+
+        return this.stateLock.writeLock();
+    }
+
+    private void unlockState(long stamp) {
+        if (stamp != 0L)
+            this.stateLock.unlockWrite(stamp);
+    }
+
+    // NOTE:    The renderer is notified after the lock has been released,
+    //          because it captures the render state.
+
+    private void notifyIfModified(
+            int previousValue, int newValue,
             ElementAttribute modifiedAttribute) {
-        ElementModification mod = this.obtainModification();
+        if (previousValue == newValue)
+            return;
+
+        ElementModification mod = this.obtainModification(modifiedAttribute);
+
+        if (mod == null)
+            return;
+
+        mod.previousInt(previousValue).newInt(newValue);
+        this.notifyModified(mod);
+    }
+
+    private void notifyIfModified(Texture previousValue, Texture newValue) {
+        if (Objects.equals(previousValue, newValue))
+            return;
+
+        ElementModification mod =
+                this.obtainModification(ElementAttribute.TEXTURE);
 
         if (mod == null)
             return;
 
-        mod.previousValue(previousValue)
-                .newValue(newValue)
-                .modifiedAttribute(modifiedAttribute);
+        mod.previousTexture(previousValue).newTexture(newValue);
+        this.notifyModified(mod);
+    }
+
+    /**
+     * Obtains a modification for a change of the specified
+     * <code>modifiedAttribute</code>, unless an edit is in progress.
+     *
+     * NOTE:    Only call this after the value has been found to be changed,
+     *          since any obtained modification needs to be reported.
+     *
+     * @param modifiedAttribute The attribute that has been changed.
+     * @return  The prepared modification, or <code>null</code>, if the change
+     *          has been recorded by the current edit or there is no listener.
+     */
+    private ElementModification obtainModification(
+            ElementAttribute modifiedAttribute) {
+        if (this.editDepth > 0) {
+            this.editedAttributes |= modifiedAttribute.getMask();
+            return null;
+        }
+
+        AbstractRenderer<E> dirtyTracker = this.dirtyTracker;
+
+        if (dirtyTracker != null) {
+            this.markDirty(dirtyTracker, modifiedAttribute.getMask());
+            return null;
+        }
+
+        ElementModification mod = this.obtainModification();
+
+        if (mod == null)
+            return null;
+
+        return mod.modifiedAttribute(modifiedAttribute)
+                .modifiedAttributes(modifiedAttribute.getMask());
+    }
+
+    /**
+     * Switches this element to {@link ModificationMode#PULL}.
+     *
+     * @param dirtyTracker  The renderer that collects the modifications.
+     */
+    void setDirtyTracker(AbstractRenderer<E> dirtyTracker) {
+        this.dirtyTracker = dirtyTracker;
+    }
+
+    /**
+     * Copies the current attributes into the render state. While an edit is
+     * in progress, the attributes from before the edit are copied instead.
+     *
+     * This method must be called by the rendering thread only. It never waits
+     * for an edit, and for a single setter at most.
+     */
+    void captureRenderState() {
+        long stamp = this.stateLock.tryOptimisticRead();
+
+        if (stamp != 0L) {
+            this.copyToRenderState();
+
+            // NOTE:    Only the rendering thread reads the render state, thus
+            //          it may be overwritten again, if the copy is invalid.
+
+            if (this.stateLock.validate(stamp))
+                return;
+        }
+
+        // A setter is changing an attribute right now.
+
+        stamp = this.stateLock.readLock();
+
+        try {
+            this.copyToRenderState();
+        } finally {
+            this.stateLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the attributes that have been modified since the previous call
+     * and resets them.
+     *
+     * NOTE:    The caller must have read {@link #nextDirty} before, because
+     *          any later modification pushes this element onto the stack of
+     *          dirty elements again.
+     *
+     * @return  The bitmask of the modified attributes.
+     */
+    int takeDirtyAttributes() {
+        return AbstractElement.DIRTY_ATTRIBUTES.getAndSet(this, 0);
+    }
+
+    private void copyTo(ElementState state) {
+        state.x = this.x;
+        state.y = this.y;
+        state.width = this.width;
+        state.height = this.height;
+        state.red = this.red;
+        state.green = this.green;
+        state.blue = this.blue;
+        state.alpha = this.alpha;
+        state.texture = this.texture;
+        state.textureX = this.textureX;
+        state.textureY = this.textureY;
+        state.textureWidth = this.textureWidth;
+        state.textureHeight = this.textureHeight;
+        state.zIndex = this.zIndex;
+        state.visible = this.visible;
+    }
+
+    private void copyToRenderState() {
+        // NOTE:    An optimistic read may observe the fields in any order,
+        //          hence the edit base may still appear to be missing.
+
+        ElementState editBase = this.editBase;
+
+        if (this.editing && editBase != null)
+            this.renderState.set(editBase);
+        else
+            this.copyTo(this.renderState);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void markDirty(AbstractRenderer<E> dirtyTracker, int mask) {
+        int previous;
+
+        do {
+            previous = this.dirtyAttributes;
+
+            if ((previous & mask) == mask)
+                return;
+        } while (!AbstractElement.DIRTY_ATTRIBUTES.compareAndSet(
+                this,
+                previous, previous | mask));
+
+        // Only the first modification since the last collection adds this
+        // element to the dirty elements.
 
-        this.notifyIfModified(previousValue, newValue, mod);
+        if (previous == 0)
+            dirtyTracker.markDirty((E) this);
     }
 }
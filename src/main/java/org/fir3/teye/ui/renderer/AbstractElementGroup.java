@@ -0,0 +1,157 @@
+package org.fir3.teye.ui.renderer;
+
+import lombok.Getter;
+
+/**
+ * The base implementation of {@link ElementGroup}, which maintains the
+ * attributes of the group and resolves the inherited ones.
+ *
+ * Whenever an attribute of the group has been changed, {@link #modified()}
+ * is called, so that the renderer picks up the new values with the next
+ * frame. The members of the group are managed by the implementation.
+ *
+ * NOTE:    The parent of a group is changed by the thread that manages the
+ *          members only (see {@link ElementGroup}), hence the renderer never
+ *          sees a cycle.
+ */
+@Getter
+public abstract class AbstractElementGroup implements ElementGroup {
+    /**
+     * The renderer that has created this group.
+     */
+    private final Renderer<?> renderer;
+
+    private volatile AbstractElementGroup parent;
+    private volatile int x, y;
+    private volatile int alpha;
+
+    /**
+     * Creates a new instance, which is neither nested, nor moved, nor
+     * transparent.
+     *
+     * @param renderer  The renderer that creates the group.
+     *
+     * @throws NullPointerException If <code>renderer</code> is
+     *                              <code>null</code>.
+     */
+    protected AbstractElementGroup(Renderer<?> renderer) {
+        if (renderer == null)
+            throw new NullPointerException("renderer is null!");
+
+        this.renderer = renderer;
+        this.alpha = 255;
+    }
+
+    @Override
+    public void setParent(ElementGroup parent) {
+        if (parent == this.parent)
+            return;
+
+        AbstractElementGroup newParent = null;
+
+        if (parent != null) {
+            if (!(parent instanceof AbstractElementGroup) ||
+                    ((AbstractElementGroup) parent).renderer != this.renderer)
+                throw new IllegalArgumentException("Unknown parent!");
+
+            newParent = (AbstractElementGroup) parent;
+
+            for (AbstractElementGroup ancestor = newParent;
+                    ancestor != null;
+                    ancestor = ancestor.parent) {
+                if (ancestor == this)
+                    throw new IllegalArgumentException("Invalid parent!");
+            }
+        }
+
+        this.parent = newParent;
+        this.modified();
+    }
+
+    @Override
+    public void setX(int x) {
+        if (this.x == x)
+            return;
+
+        this.x = x;
+        this.modified();
+    }
+
+    @Override
+    public void setY(int y) {
+        if (this.y == y)
+            return;
+
+        this.y = y;
+        this.modified();
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (alpha < 0 || alpha > 255)
+            throw new IllegalArgumentException("Out of range!");
+
+        if (this.alpha == alpha)
+            return;
+
+        this.alpha = alpha;
+        this.modified();
+    }
+
+    /**
+     * Returns the horizontal offset of this group including the offsets of
+     * its parents.
+     *
+     * @return  The resolved offset.
+     */
+    public int getResolvedX() {
+        int result = 0;
+
+        for (AbstractElementGroup group = this;
+                group != null;
+                group = group.parent)
+            result += group.x;
+
+        return result;
+    }
+
+    /**
+     * Returns the vertical offset of this group including the offsets of its
+     * parents.
+     *
+     * @return  The resolved offset.
+     */
+    public int getResolvedY() {
+        int result = 0;
+
+        for (AbstractElementGroup group = this;
+                group != null;
+                group = group.parent)
+            result += group.y;
+
+        return result;
+    }
+
+    /**
+     * Returns the opacity of this group multiplied with the opacities of its
+     * parents.
+     *
+     * @return  The resolved opacity between 0 and 255.
+     */
+    public int getResolvedAlpha() {
+        int result = 255;
+
+        for (AbstractElementGroup group = this;
+                group != null;
+                group = group.parent)
+            result = (result * group.alpha + 127) / 255;
+
+        return result;
+    }
+
+    /**
+     * Called whenever an attribute of this group has been changed. The
+     * implementation may be called by any thread.
+     */
+    protected abstract void modified();
+}
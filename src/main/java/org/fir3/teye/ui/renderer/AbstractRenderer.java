@@ -3,10 +3,17 @@ package org.fir3.teye.ui.renderer;
 import org.fir3.teye.ui.AbstractModifiable;
 import org.fir3.teye.ui.Modification;
 import org.fir3.teye.ui.ModificationListener;
+import org.fir3.teye.ui.renderer.animation.Animator;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicReference;
 
 public abstract class AbstractRenderer<E extends AbstractElement<E>>
         extends AbstractModifiable<
@@ -17,11 +24,23 @@ public abstract class AbstractRenderer<E extends AbstractElement<E>>
     private static final float DEFAULT_OVERSIZE_FACTOR = 1.5F;
 
     private final float oversizeFactor;
-    private final Lock poolLock;
+    private final ModificationMode modificationMode;
+    private final ModificationPool pool;
     private final AtomicInteger elementCount;
-    private final AtomicInteger poolCount;
+    private final RendererCounters counters;
+    private final Animator animator;
 
-    private ElementModification firstPoolEntry;
+    /**
+     * The top of the stack of elements that have been modified since the
+     * last call of {@link #collectModifications()}. The elements are linked
+     * by their {@link AbstractElement#nextDirty} reference.
+     */
+    private final AtomicReference<E> dirtyElements;
+
+    /**
+     * The observer of the operations of this renderer, or <code>null</code>.
+     */
+    private volatile RendererRecorder recorder;
 
     /**
      * Creates a new instance.
@@ -30,18 +49,40 @@ public abstract class AbstractRenderer<E extends AbstractElement<E>>
      *                          elements is the maximum number of cached
      *                          {@link ElementModification} instances.
      *
+     * @param modificationMode  Determines how the modifications of the
+     *                          elements of this renderer are handled.
+     *
      * @throws IllegalArgumentException If the specified
      *                                  <code>oversizeFactor</code> is less
      *                                  than zero.
+     *
+     * @throws NullPointerException     If <code>modificationMode</code> is
+     *                                  <code>null</code>.
      */
-    protected AbstractRenderer(float oversizeFactor) {
+    protected AbstractRenderer(
+            float oversizeFactor,
+            ModificationMode modificationMode) {
         if (oversizeFactor < 0.0F)
             throw new IllegalArgumentException("Invalid oversizeFactor!");
 
+        if (modificationMode == null)
+            throw new NullPointerException("modificationMode is null!");
+
         this.oversizeFactor = oversizeFactor;
-        this.poolLock = new ReentrantLock();
+        this.modificationMode = modificationMode;
+        this.pool = new ModificationPool();
         this.elementCount = new AtomicInteger();
-        this.poolCount = new AtomicInteger();
+        this.counters = new RendererCounters();
+        this.animator = new Animator(System::nanoTime, this::notifyModified);
+        this.dirtyElements = new AtomicReference<>();
+    }
+
+    protected AbstractRenderer(float oversizeFactor) {
+        this(oversizeFactor, ModificationMode.PUSH);
+    }
+
+    protected AbstractRenderer(ModificationMode modificationMode) {
+        this(AbstractRenderer.DEFAULT_OVERSIZE_FACTOR, modificationMode);
     }
 
     protected AbstractRenderer() {
@@ -50,6 +91,16 @@ public abstract class AbstractRenderer<E extends AbstractElement<E>>
 
     @Override
     public final void notifyModified(E modified, ElementModification modification) {
+        this.counters.countModification(modification.modifiedAttributes());
+
+        if (this.modificationMode == ModificationMode.COALESCE) {
+            this.coalesce(modified, modification);
+            return;
+        }
+
+        modified.captureRenderState();
+        this.record(modified, modification.modifiedAttributes());
+
         if (!this.notifyModified0(modified, modification))
             return;
 
@@ -62,22 +113,12 @@ public abstract class AbstractRenderer<E extends AbstractElement<E>>
 
     @Override
     public ElementModification newModification() {
-        this.poolLock.lock();
-
-        try {
-            if (this.firstPoolEntry != null) {
-                ElementModification result = this.firstPoolEntry;
-                this.firstPoolEntry = result.next;
-                result.next = null;
+        ElementModification result = this.pool.poll();
 
-                this.poolCount.decrementAndGet();
-                return result;
-            }
-        } finally {
-            this.poolLock.unlock();
-        }
+        if (result == null)
+            result = new ElementModification();
 
-        return new ElementModification();
+        return result;
     }
 
     @Override
@@ -87,42 +128,353 @@ public abstract class AbstractRenderer<E extends AbstractElement<E>>
         if (!reuse)
             return;
 
-        if (this.poolCount.get() >=
-                this.elementCount.get() * this.oversizeFactor) {
-            return;
-        }
-
         modification.reset();
 
         // Adding the instance back to the pool
 
-        this.poolLock.lock();
-
-        try {
-            modification.next = this.firstPoolEntry;
-            this.firstPoolEntry = modification;
-        } finally {
-            this.poolLock.unlock();
-        }
-
-        this.poolCount.incrementAndGet();
+        this.pool.offer(
+                modification,
+                this.elementCount.get() * this.oversizeFactor);
     }
 
     @Override
     public final Element newElement() {
         Element result = this.newElement0();
+
         this.elementCount.incrementAndGet();
+        this.register(result);
+
         return result;
     }
 
+    @Override
+    public final List<Element> newElements(int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("Invalid count!");
+
+        List<Element> result = this.newElements0(count);
+
+        this.elementCount.addAndGet(result.size());
+
+        for (Element element : result)
+            this.register(element);
+
+        return result;
+    }
+
+    @Override
+    public ModificationMode getModificationMode() {
+        return this.modificationMode;
+    }
+
+    @Override
+    public RendererStatistics getStatistics() {
+        return this.counters.snapshot();
+    }
+
+    @Override
+    public Animator getAnimator() {
+        return this.animator;
+    }
+
     @Override
     public final void release(Element element) {
+        this.animator.cancel(element);
+
+        RendererRecorder recorder = this.recorder;
+
+        if (recorder != null)
+            recorder.elementReleased(element);
+
         this.release0(element);
         this.elementCount.decrementAndGet();
     }
 
+    @Override
+    public final void release(Collection<? extends Element> elements) {
+        if (elements == null)
+            throw new NullPointerException("elements is null!");
+
+        // NOTE:    The elements are validated before any of them is released,
+        //          thus an invalid collection has no effect.
+
+        Set<Element> distinct =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (Element element : elements) {
+            if (element == null)
+                throw new NullPointerException("element is null!");
+
+            if (!distinct.add(element))
+                throw new IllegalArgumentException("Duplicate element!");
+        }
+
+        RendererRecorder recorder = this.recorder;
+
+        for (Element element : elements) {
+            this.animator.cancel(element);
+
+            if (recorder != null)
+                recorder.elementReleased(element);
+        }
+
+        this.release0(elements);
+        this.elementCount.addAndGet(-elements.size());
+    }
+
+    @Override
+    public final ElementGroup newGroup() {
+        return this.newGroup0();
+    }
+
+    @Override
+    public final void release(ElementGroup group) {
+        if (group == null)
+            throw new NullPointerException("group is null!");
+
+        if (!(group instanceof AbstractElementGroup) ||
+                ((AbstractElementGroup) group).getRenderer() != this)
+            throw new IllegalArgumentException("Unknown group!");
+
+        this.release0(group);
+    }
+
+    @Override
+    public final void render() {
+        this.animator.update();
+        this.render0();
+        this.counters.endFrame();
+
+        RendererRecorder recorder = this.recorder;
+
+        if (recorder != null)
+            recorder.frameRendered();
+    }
+
+    @Override
+    public final Texture newTexture(
+            int width, int height,
+            ByteBuffer data,
+            ColorModel pixelFormat) {
+        // NOTE:    The implementation may consume the data, hence the recorder
+        //          gets its own view of it.
+
+        RendererRecorder recorder = this.recorder;
+        ByteBuffer recordedData = recorder == null || data == null
+                ? null
+                : data.duplicate();
+
+        Texture result = this.newTexture0(width, height, data, pixelFormat);
+
+        if (recorder != null)
+            recorder.textureCreated(result, recordedData, pixelFormat);
+
+        return result;
+    }
+
+    @Override
+    public final void release(Texture texture) {
+        RendererRecorder recorder = this.recorder;
+
+        if (recorder != null)
+            recorder.textureReleased(texture);
+
+        this.release0(texture);
+    }
+
+    /**
+     * Sets the observer of the operations of this renderer.
+     *
+     * NOTE:    The recorder should be set before the first element or texture
+     *          is created, otherwise it misses their creation.
+     *
+     * @param recorder  The new recorder or <code>null</code>, if the
+     *                  operations shall not be observed anymore.
+     */
+    public void setRecorder(RendererRecorder recorder) {
+        this.recorder = recorder;
+    }
+
     protected void notifyModified() {
-        this.notifyModified(Modification.NullModification.INSTANCE);
+        // NOTE:    The modification needs to be obtained first, otherwise the
+        //          AbstractModifiable discards it.
+
+        Modification.NullModification mod = this.obtainModification();
+
+        if (mod != null)
+            this.notifyModified(mod);
+    }
+
+    /**
+     * Handles the modifications of all elements that have been marked as
+     * dirty since the previous call, if this renderer uses
+     * {@link ModificationMode#PULL} or {@link ModificationMode#COALESCE}.
+     *
+     * For each dirty element, {@link #notifyModified0(AbstractElement,
+     * ElementModification)} is called exactly once with a modification whose
+     * {@link ElementModification#modifiedAttributes()} contains all modified
+     * attributes. Unlike in {@link ModificationMode#PUSH}, the
+     * {@link ModificationListener} of this renderer is not notified, since
+     * the caller is about to render anyway.
+     *
+     * This method must be called by the rendering thread, right before the
+     * scene is rendered.
+     *
+     * @return  The number of handled elements.
+     */
+    protected final int collectModifications() {
+        E element = this.dirtyElements.getAndSet(null);
+        int count = 0;
+
+        while (element != null) {
+            E next = element.nextDirty;
+            element.nextDirty = null;
+
+            ElementModification mod =
+                    this.modificationMode == ModificationMode.COALESCE
+                            ? this.takeCoalescedModification(element)
+                            : this.takePulledModification(element);
+
+            if (mod != null) {
+                this.record(element, mod.modifiedAttributes());
+
+                if (this.notifyModified0(element, mod))
+                    this.releaseModification(mod, true);
+
+                count++;
+            }
+
+            element = next;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the counters of this renderer, which the implementation updates
+     * with the work that it performs.
+     *
+     * @return  The counters.
+     */
+    protected final RendererCounters getCounters() {
+        return this.counters;
+    }
+
+    /**
+     * Updates the render state of the specified <code>element</code>, e.g.
+     * after it has been initialized by {@link #newElement0()}.
+     *
+     * This method must be called by the rendering thread.
+     *
+     * @param element   The element whose render state shall be updated.
+     *
+     * @see AbstractElement#getRenderState()
+     */
+    protected final void captureRenderState(E element) {
+        element.captureRenderState();
+    }
+
+    /**
+     * Merges the specified <code>modification</code> into the modifications
+     * of the <code>element</code> that have not been collected yet.
+     *
+     * @param element       The modified element.
+     * @param modification  The modification of the element.
+     */
+    private void coalesce(E element, ElementModification modification) {
+        boolean first;
+
+        synchronized (element.coalesceLock) {
+            ElementModification pending = element.coalescedModification;
+            first = pending == null;
+
+            if (first)
+                element.coalescedModification = modification;
+            else
+                pending.merge(modification);
+        }
+
+        if (first)
+            this.markDirty(element);
+        else
+            this.releaseModification(modification, true);
+    }
+
+    private ElementModification takeCoalescedModification(E element) {
+        ElementModification result;
+
+        synchronized (element.coalesceLock) {
+            result = element.coalescedModification;
+            element.coalescedModification = null;
+        }
+
+        if (result != null)
+            element.captureRenderState();
+
+        return result;
+    }
+
+    private ElementModification takePulledModification(E element) {
+        int modifiedAttributes = element.takeDirtyAttributes();
+
+        if (modifiedAttributes == 0)
+            return null;
+
+        element.captureRenderState();
+        this.counters.countModification(modifiedAttributes);
+
+        return this.newModification().modifiedAttributes(modifiedAttributes);
+    }
+
+    /**
+     * Prepares the specified <code>element</code>, which has been created by
+     * the implementation, for the {@link #getModificationMode()} of this
+     * renderer and reports it to the recorder.
+     *
+     * @param element   The new element.
+     */
+    @SuppressWarnings("unchecked")
+    private void register(Element element) {
+        if (this.modificationMode == ModificationMode.PULL)
+            ((E) element).setDirtyTracker(this);
+
+        RendererRecorder recorder = this.recorder;
+
+        if (recorder != null)
+            recorder.elementCreated(element);
+    }
+
+    private void record(E element, int modifiedAttributes) {
+        RendererRecorder recorder = this.recorder;
+
+        if (recorder != null) {
+            recorder.elementModified(
+                    element,
+                    modifiedAttributes,
+                    element.getRenderState());
+        }
+    }
+
+    /**
+     * Adds the specified <code>element</code> to the dirty elements.
+     *
+     * This is called if the element has been modified for the first time
+     * since it has been collected.
+     *
+     * @param element   The modified element.
+     */
+    final void markDirty(E element) {
+        E top;
+
+        do {
+            top = this.dirtyElements.get();
+            element.nextDirty = top;
+        } while (!this.dirtyElements.compareAndSet(top, element));
+
+        // The first dirty element of a frame requests the next frame.
+
+        if (top == null)
+            this.notifyModified();
     }
 
     // NOTE:    Some methods are marked final in the AbstractRenderer and there
@@ -133,6 +485,51 @@ public abstract class AbstractRenderer<E extends AbstractElement<E>>
     protected abstract Element newElement0();
     protected abstract void release0(Element element);
 
+    /**
+     * Creates the specified number of elements at once.
+     *
+     * The default implementation calls {@link #newElement0()} for each
+     * element. Implementations override this, if they can arrange many
+     * elements more efficiently.
+     *
+     * @param count The number of elements, which is not negative.
+     * @return  The new elements.
+     */
+    protected List<Element> newElements0(int count) {
+        List<Element> result = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++)
+            result.add(this.newElement0());
+
+        return result;
+    }
+
+    /**
+     * Releases the specified elements at once.
+     *
+     * The default implementation calls {@link #release0(Element)} for each
+     * element. Implementations override this, if they can rearrange the
+     * remaining elements more efficiently.
+     *
+     * @param elements  The released elements, none of which is
+     *                  <code>null</code>.
+     */
+    protected void release0(Collection<? extends Element> elements) {
+        for (Element element : elements)
+            this.release0(element);
+    }
+
+    protected abstract ElementGroup newGroup0();
+    protected abstract void release0(ElementGroup group);
+    protected abstract void render0();
+
+    protected abstract Texture newTexture0(
+            int width, int height,
+            ByteBuffer data,
+            ColorModel pixelFormat);
+
+    protected abstract void release0(Texture texture);
+
     /**
      * Handles the passed {@link ElementModification} in the actual
      * implementation.
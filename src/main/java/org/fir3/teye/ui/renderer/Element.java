@@ -3,8 +3,45 @@ package org.fir3.teye.ui.renderer;
 /**
  * The primitive rectangle that each {@link Renderer} implementation must be
  * able to render.
+ *
+ * Every setter reports its change to the {@link Renderer} immediately. To
+ * change many attributes at once, enclose the setter calls with
+ * {@link #beginEdit()} and {@link #commitEdit()}: The renderer is then
+ * notified only once about all changes.
  */
 public interface Element {
+    /**
+     * Starts an edit of this element.
+     *
+     * Until the matching call of {@link #commitEdit()}, the changes of the
+     * setters are collected instead of being reported one by one. Edits may
+     * be nested, only the outermost {@link #commitEdit()} reports the
+     * changes.
+     *
+     * <pre>
+     * element.beginEdit();
+     *
+     * try {
+     *     element.setX(x);
+     *     element.setY(y);
+     * } finally {
+     *     element.commitEdit();
+     * }
+     * </pre>
+     */
+    void beginEdit();
+
+    /**
+     * Ends the edit that has been started by the last call of
+     * {@link #beginEdit()}.
+     *
+     * If this ends the outermost edit and any attribute has been changed, the
+     * {@link Renderer} is notified about all changed attributes at once.
+     *
+     * @throws IllegalStateException    If there is no edit in progress.
+     */
+    void commitEdit();
+
     /**
      * Sets the x-coordinate of the rectangle.
      *
@@ -233,4 +270,20 @@ public interface Element {
      * @return  The z-index.
      */
     int getZIndex();
+
+    /**
+     * Sets whether the rectangle is drawn. An invisible rectangle keeps all
+     * of its attributes, but the renderer skips it.
+     *
+     * @param visible   Whether the rectangle is drawn, which is the default.
+     */
+    void setVisible(boolean visible);
+
+    /**
+     * Returns whether the rectangle is drawn.
+     *
+     * @return  Either <code>true</code>, if the rectangle is visible,
+     *          otherwise <code>false</code>.
+     */
+    boolean isVisible();
 }
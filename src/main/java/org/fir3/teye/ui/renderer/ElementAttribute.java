@@ -14,5 +14,22 @@ public enum ElementAttribute {
     TEXTURE_Y,
     TEXTURE_WIDTH,
     TEXTURE_HEIGHT,
-    Z_INDEX
+    Z_INDEX,
+    VISIBLE;
+
+    private final int mask;
+
+    ElementAttribute() {
+        this.mask = 1 << this.ordinal();
+    }
+
+    /**
+     * Returns the bit that represents this attribute in the bitmask of an
+     * {@link ElementModification}.
+     *
+     * @return  A mask with exactly one bit set.
+     */
+    public int getMask() {
+        return this.mask;
+    }
 }
@@ -0,0 +1,89 @@
+package org.fir3.teye.ui.renderer;
+
+/**
+ * A group of {@link Element}s, e.g. the content of a panel, whose offset and
+ * opacity are inherited by its elements.
+ *
+ * The position of each element of a group is relative to the group, and its
+ * alpha component is multiplied with the alpha of the group. Groups may be
+ * nested (see {@link #setParent(ElementGroup)}), in which case the offsets
+ * add up and the opacities multiply. Thus, moving or fading a group does not
+ * modify its elements at all.
+ *
+ * The attributes of a group may be modified by any thread, as long as each
+ * group is modified by a single thread at a time. The members of a group are
+ * managed by the thread that creates and releases the elements (see
+ * {@link Renderer#newElement()}).
+ */
+public interface ElementGroup {
+    /**
+     * Adds the specified <code>element</code> to this group. If the element
+     * is part of another group, it leaves that group.
+     *
+     * @param element   The new member of this group.
+     *
+     * @throws IllegalArgumentException If the <code>element</code> has not
+     *                                  been created by the renderer of this
+     *                                  group.
+     *
+     * @throws NullPointerException     If <code>element</code> is
+     *                                  <code>null</code>.
+     */
+    void add(Element element);
+
+    /**
+     * Removes the specified <code>element</code> from this group. Nothing
+     * happens, if the element is not part of this group.
+     *
+     * @param element   The element that shall leave this group.
+     *
+     * @throws NullPointerException If <code>element</code> is
+     *                              <code>null</code>.
+     */
+    void remove(Element element);
+
+    /**
+     * Sets the group that this group is nested into.
+     *
+     * @param parent    The new parent group, or <code>null</code>, if this
+     *                  group shall not be nested.
+     *
+     * @throws IllegalArgumentException If the <code>parent</code> belongs to
+     *                                  another renderer, or if it is nested
+     *                                  into this group itself.
+     */
+    void setParent(ElementGroup parent);
+
+    ElementGroup getParent();
+
+    /**
+     * Sets the horizontal offset of this group, which may be negative.
+     *
+     * @param x The offset that is added to the x coordinate of the members.
+     */
+    void setX(int x);
+
+    int getX();
+
+    /**
+     * Sets the vertical offset of this group, which may be negative.
+     *
+     * @param y The offset that is added to the y coordinate of the members.
+     */
+    void setY(int y);
+
+    int getY();
+
+    /**
+     * Sets the opacity of this group.
+     *
+     * @param alpha The opacity between 0 (transparent) and 255 (opaque),
+     *              which the alpha component of the members is multiplied
+     *              with.
+     *
+     * @throws IllegalArgumentException If <code>alpha</code> is out of range.
+     */
+    void setAlpha(int alpha);
+
+    int getAlpha();
+}
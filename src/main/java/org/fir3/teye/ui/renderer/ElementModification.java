@@ -1,43 +1,104 @@
 package org.fir3.teye.ui.renderer;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.experimental.Accessors;
 import org.fir3.teye.ui.Modification;
 
+/**
+ * Describes how an {@link Element} has been modified.
+ *
+ * A modification either describes a single attribute change, in which case
+ * {@link #modifiedAttribute()} as well as the previous and new value are set,
+ * or the result of an edit (see {@link Element#beginEdit()}), which may cover
+ * many attributes. In the latter case, only the bitmask of
+ * {@link #modifiedAttributes()} is set and the values need to be read from
+ * the element itself.
+ *
+ * The values are stored in primitive slots, so that reporting a change never
+ * boxes them: Integer attributes use the <code>int</code> slots, while
+ * {@link ElementAttribute#TEXTURE} uses the texture slots.
+ */
 @Data
 @Accessors(fluent = true, chain = true)
 public final class ElementModification implements Modification {
-    private Object previousValue, newValue;
+    @Getter(AccessLevel.NONE)
+    private int previousInt, newInt;
+
+    @Getter(AccessLevel.NONE)
+    private Texture previousTexture, newTexture;
+
     private ElementAttribute modifiedAttribute;
 
     /**
-     * This reference is required to attach the next neighbour to this object.
-     *
-     * This is only used when this instance is not in use and stored in the
-     * pool.
+     * The bitmask of the {@link ElementAttribute#getMask()} values of all
+     * attributes that have been modified.
      */
-    ElementModification next;
+    private int modifiedAttributes;
 
     @Override
     public void reset() {
-        this.previousValue = null;
-        this.newValue = null;
+        this.previousInt = 0;
+        this.newInt = 0;
+        this.previousTexture = null;
+        this.newTexture = null;
         this.modifiedAttribute = null;
+        this.modifiedAttributes = 0;
+    }
+
+    /**
+     * Returns whether the specified <code>attribute</code> is part of this
+     * modification.
+     *
+     * @param attribute The attribute in question.
+     * @return  Either <code>true</code>, if the attribute has been modified,
+     *          otherwise <code>false</code>.
+     */
+    public boolean isModified(ElementAttribute attribute) {
+        return (this.modifiedAttributes & attribute.getMask()) != 0;
+    }
+
+    /**
+     * Merges the specified <code>later</code> modification of the same
+     * element into this one.
+     *
+     * If both describe a change of the same single attribute, the previous
+     * value of this and the new value of the <code>later</code> modification
+     * are kept. Otherwise, only the bitmask of the modified attributes
+     * remains.
+     *
+     * @param later The modification that happened after this one.
+     */
+    void merge(ElementModification later) {
+        if (this.modifiedAttribute == null ||
+                this.modifiedAttribute != later.modifiedAttribute) {
+            this.previousInt = 0;
+            this.newInt = 0;
+            this.previousTexture = null;
+            this.newTexture = null;
+            this.modifiedAttribute = null;
+        } else {
+            this.newInt = later.newInt;
+            this.newTexture = later.newTexture;
+        }
+
+        this.modifiedAttributes |= later.modifiedAttributes;
     }
 
     public int previousValueAsInt() {
-        return (int) this.previousValue;
+        return this.previousInt;
     }
 
     public int newValueAsInt() {
-        return (int) this.newValue;
+        return this.newInt;
     }
 
     public Texture previousValueAsTexture() {
-        return (Texture) this.previousValue;
+        return this.previousTexture;
     }
 
     public Texture newValueAsTexture() {
-        return (Texture) this.newValue;
+        return this.newTexture;
     }
 }
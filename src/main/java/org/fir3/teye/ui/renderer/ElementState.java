@@ -0,0 +1,46 @@
+package org.fir3.teye.ui.renderer;
+
+import lombok.Getter;
+
+/**
+ * A consistent snapshot of the attributes of an {@link AbstractElement}, as
+ * seen by its {@link Renderer}.
+ *
+ * The setters of an element modify its attributes directly, possibly from
+ * any thread. The renderer, however, only reads the snapshot that has been
+ * captured when it handled the last modification of the element (see
+ * {@link AbstractElement#getRenderState()}). Hence, the renderer never sees
+ * partially applied modifications.
+ */
+@Getter
+public final class ElementState {
+    int x, y, width, height,
+            red, green, blue, alpha,
+            textureX, textureY, textureWidth, textureHeight,
+            zIndex;
+
+    Texture texture;
+    boolean visible;
+
+    ElementState() {
+        this.visible = true;
+    }
+
+    void set(ElementState other) {
+        this.x = other.x;
+        this.y = other.y;
+        this.width = other.width;
+        this.height = other.height;
+        this.red = other.red;
+        this.green = other.green;
+        this.blue = other.blue;
+        this.alpha = other.alpha;
+        this.texture = other.texture;
+        this.textureX = other.textureX;
+        this.textureY = other.textureY;
+        this.textureWidth = other.textureWidth;
+        this.textureHeight = other.textureHeight;
+        this.zIndex = other.zIndex;
+        this.visible = other.visible;
+    }
+}
@@ -0,0 +1,34 @@
+package org.fir3.teye.ui.renderer;
+
+/**
+ * Determines how a {@link Renderer} learns about modified {@link Element}s.
+ */
+public enum ModificationMode {
+    /**
+     * Every modification is reported to the renderer immediately, in the
+     * thread and call stack of the modifying setter.
+     */
+    PUSH,
+
+    /**
+     * A modification only marks the element as dirty. The renderer collects
+     * all dirty elements once per frame, right before it renders, and handles
+     * all modifications of an element at once.
+     *
+     * This decouples the setters from the renderer: They never wait for it,
+     * and any number of modifications of the same element between two frames
+     * is handled like a single one.
+     */
+    PULL,
+
+    /**
+     * Every modification is reported to the renderer immediately, like in
+     * {@link #PUSH}, but the renderer merges the modifications of an element
+     * and handles them once per frame, right before it renders.
+     *
+     * Unlike in {@link #PULL}, the merged modification keeps the previous
+     * value of the first and the new value of the last change, as long as
+     * only a single attribute of the element has been modified.
+     */
+    COALESCE
+}
@@ -0,0 +1,145 @@
+package org.fir3.teye.ui.renderer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free pool of {@link ElementModification} instances.
+ *
+ * The pool follows the magazine design of Bonwick's slab allocator: Every
+ * thread owns a small array of cached instances (its magazine) and serves
+ * most requests from it without any synchronization. Only if the magazine
+ * runs full or empty, the thread exchanges it with the shared depot, which
+ * is a fixed number of slots that are claimed by compare-and-set. Hence,
+ * threads only touch shared memory once per {@link #MAGAZINE_SIZE}
+ * operations.
+ *
+ * The number of pooled instances is capped. The cap accounts for the
+ * instances in the depot and in the magazine of the calling thread, thus it
+ * may be exceeded by the magazines of other threads, at most
+ * {@link #MAGAZINE_SIZE} instances per thread.
+ */
+final class ModificationPool {
+    static final int MAGAZINE_SIZE = 16;
+    private static final int DEPOT_SIZE = 64;
+
+    private static final class Magazine {
+        private final ElementModification[] items =
+                new ElementModification[ModificationPool.MAGAZINE_SIZE];
+
+        private int size;
+    }
+
+    private final ThreadLocal<Magazine> magazines;
+
+    /**
+     * The full magazines that are available to any thread.
+     */
+    private final AtomicReferenceArray<Magazine> fullMagazines;
+
+    /**
+     * The empty magazines that are kept for reuse, so that exchanging
+     * magazines with the depot does not allocate.
+     */
+    private final AtomicReferenceArray<Magazine> emptyMagazines;
+
+    /**
+     * The number of instances in {@link #fullMagazines}.
+     */
+    private final AtomicInteger depotCount;
+
+    ModificationPool() {
+        this.magazines = ThreadLocal.withInitial(Magazine::new);
+        this.fullMagazines = new AtomicReferenceArray<>(
+                ModificationPool.DEPOT_SIZE);
+
+        this.emptyMagazines = new AtomicReferenceArray<>(
+                ModificationPool.DEPOT_SIZE);
+
+        this.depotCount = new AtomicInteger();
+    }
+
+    /**
+     * Returns a pooled instance.
+     *
+     * @return  Either a pooled instance or <code>null</code>, if the pool is
+     *          empty.
+     */
+    ElementModification poll() {
+        Magazine magazine = this.magazines.get();
+
+        if (magazine.size == 0) {
+            Magazine full = ModificationPool.take(this.fullMagazines);
+
+            if (full == null)
+                return null;
+
+            this.depotCount.addAndGet(-ModificationPool.MAGAZINE_SIZE);
+            ModificationPool.put(this.emptyMagazines, magazine);
+
+            this.magazines.set(full);
+            magazine = full;
+        }
+
+        ElementModification result = magazine.items[--magazine.size];
+        magazine.items[magazine.size] = null;
+
+        return result;
+    }
+
+    /**
+     * Adds the specified <code>modification</code> to this pool, unless the
+     * pool contains <code>capacity</code> instances already.
+     *
+     * @param modification  The instance that has been reset already.
+     * @param capacity      The maximum number of pooled instances.
+     */
+    void offer(ElementModification modification, float capacity) {
+        Magazine magazine = this.magazines.get();
+
+        if (this.depotCount.get() + magazine.size >= capacity)
+            return;
+
+        if (magazine.size == ModificationPool.MAGAZINE_SIZE) {
+            // If the depot is full as well, the instance is left to the
+            // garbage collector.
+
+            if (!ModificationPool.put(this.fullMagazines, magazine))
+                return;
+
+            this.depotCount.addAndGet(ModificationPool.MAGAZINE_SIZE);
+
+            Magazine empty = ModificationPool.take(this.emptyMagazines);
+
+            if (empty == null)
+                empty = new Magazine();
+
+            this.magazines.set(empty);
+            magazine = empty;
+        }
+
+        magazine.items[magazine.size++] = modification;
+    }
+
+    private static Magazine take(AtomicReferenceArray<Magazine> slots) {
+        for (int i = 0; i < slots.length(); i++) {
+            Magazine magazine = slots.get(i);
+
+            if (magazine != null && slots.compareAndSet(i, magazine, null))
+                return magazine;
+        }
+
+        return null;
+    }
+
+    private static boolean put(
+            AtomicReferenceArray<Magazine> slots,
+            Magazine magazine) {
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, magazine))
+                return true;
+        }
+
+        return false;
+    }
+}
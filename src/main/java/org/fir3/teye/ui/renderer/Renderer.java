@@ -2,8 +2,11 @@ package org.fir3.teye.ui.renderer;
 
 import org.fir3.teye.ui.Modifiable;
 import org.fir3.teye.ui.Modification;
+import org.fir3.teye.ui.renderer.animation.Animator;
 
 import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * The specification of a renderer that is capable of rendering
@@ -29,6 +32,30 @@ public interface Renderer<T extends Modification>
      */
     void render();
 
+    /**
+     * Returns how this renderer learns about modified elements.
+     *
+     * @return  The modification mode.
+     */
+    ModificationMode getModificationMode();
+
+    /**
+     * Returns a snapshot of the counters of this renderer.
+     *
+     * This method may be called by any thread.
+     *
+     * @return  The current statistics.
+     */
+    RendererStatistics getStatistics();
+
+    /**
+     * Returns the animator, whose animations are evaluated by this renderer
+     * right before it renders the scene.
+     *
+     * @return  The animator of this renderer.
+     */
+    Animator getAnimator();
+
     /**
      * Returns a new element that may be used for rendering.
      *
@@ -55,6 +82,68 @@ public interface Renderer<T extends Modification>
      */
     void release(Element element);
 
+    /**
+     * Returns the specified number of new elements.
+     *
+     * Unlike calling {@link #newElement()} repeatedly, the renderer may
+     * arrange all of the new elements at once. The caller is required to
+     * release the returned elements manually in the future, either one by
+     * one or by calling {@link #release(Collection)}.
+     *
+     * @param count The number of elements.
+     * @return  The new elements.
+     *
+     * @throws IllegalArgumentException If <code>count</code> is negative.
+     */
+    List<Element> newElements(int count);
+
+    /**
+     * Tells this {@link Renderer} that the specified <code>elements</code>
+     * are no longer in use.
+     *
+     * Unlike calling {@link #release(Element)} repeatedly, the renderer may
+     * rearrange the remaining elements only once. If the collection is
+     * invalid, none of the elements is released.
+     *
+     * @param elements  The elements that have been acquired from this
+     *                  {@link Renderer} instance.
+     *
+     * @throws IllegalArgumentException If any of the passed
+     *                                  <code>elements</code> is unknown to
+     *                                  this instance, or if it is passed more
+     *                                  than once.
+     *
+     * @throws NullPointerException     If the passed <code>elements</code> or
+     *                                  any of them is <code>null</code>.
+     */
+    void release(Collection<? extends Element> elements);
+
+    /**
+     * Returns a new, empty group of elements.
+     *
+     * The caller is required to release the returned {@link ElementGroup}
+     * instance by calling {@link #release(ElementGroup)} manually in the
+     * future.
+     *
+     * @return  The new group.
+     */
+    ElementGroup newGroup();
+
+    /**
+     * Tells this {@link Renderer} that the specified <code>group</code> is no
+     * longer in use. Its members and nested groups leave it.
+     *
+     * @param group The group that has been acquired by a previous call of
+     *              {@link #newGroup()} (same {@link Renderer} instance).
+     *
+     * @throws IllegalArgumentException If the passed <code>group</code> is
+     *                                  unknown to this instance.
+     *
+     * @throws NullPointerException     If the passed <code>group</code> is
+     *                                  <code>null</code>.
+     */
+    void release(ElementGroup group);
+
     /**
      * Makes the passed image available as {@link Texture}, this is required to
      * texturize a {@link Element} with the image.
@@ -0,0 +1,128 @@
+package org.fir3.teye.ui.renderer;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters that a renderer maintains for its {@link RendererStatistics}.
+ *
+ * The counters that may be updated by any thread are {@link LongAdder}s,
+ * which stripe their value across cells, thus counting does not contend on
+ * a single memory location. The counters of the draw calls are updated by the
+ * rendering thread only.
+ */
+public final class RendererCounters {
+    private final LongAdder[] modificationCounts;
+    private final LongAdder mosaicsTouched;
+    private final LongAdder bufferUpdates;
+    private final LongAdder uploadedBytes;
+    private final LongAdder drawingGroups;
+    private final LongAdder drawCalls;
+    private volatile long frameCount;
+    private volatile int lastFrameDrawingGroups, lastFrameDrawCalls;
+
+    // NOTE:    The following fields are accessed by the rendering thread only.
+
+    private int frameDrawingGroups, frameDrawCalls;
+
+    RendererCounters() {
+        this.modificationCounts =
+                new LongAdder[ElementAttribute.values().length];
+
+        for (int i = 0; i < this.modificationCounts.length; i++)
+            this.modificationCounts[i] = new LongAdder();
+
+        this.mosaicsTouched = new LongAdder();
+        this.bufferUpdates = new LongAdder();
+        this.uploadedBytes = new LongAdder();
+        this.drawingGroups = new LongAdder();
+        this.drawCalls = new LongAdder();
+    }
+
+    /**
+     * Counts a received modification of the specified attributes.
+     *
+     * @param modifiedAttributes    The bitmask of the modified attributes.
+     */
+    void countModification(int modifiedAttributes) {
+        while (modifiedAttributes != 0) {
+            int ordinal = Integer.numberOfTrailingZeros(modifiedAttributes);
+
+            this.modificationCounts[ordinal].increment();
+            modifiedAttributes &= modifiedAttributes - 1;
+        }
+    }
+
+    /**
+     * Counts a mosaic that has been updated for the first time in the current
+     * frame.
+     */
+    public void countMosaicTouched() {
+        this.mosaicsTouched.increment();
+    }
+
+    /**
+     * Counts a buffer update.
+     *
+     * @param bytes The number of uploaded bytes.
+     */
+    public void countBufferUpdate(long bytes) {
+        this.bufferUpdates.increment();
+        this.uploadedBytes.add(bytes);
+    }
+
+    /**
+     * Counts the drawing of some drawing groups.
+     *
+     * This method must be called by the rendering thread.
+     *
+     * @param drawingGroups The number of drawn groups.
+     * @param drawCalls     The number of issued draw calls.
+     */
+    public void countDraw(int drawingGroups, int drawCalls) {
+        this.frameDrawingGroups += drawingGroups;
+        this.frameDrawCalls += drawCalls;
+    }
+
+    /**
+     * Returns the number of completed frames, which identifies the current
+     * frame.
+     *
+     * @return  The number of frames.
+     */
+    public long getFrameCount() {
+        return this.frameCount;
+    }
+
+    /**
+     * Completes the current frame.
+     *
+     * This method must be called by the rendering thread.
+     */
+    void endFrame() {
+        this.drawingGroups.add(this.frameDrawingGroups);
+        this.drawCalls.add(this.frameDrawCalls);
+        this.lastFrameDrawingGroups = this.frameDrawingGroups;
+        this.lastFrameDrawCalls = this.frameDrawCalls;
+        this.frameDrawingGroups = 0;
+        this.frameDrawCalls = 0;
+        this.frameCount++;
+    }
+
+    RendererStatistics snapshot() {
+        long[] modificationCounts = new long[this.modificationCounts.length];
+
+        for (int i = 0; i < modificationCounts.length; i++)
+            modificationCounts[i] = this.modificationCounts[i].sum();
+
+        return new RendererStatistics(
+                this.frameCount,
+                modificationCounts,
+                this.mosaicsTouched.sum(),
+                this.bufferUpdates.sum(),
+                this.uploadedBytes.sum(),
+                this.drawingGroups.sum(),
+                this.drawCalls.sum(),
+                this.lastFrameDrawingGroups,
+                this.lastFrameDrawCalls);
+    }
+}
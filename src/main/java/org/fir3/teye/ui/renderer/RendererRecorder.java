@@ -0,0 +1,69 @@
+package org.fir3.teye.ui.renderer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The interface of an observer of all operations that an
+ * {@link AbstractRenderer} performs, e.g. to record them (see
+ * {@link AbstractRenderer#setRecorder(RendererRecorder)}).
+ *
+ * The methods are called by the threads that invoke the corresponding
+ * operations of the renderer, thus implementations need to be thread-safe.
+ */
+public interface RendererRecorder {
+    /**
+     * Called after the renderer created a new element.
+     *
+     * @param element   The new element.
+     */
+    void elementCreated(Element element);
+
+    /**
+     * Called before the renderer releases the specified element.
+     *
+     * @param element   The element that is being released.
+     */
+    void elementReleased(Element element);
+
+    /**
+     * Called when the renderer handles a modification of the specified
+     * element.
+     *
+     * @param element               The modified element.
+     * @param modifiedAttributes    The bitmask of the modified attributes
+     *                              (see {@link ElementAttribute#getMask()}).
+     *
+     * @param state                 The attributes of the element after the
+     *                              modification.
+     */
+    void elementModified(
+            Element element,
+            int modifiedAttributes,
+            ElementState state);
+
+    /**
+     * Called after the renderer created a new texture.
+     *
+     * @param texture       The new texture.
+     * @param data          The pixel data of the texture. Implementations must
+     *                      not modify the position or limit of this buffer.
+     *
+     * @param pixelFormat   The format of the <code>data</code>.
+     */
+    void textureCreated(
+            Texture texture,
+            ByteBuffer data,
+            ColorModel pixelFormat);
+
+    /**
+     * Called before the renderer releases the specified texture.
+     *
+     * @param texture   The texture that is being released.
+     */
+    void textureReleased(Texture texture);
+
+    /**
+     * Called after the renderer rendered the scene.
+     */
+    void frameRendered();
+}
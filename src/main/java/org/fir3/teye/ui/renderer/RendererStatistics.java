@@ -0,0 +1,105 @@
+package org.fir3.teye.ui.renderer;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * A snapshot of the counters of a {@link Renderer} (see
+ * {@link Renderer#getStatistics()}).
+ *
+ * All counts are totals since the renderer has been created. The work of a
+ * period is the difference between the snapshots at its start and its end.
+ * Counts that are not applicable to a renderer implementation are zero.
+ */
+@Getter
+public final class RendererStatistics {
+    private final long frameCount;
+
+    @Getter(AccessLevel.NONE)
+    private final long[] modificationCounts;
+
+    /**
+     * The number of times that a mosaic has been updated for the first time
+     * within a frame.
+     */
+    private final long mosaicsTouched;
+
+    /**
+     * The number of buffer updates.
+     */
+    private final long bufferUpdates;
+
+    /**
+     * The number of bytes that have been uploaded by buffer updates.
+     */
+    private final long uploadedBytes;
+
+    /**
+     * The number of drawing groups that have been rendered.
+     */
+    private final long drawingGroups;
+
+    /**
+     * The number of draw calls.
+     */
+    private final long drawCalls;
+
+    private final int lastFrameDrawingGroups;
+    private final int lastFrameDrawCalls;
+
+    RendererStatistics(
+            long frameCount,
+            long[] modificationCounts,
+            long mosaicsTouched,
+            long bufferUpdates,
+            long uploadedBytes,
+            long drawingGroups,
+            long drawCalls,
+            int lastFrameDrawingGroups,
+            int lastFrameDrawCalls) {
+        this.frameCount = frameCount;
+        this.modificationCounts = modificationCounts;
+        this.mosaicsTouched = mosaicsTouched;
+        this.bufferUpdates = bufferUpdates;
+        this.uploadedBytes = uploadedBytes;
+        this.drawingGroups = drawingGroups;
+        this.drawCalls = drawCalls;
+        this.lastFrameDrawingGroups = lastFrameDrawingGroups;
+        this.lastFrameDrawCalls = lastFrameDrawCalls;
+    }
+
+    /**
+     * Returns the number of received modifications of the specified
+     * <code>attribute</code>.
+     *
+     * A modification that covers several attributes is counted once for each
+     * of them.
+     *
+     * @param attribute The attribute in question.
+     * @return  The number of modifications.
+     *
+     * @throws NullPointerException If <code>attribute</code> is
+     *                              <code>null</code>.
+     */
+    public long getModificationCount(ElementAttribute attribute) {
+        if (attribute == null)
+            throw new NullPointerException("attribute is null!");
+
+        return this.modificationCounts[attribute.ordinal()];
+    }
+
+    /**
+     * Returns the number of received modifications of all attributes.
+     *
+     * @return  The sum of {@link #getModificationCount(ElementAttribute)}
+     *          over all attributes.
+     */
+    public long getModificationCount() {
+        long result = 0L;
+
+        for (long count : this.modificationCounts)
+            result += count;
+
+        return result;
+    }
+}
@@ -0,0 +1,260 @@
+package org.fir3.teye.ui.renderer.animation;
+
+import org.fir3.teye.ui.renderer.Element;
+import org.fir3.teye.ui.renderer.ElementAttribute;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Owns the active {@link Tween}s of a renderer and evaluates them once per
+ * frame (see {@link org.fir3.teye.ui.renderer.Renderer#getAnimator()}).
+ *
+ * Animations may be started and cancelled by any thread, but they are only
+ * evaluated by the rendering thread, right before the scene is rendered. All
+ * animated attributes of an element are written within a single edit (see
+ * {@link Element#beginEdit()}), thus the renderer handles at most one
+ * modification per animated element and frame.
+ */
+public final class Animator {
+    private final LongSupplier clock;
+    private final Runnable wakeup;
+    private final Queue<Tween> submittedTweens;
+    private final Queue<Element> cancelledElements;
+
+    /**
+     * Whether any animation has been submitted so far. Otherwise, there is
+     * nothing to cancel.
+     */
+    private volatile boolean used;
+
+    // NOTE:    The following fields are accessed by the rendering thread only.
+
+    private final List<Tween> activeTweens;
+    private final Map<Element, Element> editedElements;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param clock     Returns the current time in nanoseconds, e.g.
+     *                  {@link System#nanoTime()}.
+     *
+     * @param wakeup    Called whenever another frame needs to be rendered,
+     *                  because animations are active.
+     *
+     * @throws NullPointerException If <code>clock</code> or
+     *                              <code>wakeup</code> is <code>null</code>.
+     */
+    public Animator(LongSupplier clock, Runnable wakeup) {
+        if (clock == null)
+            throw new NullPointerException("clock is null!");
+
+        if (wakeup == null)
+            throw new NullPointerException("wakeup is null!");
+
+        this.clock = clock;
+        this.wakeup = wakeup;
+        this.submittedTweens = new ConcurrentLinkedQueue<>();
+        this.cancelledElements = new ConcurrentLinkedQueue<>();
+        this.activeTweens = new ArrayList<>();
+        this.editedElements = new IdentityHashMap<>();
+    }
+
+    /**
+     * Animates the specified <code>attribute</code> of the
+     * <code>element</code> from its current value to the
+     * <code>targetValue</code>.
+     *
+     * An active animation of the same attribute of the same element is
+     * cancelled, once the new animation starts.
+     *
+     * @param element       The animated element.
+     * @param attribute     The animated attribute.
+     * @param targetValue   The value of the attribute at the end.
+     * @param duration      The duration of the animation.
+     * @param unit          The unit of the <code>duration</code>.
+     * @param easing        The progression of the animation.
+     *
+     * @return  The new animation.
+     *
+     * @throws IllegalArgumentException If the <code>attribute</code> cannot
+     *                                  be animated
+     *                                  ({@link ElementAttribute#TEXTURE} and
+     *                                  {@link ElementAttribute#VISIBLE}), if
+     *                                  the <code>targetValue</code> is out of
+     *                                  the range of the
+     *                                  <code>attribute</code>, or if the
+     *                                  <code>duration</code> is negative.
+     *
+     * @throws NullPointerException     If <code>element</code>,
+     *                                  <code>attribute</code>,
+     *                                  <code>unit</code> or
+     *                                  <code>easing</code> is
+     *                                  <code>null</code>.
+     */
+    public Tween animate(
+            Element element,
+            ElementAttribute attribute,
+            int targetValue,
+            long duration, TimeUnit unit,
+            Easing easing) {
+        if (element == null)
+            throw new NullPointerException("element is null!");
+
+        if (attribute == null)
+            throw new NullPointerException("attribute is null!");
+
+        if (unit == null)
+            throw new NullPointerException("unit is null!");
+
+        if (easing == null)
+            throw new NullPointerException("easing is null!");
+
+        if (!Tween.isAnimatable(attribute))
+            throw new IllegalArgumentException("Invalid attribute!");
+
+        // NOTE:    The value is validated here, since the element would reject
+        //          it on the rendering thread only.
+
+        if (!Tween.isInRange(attribute, targetValue))
+            throw new IllegalArgumentException("Out of range!");
+
+        if (duration < 0L)
+            throw new IllegalArgumentException("Invalid duration!");
+
+        Tween tween = new Tween(
+                element, attribute,
+                targetValue,
+                unit.toNanos(duration),
+                easing);
+
+        this.used = true;
+        this.submittedTweens.add(tween);
+        this.wakeup.run();
+
+        return tween;
+    }
+
+    /**
+     * Cancels all animations of the specified <code>element</code>, e.g.
+     * because it is being released.
+     *
+     * @param element   The element whose animations shall be cancelled.
+     *
+     * @throws NullPointerException If <code>element</code> is
+     *                              <code>null</code>.
+     */
+    public void cancel(Element element) {
+        if (element == null)
+            throw new NullPointerException("element is null!");
+
+        if (this.used)
+            this.cancelledElements.add(element);
+    }
+
+    /**
+     * Evaluates all active animations for the current time.
+     *
+     * This method must be called by the rendering thread, right before the
+     * scene is rendered.
+     *
+     * If an animation fails, it is cancelled and its exception is rethrown,
+     * while the remaining animations stay active.
+     *
+     * @return  The number of animations that are still active.
+     */
+    public int update() {
+        this.startSubmittedTweens();
+        this.cancelElements();
+
+        if (this.activeTweens.isEmpty())
+            return 0;
+
+        long nowNanos = this.clock.getAsLong();
+        int tweenCount = this.activeTweens.size();
+        int activeCount = 0;
+        int i = 0;
+
+        try {
+            for (; i < tweenCount; i++) {
+                Tween tween = this.activeTweens.get(i);
+
+                if (tween.isCancelled())
+                    continue;
+
+                Element element = tween.getElement();
+
+                if (this.editedElements.put(element, element) == null)
+                    element.beginEdit();
+
+                if (!tween.update(nowNanos))
+                    this.activeTweens.set(activeCount++, tween);
+            }
+        } finally {
+            // NOTE:    If the loop has been left early, the animation at i
+            //          failed and is dropped, while the animations that have
+            //          not been evaluated yet are kept.
+
+            if (i < tweenCount) {
+                this.activeTweens.get(i).cancel();
+
+                for (int j = i + 1; j < tweenCount; j++)
+                    this.activeTweens.set(
+                            activeCount++,
+                            this.activeTweens.get(j));
+            }
+
+            // Removing the completed and cancelled animations
+
+            this.activeTweens.subList(activeCount, tweenCount).clear();
+
+            try {
+                for (Element element : this.editedElements.keySet())
+                    element.commitEdit();
+            } finally {
+                this.editedElements.clear();
+            }
+
+            // NOTE:    An animation does not necessarily modify its attribute
+            //          in every frame, thus the next frame is requested
+            //          explicitly.
+
+            if (activeCount > 0)
+                this.wakeup.run();
+        }
+
+        return activeCount;
+    }
+
+    private void startSubmittedTweens() {
+        Tween tween;
+
+        while ((tween = this.submittedTweens.poll()) != null) {
+            for (Tween activeTween : this.activeTweens) {
+                if (activeTween.getElement() == tween.getElement() &&
+                        activeTween.getAttribute() == tween.getAttribute())
+                    activeTween.cancel();
+            }
+
+            if (!tween.isCancelled())
+                this.activeTweens.add(tween);
+        }
+    }
+
+    private void cancelElements() {
+        Element element;
+
+        while ((element = this.cancelledElements.poll()) != null) {
+            for (Tween tween : this.activeTweens) {
+                if (tween.getElement() == element)
+                    tween.cancel();
+            }
+        }
+    }
+}
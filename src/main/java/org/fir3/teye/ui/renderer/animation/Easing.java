@@ -0,0 +1,57 @@
+package org.fir3.teye.ui.renderer.animation;
+
+/**
+ * Maps the elapsed fraction of the duration of a {@link Tween} to the
+ * fraction of the distance between its start and end value.
+ */
+public enum Easing {
+    LINEAR {
+        @Override
+        public float apply(float t) {
+            return t;
+        }
+    },
+
+    /**
+     * Starts slowly and accelerates (quadratic).
+     */
+    EASE_IN {
+        @Override
+        public float apply(float t) {
+            return t * t;
+        }
+    },
+
+    /**
+     * Starts fast and decelerates (quadratic).
+     */
+    EASE_OUT {
+        @Override
+        public float apply(float t) {
+            return t * (2.0F - t);
+        }
+    },
+
+    /**
+     * Accelerates during the first and decelerates during the second half
+     * (quadratic).
+     */
+    EASE_IN_OUT {
+        @Override
+        public float apply(float t) {
+            if (t < 0.5F)
+                return 2.0F * t * t;
+
+            return -1.0F + (4.0F - 2.0F * t) * t;
+        }
+    };
+
+    /**
+     * Applies this easing.
+     *
+     * @param t The elapsed fraction of the duration between 0.0 and 1.0.
+     * @return  The fraction of the distance, which is 0.0 for 0.0 and 1.0 for
+     *          1.0.
+     */
+    public abstract float apply(float t);
+}
@@ -0,0 +1,257 @@
+package org.fir3.teye.ui.renderer.animation;
+
+import lombok.Getter;
+import org.fir3.teye.ui.renderer.Element;
+import org.fir3.teye.ui.renderer.ElementAttribute;
+
+/**
+ * The animation of a single attribute of an {@link Element} from its value at
+ * the start of the animation to a target value (see
+ * {@link Animator#animate(Element, ElementAttribute, int, long, Easing)}).
+ *
+ * The animation starts in the first frame after it has been submitted. It is
+ * evaluated by the rendering thread only, while its state may be queried and
+ * it may be cancelled by any thread.
+ */
+public final class Tween {
+    @Getter
+    private final Element element;
+
+    @Getter
+    private final ElementAttribute attribute;
+
+    /**
+     * The value that the attribute has at the end of the animation.
+     */
+    @Getter
+    private final int targetValue;
+
+    private final long durationNanos;
+    private final Easing easing;
+
+    // NOTE:    The following fields are accessed by the rendering thread only.
+
+    private boolean started;
+    private long startNanos;
+    private int startValue;
+
+    private volatile boolean cancelled;
+    private volatile boolean finished;
+
+    Tween(
+            Element element,
+            ElementAttribute attribute,
+            int targetValue,
+            long durationNanos,
+            Easing easing) {
+        this.element = element;
+        this.attribute = attribute;
+        this.targetValue = targetValue;
+        this.durationNanos = durationNanos;
+        this.easing = easing;
+    }
+
+    /**
+     * Stops this animation. The attribute keeps the value of the last
+     * evaluation.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Returns whether this animation has been cancelled.
+     *
+     * @return  Either <code>true</code>, if {@link #cancel()} has been called
+     *          or another animation of the same attribute has been started,
+     *          otherwise <code>false</code>.
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Returns whether the attribute has reached the target value.
+     *
+     * @return  Either <code>true</code>, if this animation is complete,
+     *          otherwise <code>false</code>.
+     */
+    public boolean isFinished() {
+        return this.finished;
+    }
+
+    /**
+     * Sets the attribute to its value at the specified time.
+     *
+     * NOTE:    The element needs to be edited already (see
+     *          {@link Element#beginEdit()}).
+     *
+     * @param nowNanos  The time of the current frame.
+     * @return  Either <code>true</code>, if the animation is complete,
+     *          otherwise <code>false</code>.
+     */
+    boolean update(long nowNanos) {
+        if (!this.started) {
+            this.started = true;
+            this.startNanos = nowNanos;
+            this.startValue = Tween.get(this.element, this.attribute);
+        }
+
+        long elapsedNanos = nowNanos - this.startNanos;
+
+        if (elapsedNanos >= this.durationNanos) {
+            Tween.set(this.element, this.attribute, this.targetValue);
+            this.finished = true;
+
+            return true;
+        }
+
+        float t = this.easing.apply(
+                (float) elapsedNanos / (float) this.durationNanos);
+
+        Tween.set(
+                this.element, this.attribute,
+                Math.round(
+                        this.startValue +
+                                (this.targetValue - this.startValue) * t));
+
+        return false;
+    }
+
+    static boolean isAnimatable(ElementAttribute attribute) {
+        return attribute != ElementAttribute.TEXTURE &&
+                attribute != ElementAttribute.VISIBLE;
+    }
+
+    /**
+     * Returns whether the specified <code>value</code> may be assigned to the
+     * <code>attribute</code>.
+     *
+     * NOTE:    Since every {@link Easing} stays between the start and the
+     *          target value, a valid target value keeps all intermediate
+     *          values valid as well.
+     */
+    static boolean isInRange(ElementAttribute attribute, int value) {
+        switch (attribute) {
+            case RED_COMPONENT:
+            case GREEN_COMPONENT:
+            case BLUE_COMPONENT:
+            case ALPHA_COMPONENT:
+                return value >= 0 && value <= 255;
+
+            case Z_INDEX:
+                return true;
+
+            default:
+                return value >= 0;
+        }
+    }
+
+    private static int get(Element element, ElementAttribute attribute) {
+        switch (attribute) {
+            case X:
+                return element.getX();
+
+            case Y:
+                return element.getY();
+
+            case WIDTH:
+                return element.getWidth();
+
+            case HEIGHT:
+                return element.getHeight();
+
+            case RED_COMPONENT:
+                return element.getRed();
+
+            case GREEN_COMPONENT:
+                return element.getGreen();
+
+            case BLUE_COMPONENT:
+                return element.getBlue();
+
+            case ALPHA_COMPONENT:
+                return element.getAlpha();
+
+            case TEXTURE_X:
+                return element.getTextureX();
+
+            case TEXTURE_Y:
+                return element.getTextureY();
+
+            case TEXTURE_WIDTH:
+                return element.getTextureWidth();
+
+            case TEXTURE_HEIGHT:
+                return element.getTextureHeight();
+
+            case Z_INDEX:
+                return element.getZIndex();
+
+            default:
+                throw new IllegalArgumentException("Invalid attribute!");
+        }
+    }
+
+    private static void set(
+            Element element,
+            ElementAttribute attribute,
+            int value) {
+        switch (attribute) {
+            case X:
+                element.setX(value);
+                break;
+
+            case Y:
+                element.setY(value);
+                break;
+
+            case WIDTH:
+                element.setWidth(value);
+                break;
+
+            case HEIGHT:
+                element.setHeight(value);
+                break;
+
+            case RED_COMPONENT:
+                element.setRed(value);
+                break;
+
+            case GREEN_COMPONENT:
+                element.setGreen(value);
+                break;
+
+            case BLUE_COMPONENT:
+                element.setBlue(value);
+                break;
+
+            case ALPHA_COMPONENT:
+                element.setAlpha(value);
+                break;
+
+            case TEXTURE_X:
+                element.setTextureX(value);
+                break;
+
+            case TEXTURE_Y:
+                element.setTextureY(value);
+                break;
+
+            case TEXTURE_WIDTH:
+                element.setTextureWidth(value);
+                break;
+
+            case TEXTURE_HEIGHT:
+                element.setTextureHeight(value);
+                break;
+
+            case Z_INDEX:
+                element.setZIndex(value);
+                break;
+
+            default:
+                throw new IllegalArgumentException("Invalid attribute!");
+        }
+    }
+}
@@ -1,5 +1,32 @@
 package org.fir3.teye.ui.renderer.gl;
 
 import org.fir3.teye.ui.renderer.AbstractElement;
+import org.fir3.teye.ui.renderer.Element;
 
-final class GLElement extends AbstractElement<GLElement> {  }
+final class GLElement extends AbstractElement<GLElement> {
+    /**
+     * The renderer that created this element.
+     */
+    final GLRenderer owner;
+
+    /**
+     * The mosaic that contains this element, or <code>null</code>, if the
+     * element has been released.
+     *
+     * Maintained by {@link Mosaic#insert(GLElement)} and
+     * {@link Mosaic#remove(GLElement)}.
+     */
+    Mosaic mosaic;
+
+    /**
+     * The group that this element is part of, or <code>null</code>.
+     *
+     * Maintained by {@link GLElementGroup#add(Element)} and
+     * {@link GLElementGroup#remove(Element)}.
+     */
+    GLElementGroup group;
+
+    GLElement(GLRenderer owner) {
+        this.owner = owner;
+    }
+}
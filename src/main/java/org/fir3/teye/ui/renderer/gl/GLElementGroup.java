@@ -0,0 +1,86 @@
+package org.fir3.teye.ui.renderer.gl;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.fir3.teye.ui.renderer.AbstractElementGroup;
+import org.fir3.teye.ui.renderer.Element;
+
+final class GLElementGroup extends AbstractElementGroup {
+    /**
+     * The index of the first entry of the group buffer, which does neither
+     * move nor fade the elements that are not part of any group.
+     */
+    static final int NO_GROUP = 0;
+
+    private final GLRenderer owner;
+
+    /**
+     * The index of the entry of this group in the group buffer of the
+     * renderer, which the transforms of the members refer to.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private final int index;
+
+    /**
+     * Whether this group has been released. Maintained by the rendering
+     * thread.
+     */
+    boolean released;
+
+    /**
+     * The offset of this group as written into the group buffer, which the
+     * bounding boxes of the mosaics are based on. Maintained by the rendering
+     * thread.
+     */
+    int bufferX, bufferY;
+
+    GLElementGroup(GLRenderer owner, int index) {
+        super(owner);
+
+        this.owner = owner;
+        this.index = index;
+    }
+
+    @Override
+    public void add(Element element) {
+        if (element == null)
+            throw new NullPointerException("element is null!");
+
+        if (!(element instanceof GLElement) ||
+                ((GLElement) element).owner != this.owner)
+            throw new IllegalArgumentException("Unknown element!");
+
+        if (this.released)
+            throw new IllegalStateException("Group released!");
+
+        GLElement glElement = (GLElement) element;
+
+        if (glElement.group == this)
+            return;
+
+        glElement.group = this;
+        this.owner.regroup(glElement);
+    }
+
+    @Override
+    public void remove(Element element) {
+        if (element == null)
+            throw new NullPointerException("element is null!");
+
+        if (!(element instanceof GLElement))
+            return;
+
+        GLElement glElement = (GLElement) element;
+
+        if (glElement.group != this)
+            return;
+
+        glElement.group = null;
+        this.owner.regroup(glElement);
+    }
+
+    @Override
+    protected void modified() {
+        this.owner.groupModified();
+    }
+}
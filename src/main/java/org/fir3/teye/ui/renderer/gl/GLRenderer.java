@@ -4,36 +4,204 @@ import org.fir3.teye.ui.renderer.*;
 import org.joml.Matrix4f;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
 import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
 
 import java.nio.ByteBuffer;
 import java.nio.ShortBuffer;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class GLRenderer extends AbstractRenderer<GLElement> {
+    /**
+     * The attributes that may be modified by moving an element, which only
+     * updates the translation of the element (see
+     * {@link Mosaic#move(GLElement)}).
+     */
+    private static final int MOVEMENT_ATTRIBUTES =
+            ElementAttribute.X.getMask() | ElementAttribute.Y.getMask();
+
     private final GLTextureManager textureManager;
+    private final Runnable uploadListener;
     private final MosaicShader shader;
     private final List<Mosaic> mosaics;
     private final int width, height;
     private int elementVboId;
+    private long uploadGeneration;
+
+    /**
+     * The groups of this renderer, whose position in the list is their index
+     * minus one (see {@link GLElementGroup#getIndex()}). The entries of
+     * released groups are <code>null</code>.
+     */
+    private final List<GLElementGroup> groups;
+
+    /**
+     * Whether any group has been modified since the group buffer has been
+     * updated the last time.
+     */
+    private final AtomicBoolean groupsModified;
+
+    private int groupBufferId, groupTextureId;
+
+    /**
+     * The number of entries that the group buffer can hold.
+     */
+    private int groupCapacity;
 
     public GLRenderer(int width, int height) {
+        this(width, height, null);
+    }
+
+    public GLRenderer(int width, int height, Executor uploadExecutor) {
+        this(width, height, uploadExecutor, null);
+    }
+
+    public GLRenderer(
+            int width, int height,
+            Executor uploadExecutor,
+            GLRenderer textureSource) {
+        this(
+                width, height,
+                uploadExecutor,
+                textureSource,
+                ModificationMode.PUSH);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param width             The width of the viewport.
+     * @param height            The height of the viewport.
+     * @param uploadExecutor    If not <code>null</code>, texture data is
+     *                          uploaded by this executor instead of the
+     *                          calling thread. The executor needs to run its
+     *                          tasks on a thread whose current OpenGL context
+     *                          shares its objects with the context of this
+     *                          renderer.
+     *                          Ignored, if <code>textureSource</code> is
+     *                          specified.
+     *
+     * @param textureSource     If not <code>null</code>, the textures of this
+     *                          renderer are shared with the specified one.
+     *                          The OpenGL context of this renderer needs to
+     *                          share its objects with the context of the
+     *                          other one.
+     *
+     * @param modificationMode  Determines whether modified elements are
+     *                          updated immediately or once per frame.
+     *
+     * @throws IllegalArgumentException If <code>width</code> or
+     *                                  <code>height</code> is less than one.
+     *
+     * @throws IllegalStateException    If <code>textureSource</code> has been
+     *                                  destroyed already.
+     *
+     * @throws NullPointerException     If <code>modificationMode</code> is
+     *                                  <code>null</code>.
+     */
+    public GLRenderer(
+            int width, int height,
+            Executor uploadExecutor,
+            GLRenderer textureSource,
+            ModificationMode modificationMode) {
+        super(modificationMode);
+
         if (width < 1)  throw new IllegalArgumentException("Invalid width!");
         if (height < 1) throw new IllegalArgumentException("Invalid height!");
 
         this.width = width;
         this.height = height;
 
-        this.textureManager = new GLTextureManager();
+        // NOTE:    Once an upload has been completed, the scene needs to be
+        //          rendered again, because the affected elements have been
+        //          rendered without their texture so far.
+
+        this.uploadListener = this::notifyModified;
+
+        if (textureSource != null) {
+            this.textureManager = textureSource.textureManager;
+            this.textureManager.retain(this.uploadListener);
+        } else {
+            this.textureManager = new GLTextureManager(
+                    uploadExecutor,
+                    this.uploadListener);
+        }
+
         this.shader = new MosaicShader();
         this.mosaics = new ArrayList<>();
+        this.groups = new ArrayList<>();
+        this.groupsModified = new AtomicBoolean(true);
     }
 
     @Override
     protected Element newElement0() {
-        GLElement el = new GLElement();
+        GLElement el = this.createElement();
+        this.updateMosaic(el, false);
+
+        return el;
+    }
+
+    @Override
+    protected List<Element> newElements0(int count) {
+        List<GLElement> elements = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++)
+            elements.add(this.createElement());
+
+        // Since the new elements have the greatest z-index, they are appended
+        // to the last mosaic and to new mosaics, each of which is updated
+        // once.
+
+        int placed = 0;
+
+        if (!this.mosaics.isEmpty())
+            placed = this.mosaics.get(this.mosaics.size() - 1)
+                    .append(elements, 0);
+
+        while (placed < count)
+            placed += this.newMosaic().append(elements, placed);
+
+        return new ArrayList<>(elements);
+    }
+
+    @Override
+    protected void release0(Collection<? extends Element> elements) {
+        // Grouping the elements by their mosaics, so that each mosaic is
+        // rearranged once
+
+        Map<Mosaic, List<GLElement>> removals = new IdentityHashMap<>();
+
+        for (Element element : elements) {
+            GLElement glElement = (GLElement) element;
+
+            if (glElement.mosaic == null)
+                continue;
+
+            removals.computeIfAbsent(glElement.mosaic, m -> new ArrayList<>())
+                    .add(glElement);
+        }
+
+        for (Map.Entry<Mosaic, List<GLElement>> entry : removals.entrySet())
+            entry.getKey().remove(entry.getValue());
+    }
+
+    /**
+     * Creates a new element, which is not part of any mosaic yet.
+     *
+     * @return  The new element.
+     */
+    private GLElement createElement() {
+        GLElement el = new GLElement(this);
 
         // It is important that the z-index is at the end of the possible
         // z-indices as otherwise inserting the element could lead to a large
@@ -47,7 +215,7 @@ public final class GLRenderer extends AbstractRenderer<GLElement> {
         //          to a mosaic (duplicate).
 
         el.setModificationListener(this);
-        this.updateMosaic(el, false);
+        this.captureRenderState(el);
 
         return el;
     }
@@ -56,32 +224,91 @@ public final class GLRenderer extends AbstractRenderer<GLElement> {
     protected void release0(Element element) {
         GLElement glElement = (GLElement) element;
 
-        for (Mosaic mosaic : this.mosaics) {
-            if (!mosaic.contains(glElement))
-                continue;
+        if (glElement.mosaic != null)
+            glElement.mosaic.remove(glElement);
+    }
+
+    @Override
+    protected ElementGroup newGroup0() {
+        int index = this.groups.indexOf(null);
 
-            mosaic.remove(glElement);
-            break;
+        if (index < 0) {
+            index = this.groups.size();
+
+            if (index >= Short.MAX_VALUE)
+                throw new IllegalStateException("Too many groups!");
+
+            this.groups.add(null);
+        }
+
+        GLElementGroup group = new GLElementGroup(this, index + 1);
+
+        this.groups.set(index, group);
+        this.groupModified();
+
+        return group;
+    }
+
+    @Override
+    protected void release0(ElementGroup group) {
+        GLElementGroup glGroup = (GLElementGroup) group;
+
+        if (glGroup.released)
+            throw new IllegalArgumentException("Unknown group!");
+
+        glGroup.released = true;
+        this.groups.set(glGroup.getIndex() - 1, null);
+
+        // The members and the nested groups leave the released group, before
+        // its index is reused by another group.
+
+        for (Mosaic mosaic : this.mosaics)
+            mosaic.leave(glGroup);
+
+        for (GLElementGroup other : this.groups) {
+            if (other != null && other.getParent() == glGroup)
+                other.setParent(null);
         }
+
+        this.groupModified();
     }
 
     @Override
     protected boolean notifyModified0(
             GLElement modified,
             ElementModification modification) {
-        if (modification.modifiedAttribute() == ElementAttribute.Z_INDEX) {
+        // NOTE:    Unless in push mode, an element may have been released
+        //          after it has been modified.
+
+        if (modified.mosaic == null)
+            return true;
+
+        if (modification.isModified(ElementAttribute.Z_INDEX)) {
             this.updateMosaic(modified, true);
             return true;
         }
 
-        for (Mosaic mosaic : this.mosaics) {
-            if (!mosaic.contains(modified))
-                continue;
+        boolean push = (this.getModificationMode() == ModificationMode.PUSH);
 
-            mosaic.update(modified);
-            break;
+        // If the element has only been moved, its vertices remain unchanged.
+
+        if ((modification.modifiedAttributes() &
+                ~GLRenderer.MOVEMENT_ATTRIBUTES) == 0 &&
+                modified.mosaic.move(modified)) {
+            if (push)
+                modified.mosaic.flushTransforms();
+
+            return true;
         }
 
+        // Unless in push mode, the buffer of each mosaic is updated only once
+        // after all modifications have been collected.
+
+        if (!push)
+            modified.mosaic.markDirty();
+        else
+            modified.mosaic.update(modified);
+
         return true;
     }
 
@@ -130,6 +357,13 @@ public final class GLRenderer extends AbstractRenderer<GLElement> {
                 indices,
                 GL15.GL_STATIC_DRAW);
 
+        // Creating the buffer texture that contains the groups
+
+        this.groupBufferId = GL15.glGenBuffers();
+        this.groupTextureId = GL11.glGenTextures();
+        this.groupCapacity = 0;
+        this.groupsModified.set(true);
+
         // Enabling alpha blending
 
         GL11.glEnable(GL11.GL_BLEND);
@@ -148,15 +382,40 @@ public final class GLRenderer extends AbstractRenderer<GLElement> {
     @Override
     public void destroy() {
         GL15.glDeleteBuffers(this.elementVboId);
+        GL11.glDeleteTextures(this.groupTextureId);
+        GL15.glDeleteBuffers(this.groupBufferId);
 
         this.shader.dispose();
-        this.textureManager.dispose();
+        this.textureManager.release(this.uploadListener);
     }
 
     @Override
-    public void render() {
+    protected void render0() {
+        this.collectModifications();
+
+        // If some textures became ready, the elements that use them need to
+        // be updated.
+
+        long uploadGeneration = this.textureManager.collectUploads();
+
+        if (uploadGeneration != this.uploadGeneration) {
+            this.uploadGeneration = uploadGeneration;
+
+            for (Mosaic mosaic : this.mosaics)
+                mosaic.markDirty();
+        }
+
+        for (Mosaic mosaic : this.mosaics)
+            mosaic.updateIfDirty();
+
+        this.updateGroups();
         this.shader.use();
 
+        GL13.glActiveTexture(
+                GL13.GL_TEXTURE0 + MosaicShader.GROUPS_TEXTURE_UNIT);
+
+        GL11.glBindTexture(GL31.GL_TEXTURE_BUFFER, this.groupTextureId);
+
         // TODO:    Only re-render the part that has actually been updated.
 
         // Clearing the scene
@@ -166,37 +425,146 @@ public final class GLRenderer extends AbstractRenderer<GLElement> {
         // Rendering the element collections
 
         for (Mosaic mosaic : this.mosaics)
-            mosaic.render();
+            mosaic.render(this.width, this.height);
     }
 
     @Override
-    public Texture newTexture(
+    protected Texture newTexture0(
             int width, int height,
             ByteBuffer data,
             ColorModel pixelFormat) {
-        return this.textureManager.createTexture(
-                width, height,
-                data,
-                pixelFormat);
+        // NOTE:    The texture manager may be shared with renderers on other
+        //          threads.
+
+        synchronized (this.textureManager) {
+            return this.textureManager.createTexture(
+                    width, height,
+                    data,
+                    pixelFormat);
+        }
     }
 
     @Override
-    public void release(Texture texture) {
-        this.textureManager.destroy((GLTexture) texture);
+    protected void release0(Texture texture) {
+        synchronized (this.textureManager) {
+            this.textureManager.destroy((GLTexture) texture);
+        }
     }
 
-    private void updateMosaic(GLElement element, boolean removeExisting) {
-        if (removeExisting) {
-            for (Mosaic mosaic : this.mosaics) {
-                if (!mosaic.contains(element))
-                    continue;
+    /**
+     * Requests the group buffer to be updated with the next frame.
+     *
+     * This method may be called by any thread.
+     */
+    void groupModified() {
+        if (!this.groupsModified.getAndSet(true))
+            this.notifyModified();
+    }
 
-                mosaic.remove(element);
-                break;
+    /**
+     * Updates the transform of the specified <code>element</code> after it
+     * has joined or left a group.
+     *
+     * @param element   The element whose group has been changed.
+     */
+    void regroup(GLElement element) {
+        if (element.mosaic == null)
+            return;
+
+        element.mosaic.regroup(element);
+
+        // NOTE:    The transform is uploaded with the next frame, even in push
+        //          mode.
+
+        this.notifyModified();
+    }
+
+    /**
+     * Writes the resolved attributes of all groups into the group buffer, if
+     * any group has been modified. Each entry consists of the offset and the
+     * opacity of the group (<code>GL_RGBA16I</code>).
+     */
+    private void updateGroups() {
+        if (!this.groupsModified.getAndSet(false))
+            return;
+
+        int count = this.groups.size() + 1;
+        ByteBuffer buf = BufferUtils.createByteBuffer(count * 8);
+
+        // The first entry belongs to the elements without a group.
+
+        buf.putShort((short) 0).putShort((short) 0);
+        buf.putShort((short) 255).putShort((short) 0);
+
+        BitSet movedGroups = new BitSet(count);
+
+        for (GLElementGroup group : this.groups) {
+            short x = 0, y = 0, alpha = 255;
+
+            if (group != null) {
+                x = GLRenderer.clampToShort(group.getResolvedX());
+                y = GLRenderer.clampToShort(group.getResolvedY());
+                alpha = (short) group.getResolvedAlpha();
+
+                if (x != group.bufferX || y != group.bufferY) {
+                    group.bufferX = x;
+                    group.bufferY = y;
+                    movedGroups.set(group.getIndex());
+                }
             }
+
+            buf.putShort(x).putShort(y);
+            buf.putShort(alpha).putShort((short) 0);
+        }
+
+        buf.flip();
+
+        // The moved groups move their members, thus the bounding boxes of the
+        // mosaics that contain any of them change.
+
+        if (!movedGroups.isEmpty()) {
+            for (Mosaic mosaic : this.mosaics)
+                mosaic.markBoundsDirty(movedGroups);
         }
 
-        int zIndex = element.getZIndex();
+        GL15.glBindBuffer(GL31.GL_TEXTURE_BUFFER, this.groupBufferId);
+        this.getCounters().countBufferUpdate(buf.remaining());
+
+        if (count <= this.groupCapacity) {
+            GL15.glBufferSubData(GL31.GL_TEXTURE_BUFFER, 0, buf);
+            return;
+        }
+
+        // The buffer needs to grow, which also (re-)attaches it to the
+        // texture.
+
+        this.groupCapacity = Math.max(count, this.groupCapacity * 2);
+
+        GL15.glBufferData(
+                GL31.GL_TEXTURE_BUFFER,
+                this.groupCapacity * 8L,
+                GL15.GL_DYNAMIC_DRAW);
+
+        GL15.glBufferSubData(GL31.GL_TEXTURE_BUFFER, 0, buf);
+
+        GL11.glBindTexture(GL31.GL_TEXTURE_BUFFER, this.groupTextureId);
+        GL31.glTexBuffer(
+                GL31.GL_TEXTURE_BUFFER,
+                GL30.GL_RGBA16I,
+                this.groupBufferId);
+    }
+
+    private static short clampToShort(int value) {
+        return (short) Math.max(
+                Short.MIN_VALUE,
+                Math.min(Short.MAX_VALUE, value));
+    }
+
+    private void updateMosaic(GLElement element, boolean removeExisting) {
+        if (removeExisting && element.mosaic != null)
+            element.mosaic.remove(element);
+
+        int zIndex = element.getRenderState().getZIndex();
         Iterator<Mosaic> it = this.mosaics.iterator();
 
         while (it.hasNext()) {
@@ -211,16 +579,27 @@ public final class GLRenderer extends AbstractRenderer<GLElement> {
             element = mosaic.insert(element);
 
             if (element != null)
-                zIndex = element.getZIndex();
+                zIndex = element.getRenderState().getZIndex();
         }
 
         if (element == null)
             return;
 
-        Mosaic newMosaic = new Mosaic(this.textureManager);
+        this.newMosaic().insert(element);
+    }
+
+    /**
+     * Creates a new, empty mosaic after all existing ones.
+     *
+     * @return  The new mosaic.
+     */
+    private Mosaic newMosaic() {
+        Mosaic newMosaic = new Mosaic(
+                this.textureManager,
+                this.getCounters());
         newMosaic.initialize(this.elementVboId);
-        newMosaic.insert(element);
 
         this.mosaics.add(newMosaic);
+        return newMosaic;
     }
 }
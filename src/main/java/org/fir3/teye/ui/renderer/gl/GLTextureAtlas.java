@@ -41,8 +41,7 @@ final class GLTextureAtlas
             int width, int height,
             ByteBuffer data,
             ColorModel pixelFormat) {
-        this.textureManager.bind(this)
-                .update(x, y, width, height, data);
+        this.textureManager.upload(this, x, y, width, height, data);
     }
 
     @Override
@@ -68,6 +67,9 @@ final class GLTextureAtlas
             return;
         }
 
+        // The region may still be uploaded by another thread.
+
+        this.textureManager.awaitUploads(this);
         this.textureManager.bind(this).read(x, y, width, height, dst);
     }
 
@@ -5,11 +5,29 @@ import lombok.Getter;
 import org.fir3.teye.ui.renderer.BaseTextureManager;
 import org.fir3.teye.ui.renderer.ColorModel;
 import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL32;
 
 import java.nio.ByteBuffer;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Manages the texture atlases of one or more {@link GLRenderer} instances.
+ *
+ * If multiple renderers share the same instance, their OpenGL contexts need
+ * to share their objects and the renderers may run on different threads.
+ * Hence, all operations of this class are synchronized on the instance.
+ *
+ * In {@link Mode#LowResource}, binding an atlas may replace the content of an
+ * OpenGL texture that another renderer has bound for its next draw call.
+ * Therefore, renderers bind and draw while holding the monitor of this
+ * instance and report the draw call by {@link #markUsed(GLTextureAtlas[])}.
+ */
 final class GLTextureManager
         extends BaseTextureManager<GLTextureAtlas, GLTexture>
         implements Disposable {
@@ -30,18 +48,103 @@ final class GLTextureManager
         LowResource
     }
 
+    /**
+     * The maximum time in nanoseconds that the upload thread waits for a
+     * single fence, before it checks the fence again.
+     */
+    private static final long UPLOAD_FENCE_TIMEOUT = 100_000_000L;
+
     private final Map<GLTextureAtlas, MetaTexture> assignments;
+    private final Executor uploadExecutor;
+    private final List<Runnable> uploadListeners;
+
+    /**
+     * The uploads that have been submitted to the uploadExecutor, but that
+     * have not been collected by {@link #collectUploads()} yet.
+     */
+    private final UploadTracker<GLTextureAtlas> uploads;
+
+    /**
+     * The number of renderers that use this instance.
+     */
+    private int referenceCount;
 
     @Getter(AccessLevel.PACKAGE)
-    private Mode mode;
+    private volatile Mode mode;
 
     GLTextureManager() {
+        this(null, null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param uploadExecutor    If not <code>null</code>, the pixel data of
+     *                          new textures will be uploaded by this executor,
+     *                          which needs to run its tasks on a thread with
+     *                          a current OpenGL context that shares its
+     *                          objects with the context of this manager.
+     *
+     * @param uploadListener    Will be invoked by the thread of the
+     *                          <code>uploadExecutor</code> each time an
+     *                          upload has been completed. May be
+     *                          <code>null</code>.
+     */
+    GLTextureManager(Executor uploadExecutor, Runnable uploadListener) {
         this.assignments = new IdentityHashMap<>();
+        this.uploadExecutor = uploadExecutor;
+        this.uploadListeners = new CopyOnWriteArrayList<>();
+        this.uploads = new UploadTracker<>();
         this.mode = Mode.Normal;
+        this.referenceCount = 1;
+
+        if (uploadListener != null)
+            this.uploadListeners.add(uploadListener);
+    }
+
+    /**
+     * Registers another user of this instance.
+     *
+     * @param uploadListener    Will be invoked each time an upload has been
+     *                          completed, like the listener that has been
+     *                          passed to the constructor. May be
+     *                          <code>null</code>.
+     *
+     * @throws IllegalStateException    If this instance has been disposed
+     *                                  already.
+     */
+    synchronized void retain(Runnable uploadListener) {
+        if (this.referenceCount < 1)
+            throw new IllegalStateException("Already disposed!");
+
+        this.referenceCount++;
+
+        if (uploadListener != null)
+            this.uploadListeners.add(uploadListener);
+    }
+
+    /**
+     * Unregisters a user of this instance and disposes it, if that has been
+     * the last one.
+     *
+     * @param uploadListener    The listener that has been passed to
+     *                          {@link #retain(Runnable)} or to the
+     *                          constructor.
+     */
+    synchronized void release(Runnable uploadListener) {
+        this.uploadListeners.remove(uploadListener);
+
+        if (--this.referenceCount == 0)
+            this.dispose();
+    }
+
+    @Override
+    public synchronized GLTextureAtlas getAtlas(GLTexture texture) {
+        return super.getAtlas(texture);
     }
 
     @Override
-    protected GLTextureAtlas createAtlas(int width, int height) {
+    protected synchronized GLTextureAtlas createAtlas(int width, int height) {
         // TODO:    Decide whether we make the pixelFormat of atlantes constant
         //          or configurable.
 
@@ -64,11 +167,24 @@ final class GLTextureManager
                     //
                     // TODO:    Handle the case that the specified width and
                     //          height are greater then maximums of OpenGL.
+                    //
+                    // NOTE:    In low resource mode, the MetaTexture instances
+                    //          are being reassigned, thus we cannot have any
+                    //          uploads in flight anymore.
 
+                    this.awaitUploads(null);
                     this.mode = Mode.LowResource;
                     return this.createAtlas(width, height);
                 }
 
+                // The upload thread must not use the new texture before the
+                // allocation has been submitted to the GPU.
+
+                if (this.uploadExecutor != null)
+                    GL11.glFlush();
+                else
+                    this.flushIfShared();
+
                 this.assignments.put(atlas, peer);
                 break;
 
@@ -106,7 +222,7 @@ final class GLTextureManager
     }
 
     @Override
-    protected void destroy(GLTextureAtlas atlas) {
+    protected synchronized void destroy(GLTextureAtlas atlas) {
         this.assignments.remove(atlas);
     }
 
@@ -137,7 +253,10 @@ final class GLTextureManager
     }
 
     @Override
-    public void dispose() {
+    public synchronized void dispose() {
+        this.uploads.await(null);
+        this.uploads.clear();
+
         for (MetaTexture texture : this.assignments.values())
             texture.dispose();
 
@@ -155,7 +274,7 @@ final class GLTextureManager
      *          OpenGL texture that has been used for uploading the texture
      *          data.
      */
-    MetaTexture bind(GLTextureAtlas atlas) {
+    synchronized MetaTexture bind(GLTextureAtlas atlas) {
         if (atlas == null) throw new NullPointerException("atlas is null!");
 
         MetaTexture metaTexture = this.assignments.get(atlas);
@@ -201,7 +320,12 @@ final class GLTextureManager
 
                     // Saving the previous atlas into a local buffer and
                     // removing its assignment
+                    //
+                    // NOTE:    The draw calls of other contexts that read the
+                    //          texture must be completed, before its content
+                    //          is replaced.
 
+                    metaTexture.awaitUse();
                     prevAtlas.save(metaTexture);
                     this.assignments.remove(prevAtlas);
 
@@ -221,4 +345,196 @@ final class GLTextureManager
         metaTexture.bind();
         return metaTexture;
     }
+
+    /**
+     * Records that a draw call of the current OpenGL context uses the
+     * specified <code>atlases</code>, which have been bound by
+     * {@link #bind(GLTextureAtlas)}.
+     *
+     * In {@link Mode#LowResource}, if this instance is shared, a following
+     * {@link #bind(GLTextureAtlas)} of another context waits for the draw
+     * call, before it replaces the content of a shared OpenGL texture.
+     * Otherwise, this method has no effect.
+     *
+     * @param atlases   The atlases of the draw call. May contain
+     *                  <code>null</code> elements.
+     */
+    synchronized void markUsed(GLTextureAtlas[] atlases) {
+        if (this.mode != Mode.LowResource || this.referenceCount < 2)
+            return;
+
+        for (GLTextureAtlas atlas : atlases) {
+            if (atlas != null)
+                this.assignments.get(atlas).fenceUse();
+        }
+
+        // The fences need to reach the GPU, before other contexts may wait
+        // for them.
+
+        GL11.glFlush();
+    }
+
+    /**
+     * Uploads the specified region of the <code>atlas</code> to its OpenGL
+     * texture.
+     *
+     * If this manager has an upload executor and runs in normal mode, the
+     * upload is performed asynchronously and the region becomes ready after
+     * the upload has been completed (see {@link #isReady(GLTexture)}).
+     * Otherwise, the region is uploaded immediately.
+     *
+     * @param atlas     The atlas whose region shall be uploaded.
+     * @param x         The x-coordinate of the region.
+     * @param y         The y-coordinate of the region.
+     * @param width     The width of the region.
+     * @param height    The height of the region.
+     * @param data      The pixel data of the region. The buffer must not be
+     *                  modified by the caller afterwards.
+     */
+    synchronized void upload(
+            GLTextureAtlas atlas,
+            int x, int y,
+            int width, int height,
+            ByteBuffer data) {
+        if (this.uploadExecutor == null || this.mode != Mode.Normal) {
+            this.bind(atlas).update(x, y, width, height, data);
+            this.flushIfShared();
+            return;
+        }
+
+        MetaTexture target = this.assignments.get(atlas);
+
+        if (target == null)
+            throw new IllegalArgumentException("Unknown atlas!");
+
+        UploadTracker.Upload<GLTextureAtlas> upload = this.uploads.add(
+                atlas,
+                x, y,
+                width, height,
+                data);
+
+        try {
+            this.uploadExecutor.execute(() -> {
+                try {
+                    target.update(x, y, width, height, data);
+                } catch (RuntimeException ex) {
+                    // NOTE:    There is nobody who could handle the exception
+                    //          on this thread. The upload is repeated by the
+                    //          next thread that collects it, which reports a
+                    //          persistent failure to its caller.
+
+                    upload.fail(ex);
+                    this.notifyUploadListeners();
+                    return;
+                }
+
+                // Waiting for the fence that follows the upload commands
+                // ensures that the texture data is complete, before the
+                // rendering threads start using it.
+
+                long fence = GL32.glFenceSync(
+                        GL32.GL_SYNC_GPU_COMMANDS_COMPLETE,
+                        0);
+                int state;
+
+                do {
+                    state = GL32.glClientWaitSync(
+                            fence,
+                            GL32.GL_SYNC_FLUSH_COMMANDS_BIT,
+                            GLTextureManager.UPLOAD_FENCE_TIMEOUT);
+                } while (state == GL32.GL_TIMEOUT_EXPIRED);
+
+                GL32.glDeleteSync(fence);
+                upload.complete();
+                this.notifyUploadListeners();
+            });
+        } catch (RejectedExecutionException ex) {
+            // NOTE:    The executor may have been shut down by the context that
+            //          owns it, while other renderers still use this instance.
+
+            this.uploads.remove(upload);
+            this.bind(atlas).update(x, y, width, height, data);
+            this.flushIfShared();
+        }
+    }
+
+    /**
+     * Returns whether the pixel data of the specified <code>texture</code> is
+     * available on the GPU.
+     *
+     * @param texture   The texture whose state is queried.
+     *
+     * @return  Either <code>true</code>, if the texture may be used for
+     *          rendering, otherwise <code>false</code>.
+     */
+    synchronized boolean isReady(GLTexture texture) {
+        return this.uploads.isReady(
+                this.getAtlas(texture),
+                texture.getX(), texture.getY());
+    }
+
+    /**
+     * Removes the finished uploads from the list of pending ones.
+     *
+     * Uploads that failed on the upload thread are repeated by the calling
+     * thread, which needs to have a current OpenGL context.
+     *
+     * Since multiple renderers may share this instance, the result is a
+     * generation number instead of a flag: If it differs from the result of
+     * the caller's previous call, at least one upload has been completed in
+     * the meantime.
+     *
+     * @return  The number of times that completed uploads have been
+     *          collected so far.
+     *
+     * @throws RuntimeException If a failed upload failed again.
+     */
+    synchronized long collectUploads() {
+        return this.uploads.collect(this::repeat);
+    }
+
+    /**
+     * Blocks until all uploads into the specified <code>atlas</code> have
+     * been completed.
+     *
+     * NOTE:    The upload thread never acquires the monitor of this instance,
+     *          hence waiting while holding it cannot deadlock.
+     *
+     * @param atlas The atlas whose uploads shall be awaited, or
+     *              <code>null</code>, if all uploads shall be awaited.
+     *
+     * @throws RuntimeException If a failed upload failed again (see
+     *                          {@link #collectUploads()}).
+     */
+    synchronized void awaitUploads(GLTextureAtlas atlas) {
+        this.uploads.await(atlas);
+        this.uploads.collect(this::repeat);
+    }
+
+    /**
+     * Uploads the region of a failed upload synchronously.
+     */
+    private void repeat(UploadTracker.Upload<GLTextureAtlas> upload) {
+        this.bind(upload.getAtlas()).update(
+                upload.getX(), upload.getY(),
+                upload.getWidth(), upload.getHeight(),
+                upload.getData());
+
+        this.flushIfShared();
+    }
+
+    private void notifyUploadListeners() {
+        for (Runnable listener : this.uploadListeners)
+            listener.run();
+    }
+
+    /**
+     * Submits the preceding OpenGL commands, if other renderers (and thus
+     * other OpenGL contexts) use this instance. Otherwise, they might not
+     * observe the modifications of the shared textures.
+     */
+    private void flushIfShared() {
+        if (this.referenceCount > 1)
+            GL11.glFlush();
+    }
 }
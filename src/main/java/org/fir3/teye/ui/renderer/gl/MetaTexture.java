@@ -5,6 +5,7 @@ import org.fir3.teye.ui.renderer.ColorModel;
 import org.fir3.teye.util.PowerOfTwo;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL32;
 
 import java.nio.ByteBuffer;
 
@@ -68,6 +69,12 @@ class MetaTexture implements Disposable {
      */
     private int textureId;
 
+    /**
+     * The fence behind the most recent draw call that used this texture, or
+     * zero, if there is none (see {@link #fenceUse()}).
+     */
+    private long lastUseFence;
+
     /**
      * Creates a new instance.
      *
@@ -104,6 +111,11 @@ class MetaTexture implements Disposable {
 
     @Override
     public void dispose() {
+        if (this.lastUseFence != 0L) {
+            GL32.glDeleteSync(this.lastUseFence);
+            this.lastUseFence = 0L;
+        }
+
         if (this.textureId < 1)
             return;
 
@@ -389,6 +401,40 @@ class MetaTexture implements Disposable {
         GL11.glBindTexture(GL11.GL_TEXTURE_2D, this.textureId);
     }
 
+    /**
+     * Inserts a fence behind the preceding draw calls of the current OpenGL
+     * context, which is awaited by {@link #awaitUse()}.
+     *
+     * The caller needs to flush the context afterwards, otherwise other
+     * contexts may wait for the fence forever.
+     */
+    void fenceUse() {
+        if (this.lastUseFence != 0L)
+            GL32.glDeleteSync(this.lastUseFence);
+
+        this.lastUseFence = GL32.glFenceSync(
+                GL32.GL_SYNC_GPU_COMMANDS_COMPLETE,
+                0);
+    }
+
+    /**
+     * Lets the GPU wait until the draw calls before the most recent
+     * {@link #fenceUse()} have been completed, before it runs the following
+     * commands of the current OpenGL context.
+     *
+     * This is necessary before the content of the texture is replaced, while
+     * draw calls of another context that shares the texture may still be
+     * reading it.
+     */
+    void awaitUse() {
+        if (this.lastUseFence == 0L)
+            return;
+
+        GL32.glWaitSync(this.lastUseFence, 0, GL32.GL_TIMEOUT_IGNORED);
+        GL32.glDeleteSync(this.lastUseFence);
+        this.lastUseFence = 0L;
+    }
+
     private void requirePeer() {
         if (this.textureId > 0)
             return;
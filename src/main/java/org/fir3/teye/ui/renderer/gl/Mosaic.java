@@ -4,12 +4,17 @@ import lombok.AccessLevel;
 import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.fir3.teye.ui.renderer.ElementState;
+import org.fir3.teye.ui.renderer.RendererCounters;
 import org.fir3.teye.ui.renderer.Texture;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.*;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
 
 class Mosaic implements Disposable {
@@ -20,6 +25,12 @@ class Mosaic implements Disposable {
         private int minSlot;
         private int maxSlot;
 
+        /**
+         * The bounding box of the elements of this group on the screen,
+         * whose maximum coordinates are exclusive.
+         */
+        private int minX, minY, maxX, maxY;
+
         DrawingGroup(boolean singleTexture) {
             int textureSlots = MosaicShader.TEXTURES_ARRAY_SIZE;
 
@@ -70,11 +81,19 @@ class Mosaic implements Disposable {
     private static int ELEMENT_SIZE = 52;
     static int MAX_ELEMENTS = 100;
 
+    /**
+     * The size of the transform of an element, which consists of four signed
+     * 16 bit integers (<code>GL_RGBA16I</code>): The translation of the
+     * element, the index of its group (see {@link GLElementGroup#getIndex()})
+     * and an unused component.
+     */
+    private static final int TRANSFORM_SIZE = 8;
+
     private static void writeElementVertex(
             ByteBuffer dst,
             DrawingGroup group,
             GLTextureAtlas atlas,
-            GLElement element,
+            ElementState element,
             int vertex) {
         int x, y;
         int u, v;
@@ -136,22 +155,92 @@ class Mosaic implements Disposable {
     private final GLElement[] slots;
     private final List<DrawingGroup> drawingGroups;
     private final GLTextureManager textureManager;
+    private final RendererCounters counters;
     private int vaoId;
     private int vboId;
 
+    /**
+     * The position of each element, at the time its vertices have been
+     * written to the buffer.
+     */
+    private final int[] vertexX, vertexY;
+
+    /**
+     * The transform of each element, which the vertex shader applies to its
+     * vertices. The translation is the offset of the element from the
+     * position of its vertices, thus moving an element only updates its
+     * transform, instead of its four vertices. The same applies to changing
+     * the group of an element.
+     */
+    private final ByteBuffer transforms;
+
+    private int transformBufferId;
+    private int transformTextureId;
+
+    /**
+     * The range of slots whose transforms have been modified since the
+     * transforms have been uploaded the last time, or <code>-1</code>, if
+     * there are none.
+     */
+    private int minModifiedSlot, maxModifiedSlot;
+
     @Getter(AccessLevel.PACKAGE)
     private int minZIndex;
 
     @Getter(AccessLevel.PACKAGE)
     private int maxZIndex;
 
-    Mosaic(GLTextureManager textureManager) {
+    /**
+     * Whether any element of this mosaic has been modified since the buffer
+     * has been updated the last time.
+     */
+    private boolean dirty;
+
+    /**
+     * Whether the bounding boxes of the drawing groups need to be determined
+     * again, because an element has been moved.
+     */
+    private boolean boundsDirty;
+
+    /**
+     * The bounding box of all drawing groups, whose maximum coordinates are
+     * exclusive.
+     */
+    private int minX, minY, maxX, maxY;
+
+    /**
+     * The indices of the element groups that the elements of the drawing
+     * groups have been part of, when the bounding boxes have been determined
+     * the last time.
+     */
+    private final BitSet memberGroups;
+
+    /**
+     * The number of the frame in which the buffer has been updated the last
+     * time (see {@link RendererCounters#getFrameCount()}).
+     */
+    private long touchedFrame;
+
+    Mosaic(GLTextureManager textureManager, RendererCounters counters) {
         if (textureManager == null)
             throw new NullPointerException("textureManager is null!");
 
+        if (counters == null)
+            throw new NullPointerException("counters is null!");
+
         this.textureManager = textureManager;
+        this.counters = counters;
+        this.touchedFrame = -1L;
         this.slots = new GLElement[Mosaic.MAX_ELEMENTS];
         this.drawingGroups = new ArrayList<>();
+        this.memberGroups = new BitSet();
+        this.vertexX = new int[Mosaic.MAX_ELEMENTS];
+        this.vertexY = new int[Mosaic.MAX_ELEMENTS];
+        this.transforms = BufferUtils.createByteBuffer(
+                Mosaic.TRANSFORM_SIZE * Mosaic.MAX_ELEMENTS);
+
+        this.minModifiedSlot = -1;
+        this.maxModifiedSlot = -1;
 
         // TODO:    Adding some padding at the beginning and the end of slots
         //          may improve the performance, if somebody tries to put a
@@ -162,6 +251,8 @@ class Mosaic implements Disposable {
     public void dispose() {
         GL15.glDeleteBuffers(this.vboId);
         GL30.glDeleteVertexArrays(this.vaoId);
+        GL11.glDeleteTextures(this.transformTextureId);
+        GL15.glDeleteBuffers(this.transformBufferId);
     }
 
     void initialize(int elementVboId) {
@@ -206,6 +297,22 @@ class Mosaic implements Disposable {
 
         GL20.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, elementVboId);
         GL30.glBindVertexArray(0);
+
+        // Setting up the buffer texture that contains the transforms
+
+        this.transformBufferId = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL31.GL_TEXTURE_BUFFER, this.transformBufferId);
+        GL15.glBufferData(
+                GL31.GL_TEXTURE_BUFFER,
+                this.transforms,
+                GL15.GL_DYNAMIC_DRAW);
+
+        this.transformTextureId = GL11.glGenTextures();
+        GL11.glBindTexture(GL31.GL_TEXTURE_BUFFER, this.transformTextureId);
+        GL31.glTexBuffer(
+                GL31.GL_TEXTURE_BUFFER,
+                GL30.GL_RGBA16I,
+                this.transformBufferId);
     }
 
     GLElement insert(GLElement newElement) {
@@ -215,12 +322,13 @@ class Mosaic implements Disposable {
         // Determining the right slot index
 
         int slotIndex;
-        int newElementZIndex = newElement.getZIndex();
+        int newElementZIndex = newElement.getRenderState().getZIndex();
 
         for (slotIndex = this.slots.length; slotIndex > 0; slotIndex--) {
             GLElement nextSlot = this.slots[slotIndex - 1];
 
-            if (nextSlot == null || nextSlot.getZIndex() >= newElementZIndex)
+            if (nextSlot == null ||
+                    nextSlot.getRenderState().getZIndex() >= newElementZIndex)
                 continue;
 
             break;
@@ -240,6 +348,7 @@ class Mosaic implements Disposable {
 
         GLElement replacedElement = this.slots[slotIndex];
         this.slots[slotIndex] = newElement;
+        newElement.mosaic = this;
 
         for (int i = slotIndex + 1; i < this.slots.length; i++) {
             if (replacedElement == null)
@@ -261,7 +370,59 @@ class Mosaic implements Disposable {
         return replacedElement;
     }
 
-    void render() {
+    /**
+     * Appends the specified <code>elements</code>, starting at the
+     * <code>offset</code>, to the free slots after the last element of this
+     * mosaic, and updates the buffer once.
+     *
+     * NOTE:    The elements need to have a z-index that is not less than the
+     *          z-index of any element of this mosaic.
+     *
+     * @param elements  The new elements.
+     * @param offset    The index of the first element that is appended.
+     * @return  The number of appended elements, which may be less than the
+     *          remaining elements, if this mosaic became full.
+     */
+    int append(List<GLElement> elements, int offset) {
+        int slotIndex = this.slots.length;
+
+        while (slotIndex > 0 && this.slots[slotIndex - 1] == null)
+            slotIndex--;
+
+        int count = 0;
+
+        while (slotIndex < this.slots.length &&
+                offset + count < elements.size()) {
+            GLElement element = elements.get(offset + count++);
+
+            this.slots[slotIndex++] = element;
+            element.mosaic = this;
+        }
+
+        if (count > 0) {
+            this.determineZBoundaries();
+            this.generateDrawingGroups();
+            this.updateBuffer();
+        }
+
+        return count;
+    }
+
+    /**
+     * Draws the drawing groups of this mosaic that intersect the viewport.
+     *
+     * @param viewportWidth     The width of the viewport.
+     * @param viewportHeight    The height of the viewport.
+     */
+    void render(int viewportWidth, int viewportHeight) {
+        if (this.boundsDirty)
+            this.determineBounds();
+
+        if (this.drawingGroups.isEmpty() ||
+                this.maxX <= 0 || this.minX >= viewportWidth ||
+                this.maxY <= 0 || this.minY >= viewportHeight)
+            return;
+
         GL30.glBindVertexArray(this.vaoId);
 
         GL20.glEnableVertexAttribArray(
@@ -274,58 +435,74 @@ class Mosaic implements Disposable {
         GL20.glEnableVertexAttribArray(
                 MosaicShader.ATTRIB_LOCATION_V_TEXTURE_POSITION);
 
-        for (DrawingGroup group : this.drawingGroups) {
-            // Binding the textures
+        GL13.glActiveTexture(
+                GL13.GL_TEXTURE0 + MosaicShader.TRANSFORMS_TEXTURE_UNIT);
 
-            GLTextureAtlas[] assignments = group.getTextureAssignment();
+        GL11.glBindTexture(GL31.GL_TEXTURE_BUFFER, this.transformTextureId);
 
-            for (int i = 0; i < assignments.length; i++) {
-                GLTextureAtlas assignment = assignments[i];
+        int drawnGroups = 0;
 
-                if (assignment == null)
-                    continue;
+        for (DrawingGroup group : this.drawingGroups) {
+            // Skipping the groups outside of the viewport
 
-                GL13.glActiveTexture(GL13.GL_TEXTURE0 + i);
-                this.textureManager.bind(assignment);
-            }
+            if (group.getMaxX() <= 0 || group.getMinX() >= viewportWidth ||
+                    group.getMaxY() <= 0 ||
+                    group.getMinY() >= viewportHeight)
+                continue;
 
-            // Drawing the group
+            drawnGroups++;
 
+            GLTextureAtlas[] assignments = group.getTextureAssignment();
             int minSlot = group.getMinSlot();
             int maxSlot = group.getMaxSlot();
 
-            GL11.glDrawElements(
-                    GL11.GL_TRIANGLES,
-                    (maxSlot - minSlot + 1) * 6,
-                    GL11.GL_UNSIGNED_SHORT,
-                    minSlot * 6 * 2);
-        }
-    }
+            // NOTE:    The texture manager may be shared with the renderers of
+            //          other contexts. Holding its monitor prevents them from
+            //          assigning another atlas to the bound textures before
+            //          the group has been drawn.
 
-    boolean contains(GLElement element) {
-        for (GLElement potentialElement : this.slots) {
-            if (potentialElement != element)
-                continue;
+            synchronized (this.textureManager) {
+                // Binding the textures
 
-            return true;
-        }
+                for (int i = 0; i < assignments.length; i++) {
+                    GLTextureAtlas assignment = assignments[i];
 
-        return false;
-    }
+                    if (assignment == null)
+                        continue;
 
-    void remove(GLElement element) {
-        int index;
+                    GL13.glActiveTexture(GL13.GL_TEXTURE0 + i);
+                    this.textureManager.bind(assignment);
+                }
 
-        for (index = 0; index < this.slots.length; index++) {
-            if (this.slots[index] != element)
-                continue;
+                // Drawing the group
 
-            break;
+                GL11.glDrawElements(
+                        GL11.GL_TRIANGLES,
+                        (maxSlot - minSlot + 1) * 6,
+                        GL11.GL_UNSIGNED_SHORT,
+                        minSlot * 6 * 2);
+
+                this.textureManager.markUsed(assignments);
+            }
         }
 
-        if (index == this.slots.length)
+        // Each drawing group is drawn by a single draw call.
+
+        this.counters.countDraw(drawnGroups, drawnGroups);
+    }
+
+    boolean contains(GLElement element) {
+        return this.indexOf(element) > -1;
+    }
+
+    void remove(GLElement element) {
+        int index = this.indexOf(element);
+
+        if (index < 0)
             throw new IllegalArgumentException("element unknown!");
 
+        element.mosaic = null;
+
         // Move up
 
         for (int i = index; i < this.slots.length; i++) {
@@ -351,11 +528,213 @@ class Mosaic implements Disposable {
         this.updateBuffer();
     }
 
+    /**
+     * Removes all of the specified <code>elements</code> and updates the
+     * buffer once. The remaining elements keep their order.
+     *
+     * @param elements  The elements that shall be removed.
+     *
+     * @throws IllegalArgumentException If this mosaic does not contain any of
+     *                                  the <code>elements</code>.
+     */
+    void remove(Collection<GLElement> elements) {
+        for (GLElement element : elements) {
+            if (element.mosaic != this)
+                throw new IllegalArgumentException("element unknown!");
+        }
+
+        for (GLElement element : elements)
+            element.mosaic = null;
+
+        // Moving the remaining elements up
+
+        int count = 0;
+
+        for (int i = 0; i < this.slots.length; i++) {
+            GLElement slot = this.slots[i];
+
+            if (slot == null || slot.mosaic != this)
+                continue;
+
+            this.slots[count++] = slot;
+        }
+
+        Arrays.fill(this.slots, count, this.slots.length, null);
+
+        // Determining the new lowest and highest z-index; regenerating the
+        // drawing groups; updating the sub buffer
+
+        this.determineZBoundaries();
+        this.generateDrawingGroups();
+        this.updateBuffer();
+    }
+
     void update(GLElement element) {
         this.generateDrawingGroups();
         this.updateBuffer();
     }
 
+    /**
+     * Updates the transform of the specified <code>element</code> to its
+     * current position, without rewriting its vertices. The transform is
+     * uploaded by {@link #flushTransforms()}.
+     *
+     * @param element   The moved element.
+     * @return  Either <code>true</code>, if the transform has been updated,
+     *          or <code>false</code>, if the element has been moved too far
+     *          and its vertices need to be rewritten instead.
+     *
+     * @throws IllegalArgumentException If this mosaic does not contain the
+     *                                  <code>element</code>.
+     */
+    boolean move(GLElement element) {
+        int index = this.indexOf(element);
+
+        if (index < 0)
+            throw new IllegalArgumentException("element unknown!");
+
+        ElementState state = element.getRenderState();
+        int dx = state.getX() - this.vertexX[index];
+        int dy = state.getY() - this.vertexY[index];
+
+        if (dx < Short.MIN_VALUE || dx > Short.MAX_VALUE ||
+                dy < Short.MIN_VALUE || dy > Short.MAX_VALUE)
+            return false;
+
+        this.putTransform(index, dx, dy, Mosaic.getGroupIndex(element));
+        this.markTransformModified(index);
+        this.boundsDirty = true;
+
+        return true;
+    }
+
+    /**
+     * Updates the transform of the specified <code>element</code> after it
+     * has joined or left a group, without rewriting its vertices. The
+     * transform is uploaded by {@link #flushTransforms()}.
+     *
+     * @param element   The element whose group has been changed.
+     *
+     * @throws IllegalArgumentException If this mosaic does not contain the
+     *                                  <code>element</code>.
+     */
+    void regroup(GLElement element) {
+        int index = this.indexOf(element);
+
+        if (index < 0)
+            throw new IllegalArgumentException("element unknown!");
+
+        this.transforms.putShort(
+                index * Mosaic.TRANSFORM_SIZE + 4,
+                (short) Mosaic.getGroupIndex(element));
+
+        this.markTransformModified(index);
+        this.boundsDirty = true;
+    }
+
+    /**
+     * Removes all elements of this mosaic from the specified
+     * <code>group</code>, e.g. because it is being released.
+     *
+     * @param group The group that the elements shall leave.
+     */
+    void leave(GLElementGroup group) {
+        for (GLElement slot : this.slots) {
+            if (slot == null || slot.group != group)
+                continue;
+
+            slot.group = null;
+            this.regroup(slot);
+        }
+    }
+
+    /**
+     * Uploads the transforms that have been modified by
+     * {@link #move(GLElement)} or {@link #regroup(GLElement)}.
+     */
+    void flushTransforms() {
+        if (this.minModifiedSlot < 0)
+            return;
+
+        int offset = this.minModifiedSlot * Mosaic.TRANSFORM_SIZE;
+        ByteBuffer buf = this.transforms.duplicate();
+
+        buf.limit((this.maxModifiedSlot + 1) * Mosaic.TRANSFORM_SIZE);
+        buf.position(offset);
+
+        this.minModifiedSlot = -1;
+        this.maxModifiedSlot = -1;
+
+        GL15.glBindBuffer(GL31.GL_TEXTURE_BUFFER, this.transformBufferId);
+
+        this.countBufferUpdate(buf.remaining());
+        GL15.glBufferSubData(GL31.GL_TEXTURE_BUFFER, offset, buf);
+    }
+
+    /**
+     * Requests the bounding boxes to be determined again before the next
+     * drawing, if any element of this mosaic is part of one of the specified
+     * element groups.
+     *
+     * @param movedGroups   The indices of the element groups whose offset
+     *                      has been changed.
+     */
+    void markBoundsDirty(BitSet movedGroups) {
+        if (this.memberGroups.intersects(movedGroups))
+            this.boundsDirty = true;
+    }
+
+    /**
+     * Marks this mosaic as modified, without updating its buffer yet.
+     *
+     * @see #updateIfDirty()
+     */
+    void markDirty() {
+        this.dirty = true;
+    }
+
+    /**
+     * Updates the buffer of this mosaic, if it has been marked as modified.
+     * Otherwise, only the modified transforms are uploaded.
+     */
+    void updateIfDirty() {
+        if (this.dirty)
+            this.update(null);
+        else
+            this.flushTransforms();
+    }
+
+    private int indexOf(GLElement element) {
+        for (int i = 0; i < this.slots.length; i++) {
+            if (this.slots[i] == element)
+                return i;
+        }
+
+        return -1;
+    }
+
+    private static int getGroupIndex(GLElement element) {
+        GLElementGroup group = element.group;
+
+        return group == null ? GLElementGroup.NO_GROUP : group.getIndex();
+    }
+
+    private void putTransform(int slot, int dx, int dy, int groupIndex) {
+        int offset = slot * Mosaic.TRANSFORM_SIZE;
+
+        this.transforms.putShort(offset, (short) dx);
+        this.transforms.putShort(offset + 2, (short) dy);
+        this.transforms.putShort(offset + 4, (short) groupIndex);
+    }
+
+    private void markTransformModified(int slot) {
+        if (this.minModifiedSlot < 0 || slot < this.minModifiedSlot)
+            this.minModifiedSlot = slot;
+
+        if (slot > this.maxModifiedSlot)
+            this.maxModifiedSlot = slot;
+    }
+
     private void determineZBoundaries() {
         this.minZIndex = 0;
         this.maxZIndex = 0;
@@ -366,7 +745,7 @@ class Mosaic implements Disposable {
             if (slot == null)
                 continue;
 
-            this.minZIndex = slot.getZIndex();
+            this.minZIndex = slot.getRenderState().getZIndex();
             break;
         }
 
@@ -376,13 +755,68 @@ class Mosaic implements Disposable {
             if (slot == null)
                 continue;
 
-            this.maxZIndex = slot.getZIndex();
+            this.maxZIndex = slot.getRenderState().getZIndex();
             break;
         }
     }
 
+    /**
+     * Determines the bounding box of each drawing group and of the whole
+     * mosaic, including the offsets of the element groups.
+     */
+    private void determineBounds() {
+        this.boundsDirty = false;
+        this.minX = Integer.MAX_VALUE;
+        this.minY = Integer.MAX_VALUE;
+        this.maxX = Integer.MIN_VALUE;
+        this.maxY = Integer.MIN_VALUE;
+        this.memberGroups.clear();
+
+        for (DrawingGroup group : this.drawingGroups) {
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+
+            for (int i = group.getMinSlot(); i <= group.getMaxSlot(); i++) {
+                GLElement slot = this.slots[i];
+
+                if (slot == null)
+                    continue;
+
+                ElementState state = slot.getRenderState();
+                GLElementGroup elementGroup = slot.group;
+                int x = state.getX(), y = state.getY();
+
+                // NOTE:    The offset of the group buffer is used instead of
+                //          the resolved offset, which may have been changed
+                //          by another thread since.
+
+                if (elementGroup != null) {
+                    x += elementGroup.bufferX;
+                    y += elementGroup.bufferY;
+                    this.memberGroups.set(elementGroup.getIndex());
+                }
+
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x + state.getWidth());
+                maxY = Math.max(maxY, y + state.getHeight());
+            }
+
+            group.setMinX(minX);
+            group.setMinY(minY);
+            group.setMaxX(maxX);
+            group.setMaxY(maxY);
+
+            this.minX = Math.min(this.minX, minX);
+            this.minY = Math.min(this.minY, minY);
+            this.maxX = Math.max(this.maxX, maxX);
+            this.maxY = Math.max(this.maxY, maxY);
+        }
+    }
+
     private void generateDrawingGroups() {
         this.drawingGroups.clear();
+        this.boundsDirty = true;
 
         boolean singleTexture = (this.textureManager.getMode() ==
                 GLTextureManager.Mode.LowResource);
@@ -392,7 +826,10 @@ class Mosaic implements Disposable {
         for (int i = 0; i < this.slots.length; i++) {
             GLElement slot = this.slots[i];
 
-            if (slot == null) {
+            // Invisible elements are excluded from the drawing groups, just
+            // like unoccupied slots.
+
+            if (slot == null || !slot.getRenderState().isVisible()) {
                 if (currentGroup != null)
                     this.drawingGroups.add(currentGroup);
 
@@ -409,7 +846,7 @@ class Mosaic implements Disposable {
             // part of the current drawing group, or if we have an unoccupied
             // texture unit left.
 
-            Texture elTexture = slot.getTexture();
+            Texture elTexture = slot.getRenderState().getTexture();
 
             if (elTexture == null) {
                 currentGroup.setMaxSlot(i);
@@ -442,6 +879,7 @@ class Mosaic implements Disposable {
     private void updateBuffer() {
         // TODO:    Make this obsolet.
 
+        this.dirty = false;
         this.updateBuffer(0, Mosaic.MAX_ELEMENTS);
     }
 
@@ -457,6 +895,15 @@ class Mosaic implements Disposable {
                 continue;
             }
 
+            // The vertices are written at the current position, thus the
+            // element is not translated anymore.
+
+            ElementState state = slot.getRenderState();
+
+            this.vertexX[i] = state.getX();
+            this.vertexY[i] = state.getY();
+            this.putTransform(i, 0, 0, Mosaic.getGroupIndex(slot));
+
             // Determining the drawing group
 
             DrawingGroup group = null;
@@ -475,15 +922,25 @@ class Mosaic implements Disposable {
             // Resolving the atlas
 
             GLTextureAtlas atlas = null;
-            GLTexture texture = (GLTexture) slot.getTexture();
+            GLTexture texture = (GLTexture) slot.getRenderState()
+                    .getTexture();
+
+            // NOTE:    As long as the texture data is being uploaded, the
+            //          element is rendered without its texture. Invisible
+            //          elements are not part of any drawing group.
 
-            if (texture != null)
+            if (group != null && texture != null &&
+                    this.textureManager.isReady(texture))
                 atlas = this.textureManager.getAtlas(texture);
 
             // Writing the for vertices to the buffer
 
             for (int v = 0; v < 4; v++)
-                Mosaic.writeElementVertex(buf, group, atlas, slot, v);
+                Mosaic.writeElementVertex(
+                        buf,
+                        group, atlas,
+                        slot.getRenderState(),
+                        v);
         }
 
         buf.flip();
@@ -493,6 +950,25 @@ class Mosaic implements Disposable {
         GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, this.vboId);
 
         int dataOffset = slotOffset * Mosaic.ELEMENT_SIZE;
+        this.countBufferUpdate(buf.remaining());
+
         GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, dataOffset, buf);
+
+        // Resetting the transforms of the rewritten elements
+
+        this.minModifiedSlot = slotOffset;
+        this.maxModifiedSlot = slotOffset + slotCount - 1;
+        this.flushTransforms();
+    }
+
+    private void countBufferUpdate(int bytes) {
+        long frame = this.counters.getFrameCount();
+
+        if (this.touchedFrame != frame) {
+            this.touchedFrame = frame;
+            this.counters.countMosaicTouched();
+        }
+
+        this.counters.countBufferUpdate(bytes);
     }
 }
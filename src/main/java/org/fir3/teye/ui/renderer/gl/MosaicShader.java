@@ -17,6 +17,8 @@ class MosaicShader implements Disposable {
             "projection_matrix";
 
     private static final String UNIFORM_TEXTURES = "textures";
+    private static final String UNIFORM_TRANSFORMS = "transforms";
+    private static final String UNIFORM_GROUPS = "groups";
     private static final String IN_V_POSITION = "v_position";
     private static final String IN_V_COLOR = "v_color";
     private static final String IN_V_TEXTURE_INDEX = "v_texture_index";
@@ -29,6 +31,20 @@ class MosaicShader implements Disposable {
 
     static final int TEXTURES_ARRAY_SIZE = 16;
 
+    /**
+     * The texture unit of the buffer texture that contains the transforms
+     * of the elements, which follows the units of the textures.
+     */
+    static final int TRANSFORMS_TEXTURE_UNIT =
+            MosaicShader.TEXTURES_ARRAY_SIZE;
+
+    /**
+     * The texture unit of the buffer texture that contains the resolved
+     * attributes of the element groups.
+     */
+    static final int GROUPS_TEXTURE_UNIT =
+            MosaicShader.TRANSFORMS_TEXTURE_UNIT + 1;
+
     private static int createShader(int shaderType, String source) {
         int shaderId = GL20.glCreateShader(shaderType);
         GL20.glShaderSource(shaderId, source);
@@ -47,6 +63,8 @@ class MosaicShader implements Disposable {
     private final int[] texturesLocations;
     private int vertexShaderId, fragmentShaderId, programId;
     private int projectionMatrixLocation;
+    private int transformsLocation;
+    private int groupsLocation;
 
     MosaicShader() {
         this.texturesLocations = new int[MosaicShader.TEXTURES_ARRAY_SIZE];
@@ -68,6 +86,8 @@ class MosaicShader implements Disposable {
         this.vertexShaderId = 0;
         this.fragmentShaderId = 0;
         this.projectionMatrixLocation = 0;
+        this.transformsLocation = 0;
+        this.groupsLocation = 0;
 
         for (int i = 0; i < MosaicShader.TEXTURES_ARRAY_SIZE; i++)
             this.texturesLocations[i] = 0;
@@ -144,12 +164,28 @@ class MosaicShader implements Disposable {
                     this.programId,
                     MosaicShader.UNIFORM_TEXTURES + "[" + i + "]");
 
+        this.transformsLocation = GL20.glGetUniformLocation(
+                this.programId,
+                MosaicShader.UNIFORM_TRANSFORMS);
+
+        this.groupsLocation = GL20.glGetUniformLocation(
+                this.programId,
+                MosaicShader.UNIFORM_GROUPS);
+
         // Binding the texture units to the texture locations
 
         GL20.glUseProgram(this.programId);
 
         for (int i = 0; i < MosaicShader.TEXTURES_ARRAY_SIZE; i++)
             GL20.glUniform1i(this.texturesLocations[i], i);
+
+        GL20.glUniform1i(
+                this.transformsLocation,
+                MosaicShader.TRANSFORMS_TEXTURE_UNIT);
+
+        GL20.glUniform1i(
+                this.groupsLocation,
+                MosaicShader.GROUPS_TEXTURE_UNIT);
     }
 
     /**
@@ -0,0 +1,228 @@
+package org.fir3.teye.ui.renderer.gl;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of the regions of texture atlases whose pixel data is being
+ * uploaded by another thread.
+ *
+ * The uploading thread reports the outcome of each upload by either
+ * {@link Upload#complete()} or {@link Upload#fail(RuntimeException)}. All
+ * other methods are not thread-safe and need to be synchronized by the
+ * owner of the instance.
+ *
+ * @param <A>   The type of the texture atlases.
+ */
+final class UploadTracker<A> {
+    /**
+     * A texture region whose data is being uploaded.
+     *
+     * @param <A>   The type of the texture atlas.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    static final class Upload<A> {
+        private final A atlas;
+        private final int x, y;
+        private final int width, height;
+
+        /**
+         * The pixel data of the region, which is kept for repeating the
+         * upload, if it failed.
+         */
+        private final ByteBuffer data;
+
+        @Getter(AccessLevel.NONE)
+        private final CompletableFuture<Void> completion;
+
+        Upload(
+                A atlas,
+                int x, int y,
+                int width, int height,
+                ByteBuffer data) {
+            this.atlas = atlas;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.data = data;
+            this.completion = new CompletableFuture<>();
+        }
+
+        /**
+         * Reports that the data of the region is available on the GPU.
+         */
+        void complete() {
+            this.completion.complete(null);
+        }
+
+        /**
+         * Reports that the data of the region could not be uploaded.
+         *
+         * @param cause The reason of the failure.
+         */
+        void fail(RuntimeException cause) {
+            this.completion.completeExceptionally(cause);
+        }
+
+        boolean isDone() {
+            return this.completion.isDone();
+        }
+
+        boolean isFailed() {
+            return this.completion.isCompletedExceptionally();
+        }
+
+        /**
+         * Blocks until the upload has either been completed or failed.
+         */
+        void await() {
+            try {
+                this.completion.join();
+            } catch (CompletionException ex) {
+                // NOTE:    Failed uploads are handled by collect(Consumer).
+            }
+        }
+    }
+
+    /**
+     * The uploads that have been added, but that have not been collected by
+     * {@link #collect(Consumer)} yet.
+     */
+    private final List<Upload<A>> pending;
+
+    /**
+     * The number of times that {@link #collect(Consumer)} collected at least
+     * one finished upload.
+     */
+    private long generation;
+
+    UploadTracker() {
+        this.pending = new ArrayList<>();
+    }
+
+    /**
+     * Starts tracking the upload of the specified region.
+     *
+     * @return  The upload, whose outcome needs to be reported by the
+     *          uploading thread.
+     */
+    Upload<A> add(
+            A atlas,
+            int x, int y,
+            int width, int height,
+            ByteBuffer data) {
+        Upload<A> upload = new Upload<>(atlas, x, y, width, height, data);
+        this.pending.add(upload);
+
+        return upload;
+    }
+
+    /**
+     * Stops tracking the specified <code>upload</code>, e.g. because it has
+     * never been started.
+     */
+    void remove(Upload<A> upload) {
+        this.pending.remove(upload);
+    }
+
+    /**
+     * Stops tracking all uploads.
+     */
+    void clear() {
+        this.pending.clear();
+    }
+
+    /**
+     * Returns whether all uploads into the region at the specified position
+     * of the <code>atlas</code> have been completed successfully.
+     *
+     * NOTE:    There may be multiple uploads to the same region, if a texture
+     *          has been destroyed and another one took its place.
+     */
+    boolean isReady(A atlas, int x, int y) {
+        for (Upload<A> upload : this.pending) {
+            if (upload.atlas != atlas || upload.x != x || upload.y != y)
+                continue;
+
+            if (!upload.isDone() || upload.isFailed())
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Blocks until all uploads into the specified <code>atlas</code> have
+     * either been completed or failed.
+     *
+     * @param atlas The atlas whose uploads shall be awaited, or
+     *              <code>null</code>, if all uploads shall be awaited.
+     */
+    void await(A atlas) {
+        for (Upload<A> upload : this.pending) {
+            if (atlas == null || upload.atlas == atlas)
+                upload.await();
+        }
+    }
+
+    /**
+     * Stops tracking the uploads that have either been completed or failed.
+     *
+     * Since multiple renderers may share the tracked atlases, the result is
+     * a generation number instead of a flag: If it differs from the result of
+     * the caller's previous call, at least one upload has finished in the
+     * meantime.
+     *
+     * @param failedUploadHandler   Called for each failed upload, which needs
+     *                              to be repeated by the caller.
+     *
+     * @return  The number of times that finished uploads have been collected
+     *          so far.
+     */
+    long collect(Consumer<Upload<A>> failedUploadHandler) {
+        List<Upload<A>> failed = null;
+        boolean collected = false;
+        Iterator<Upload<A>> it = this.pending.iterator();
+
+        while (it.hasNext()) {
+            Upload<A> upload = it.next();
+
+            if (!upload.isDone())
+                continue;
+
+            it.remove();
+            collected = true;
+
+            if (!upload.isFailed())
+                continue;
+
+            if (failed == null)
+                failed = new ArrayList<>();
+
+            failed.add(upload);
+        }
+
+        if (collected)
+            this.generation++;
+
+        // NOTE:    The handler is called after the iteration, because it may
+        //          throw an exception, which must not leave the remaining
+        //          finished uploads behind.
+
+        if (failed != null) {
+            for (Upload<A> upload : failed)
+                failedUploadHandler.accept(upload);
+        }
+
+        return this.generation;
+    }
+}
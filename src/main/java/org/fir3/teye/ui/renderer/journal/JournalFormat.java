@@ -0,0 +1,48 @@
+package org.fir3.teye.ui.renderer.journal;
+
+import org.fir3.teye.ui.renderer.ElementAttribute;
+
+/**
+ * The constants of the binary journal format.
+ *
+ * A journal starts with {@link #MAGIC} and {@link #VERSION}, followed by a
+ * sequence of records. Every record starts with its opcode (one byte) and the
+ * time since the previous record in microseconds (an int). The payload
+ * depends on the opcode:
+ *
+ * <ul>
+ *     <li>{@link #NEW_ELEMENT}, {@link #RELEASE_ELEMENT}: the element id</li>
+ *     <li>{@link #MODIFY_ELEMENT}: the element id, the bitmask of the
+ *     modified attributes and one int per modified attribute, in the order of
+ *     {@link ElementAttribute}. Textures are stored by their id, or
+ *     {@link #NO_TEXTURE}.</li>
+ *     <li>{@link #NEW_TEXTURE}: the texture id, width, height, the ordinal of
+ *     the color model, the length of the pixel data and the pixel data</li>
+ *     <li>{@link #RELEASE_TEXTURE}: the texture id</li>
+ *     <li>{@link #RENDER}: nothing</li>
+ * </ul>
+ *
+ * All values are stored in big-endian byte order.
+ */
+final class JournalFormat {
+    static final int MAGIC = 0x5445594A; // "TEYJ"
+    static final int VERSION = 1;
+
+    static final byte NEW_ELEMENT = 1;
+    static final byte RELEASE_ELEMENT = 2;
+    static final byte MODIFY_ELEMENT = 3;
+    static final byte NEW_TEXTURE = 4;
+    static final byte RELEASE_TEXTURE = 5;
+    static final byte RENDER = 6;
+
+    static final int NO_TEXTURE = -1;
+
+    /**
+     * The size of the opcode and the time of a record.
+     */
+    static final int RECORD_HEADER_SIZE = 5;
+
+    static final ElementAttribute[] ATTRIBUTES = ElementAttribute.values();
+
+    private JournalFormat() { }
+}
@@ -0,0 +1,371 @@
+package org.fir3.teye.ui.renderer.journal;
+
+import org.fir3.teye.ui.renderer.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a journal that has been written by a {@link JournalWriter} against
+ * a {@link Renderer}.
+ *
+ * The elements and textures of the journal are created anew by the target
+ * renderer, and all modifications of a single record are applied as one edit
+ * (see {@link Element#beginEdit()}). Elements and textures that are still in
+ * use at the end of the journal are released.
+ *
+ * NOTE:    The replay calls {@link Renderer#render()}, thus it must be run by
+ *          the rendering thread of the target renderer.
+ */
+public final class JournalReplayer {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param path  The path of the journal file.
+     *
+     * @throws NullPointerException If <code>path</code> is <code>null</code>.
+     */
+    public JournalReplayer(Path path) {
+        if (path == null)
+            throw new NullPointerException("path is null!");
+
+        this.path = path;
+    }
+
+    /**
+     * Replays the journal against the specified <code>renderer</code>.
+     *
+     * @param renderer  The renderer that shall perform the recorded
+     *                  operations.
+     *
+     * @param timing    The pace of the replay.
+     *
+     * @return  The number of rendered frames.
+     *
+     * @throws IOException              If the journal cannot be read.
+     * @throws IllegalStateException    If the journal is corrupt.
+     * @throws NullPointerException     If <code>renderer</code> or
+     *                                  <code>timing</code> is
+     *                                  <code>null</code>.
+     */
+    public int replay(Renderer<?> renderer, ReplayTiming timing)
+            throws IOException {
+        if (renderer == null)
+            throw new NullPointerException("renderer is null!");
+
+        if (timing == null)
+            throw new NullPointerException("timing is null!");
+
+        try (FileChannel channel = FileChannel.open(
+                this.path,
+                StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(
+                    JournalReplayer.BUFFER_SIZE);
+
+            buffer.flip();
+
+            JournalReplayer.require(channel, buffer, 8);
+
+            if (buffer.getInt() != JournalFormat.MAGIC ||
+                    buffer.getInt() != JournalFormat.VERSION)
+                throw new IllegalStateException("Invalid journal!");
+
+            Map<Integer, Element> elements = new HashMap<>();
+            Map<Integer, Texture> textures = new HashMap<>();
+
+            try {
+                return JournalReplayer.replay(
+                        channel, buffer,
+                        renderer, timing,
+                        elements, textures);
+            } finally {
+                for (Element element : elements.values())
+                    renderer.release(element);
+
+                for (Texture texture : textures.values())
+                    renderer.release(texture);
+            }
+        }
+    }
+
+    private static int replay(
+            FileChannel channel,
+            ByteBuffer buffer,
+            Renderer<?> renderer,
+            ReplayTiming timing,
+            Map<Integer, Element> elements,
+            Map<Integer, Texture> textures) throws IOException {
+        long recordNanos = System.nanoTime();
+        int frameCount = 0;
+
+        while (JournalReplayer.fill(channel, buffer, 1)) {
+            JournalReplayer.require(
+                    channel, buffer,
+                    JournalFormat.RECORD_HEADER_SIZE);
+
+            byte opcode = buffer.get();
+            recordNanos += buffer.getInt() * 1000L;
+
+            if (timing == ReplayTiming.ORIGINAL)
+                JournalReplayer.waitUntil(recordNanos);
+
+            switch (opcode) {
+                case JournalFormat.NEW_ELEMENT:
+                    JournalReplayer.require(channel, buffer, 4);
+                    elements.put(buffer.getInt(), renderer.newElement());
+                    break;
+
+                case JournalFormat.RELEASE_ELEMENT:
+                    JournalReplayer.require(channel, buffer, 4);
+                    renderer.release(JournalReplayer.get(
+                            elements.remove(buffer.getInt())));
+
+                    break;
+
+                case JournalFormat.MODIFY_ELEMENT:
+                    JournalReplayer.modify(channel, buffer, elements, textures);
+                    break;
+
+                case JournalFormat.NEW_TEXTURE:
+                    JournalReplayer.newTexture(
+                            channel, buffer,
+                            renderer,
+                            textures);
+
+                    break;
+
+                case JournalFormat.RELEASE_TEXTURE:
+                    JournalReplayer.require(channel, buffer, 4);
+                    renderer.release(JournalReplayer.get(
+                            textures.remove(buffer.getInt())));
+
+                    break;
+
+                case JournalFormat.RENDER:
+                    renderer.render();
+                    frameCount++;
+                    break;
+
+                default:
+                    throw new IllegalStateException("Invalid opcode!");
+            }
+        }
+
+        return frameCount;
+    }
+
+    private static void modify(
+            FileChannel channel,
+            ByteBuffer buffer,
+            Map<Integer, Element> elements,
+            Map<Integer, Texture> textures) throws IOException {
+        JournalReplayer.require(channel, buffer, 8);
+
+        Element element = JournalReplayer.get(elements.get(buffer.getInt()));
+        int modifiedAttributes = buffer.getInt();
+
+        JournalReplayer.require(
+                channel, buffer,
+                4 * Integer.bitCount(modifiedAttributes));
+
+        element.beginEdit();
+
+        try {
+            for (ElementAttribute attribute : JournalFormat.ATTRIBUTES) {
+                if ((modifiedAttributes & attribute.getMask()) == 0)
+                    continue;
+
+                int value = buffer.getInt();
+
+                if (attribute == ElementAttribute.TEXTURE) {
+                    element.setTexture(value == JournalFormat.NO_TEXTURE
+                            ? null
+                            : JournalReplayer.get(textures.get(value)));
+
+                    continue;
+                }
+
+                JournalReplayer.apply(element, attribute, value);
+            }
+        } finally {
+            element.commitEdit();
+        }
+    }
+
+    private static void newTexture(
+            FileChannel channel,
+            ByteBuffer buffer,
+            Renderer<?> renderer,
+            Map<Integer, Texture> textures) throws IOException {
+        JournalReplayer.require(channel, buffer, 20);
+
+        int id = buffer.getInt();
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int pixelFormat = buffer.getInt();
+        int length = buffer.getInt();
+
+        ColorModel[] colorModels = ColorModel.values();
+
+        if (pixelFormat < 0 || pixelFormat >= colorModels.length || length < 0)
+            throw new IllegalStateException("Invalid texture!");
+
+        ByteBuffer data = ByteBuffer.allocateDirect(length)
+                .order(ByteOrder.nativeOrder());
+
+        // The pixel data may exceed the buffer, thus the buffered part is
+        // copied first and the rest is read directly.
+
+        int buffered = Math.min(length, buffer.remaining());
+        ByteBuffer slice = buffer.slice();
+
+        slice.limit(buffered);
+        data.put(slice);
+        buffer.position(buffer.position() + buffered);
+
+        while (data.hasRemaining()) {
+            if (channel.read(data) < 0)
+                throw new EOFException("Truncated journal!");
+        }
+
+        data.flip();
+        textures.put(id, renderer.newTexture(
+                width, height,
+                data,
+                colorModels[pixelFormat]));
+    }
+
+    private static void apply(
+            Element element,
+            ElementAttribute attribute,
+            int value) {
+        switch (attribute) {
+            case X:
+                element.setX(value);
+                break;
+
+            case Y:
+                element.setY(value);
+                break;
+
+            case WIDTH:
+                element.setWidth(value);
+                break;
+
+            case HEIGHT:
+                element.setHeight(value);
+                break;
+
+            case RED_COMPONENT:
+                element.setRed(value);
+                break;
+
+            case GREEN_COMPONENT:
+                element.setGreen(value);
+                break;
+
+            case BLUE_COMPONENT:
+                element.setBlue(value);
+                break;
+
+            case ALPHA_COMPONENT:
+                element.setAlpha(value);
+                break;
+
+            case TEXTURE_X:
+                element.setTextureX(value);
+                break;
+
+            case TEXTURE_Y:
+                element.setTextureY(value);
+                break;
+
+            case TEXTURE_WIDTH:
+                element.setTextureWidth(value);
+                break;
+
+            case TEXTURE_HEIGHT:
+                element.setTextureHeight(value);
+                break;
+
+            case Z_INDEX:
+                element.setZIndex(value);
+                break;
+
+            case VISIBLE:
+                element.setVisible(value != 0);
+                break;
+
+            default:
+                throw new IllegalArgumentException("Invalid attribute!");
+        }
+    }
+
+    private static <T> T get(T value) {
+        if (value == null)
+            throw new IllegalStateException("Unknown id!");
+
+        return value;
+    }
+
+    private static void waitUntil(long deadlineNanos) {
+        long remaining;
+
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0L)
+            LockSupport.parkNanos(remaining);
+    }
+
+    /**
+     * Ensures that the <code>buffer</code> contains at least
+     * <code>count</code> bytes.
+     *
+     * @throws EOFException If the journal ends before.
+     */
+    private static void require(
+            FileChannel channel,
+            ByteBuffer buffer,
+            int count) throws IOException {
+        if (!JournalReplayer.fill(channel, buffer, count))
+            throw new EOFException("Truncated journal!");
+    }
+
+    /**
+     * Reads from the <code>channel</code>, until the <code>buffer</code>
+     * contains at least <code>count</code> bytes.
+     *
+     * @return  Either <code>true</code>, if the buffer contains enough bytes,
+     *          otherwise <code>false</code>, if the journal ended before.
+     */
+    private static boolean fill(
+            FileChannel channel,
+            ByteBuffer buffer,
+            int count) throws IOException {
+        if (buffer.remaining() >= count)
+            return true;
+
+        buffer.compact();
+
+        try {
+            while (buffer.position() < count) {
+                if (channel.read(buffer) < 0)
+                    return false;
+            }
+        } finally {
+            buffer.flip();
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,290 @@
+package org.fir3.teye.ui.renderer.journal;
+
+import org.fir3.teye.ui.renderer.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A {@link RendererRecorder} that writes all operations of a renderer into a
+ * binary journal file, which may be replayed by a {@link JournalReplayer}.
+ *
+ * The records are collected in a direct buffer and written to the file, once
+ * the buffer is full, thus recording does not block on I/O for every
+ * operation.
+ *
+ * Elements and textures that have been created before the writer has been
+ * assigned to the renderer are unknown to the journal, therefore their
+ * operations are not recorded.
+ *
+ * NOTE:    Since the recorder methods cannot throw checked exceptions, I/O
+ *          errors are reported by {@link IllegalStateException}s.
+ */
+public final class JournalWriter implements RendererRecorder, Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final Map<Element, Integer> elementIds;
+    private final Map<Texture, Integer> textureIds;
+
+    private int nextElementId, nextTextureId;
+    private long lastRecordNanos;
+    private boolean closed;
+
+    /**
+     * Creates a new journal file at the specified <code>path</code>. An
+     * existing file is overwritten.
+     *
+     * @param path  The path of the journal file.
+     *
+     * @throws IOException          If the file cannot be created.
+     * @throws NullPointerException If <code>path</code> is <code>null</code>.
+     */
+    public JournalWriter(Path path) throws IOException {
+        if (path == null)
+            throw new NullPointerException("path is null!");
+
+        this.channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        this.buffer = ByteBuffer.allocateDirect(JournalWriter.BUFFER_SIZE);
+        this.elementIds = new IdentityHashMap<>();
+        this.textureIds = new IdentityHashMap<>();
+        this.lastRecordNanos = System.nanoTime();
+
+        this.buffer.putInt(JournalFormat.MAGIC);
+        this.buffer.putInt(JournalFormat.VERSION);
+    }
+
+    @Override
+    public synchronized void elementCreated(Element element) {
+        if (!this.beginRecord(JournalFormat.NEW_ELEMENT, 4))
+            return;
+
+        int id = this.nextElementId++;
+
+        this.elementIds.put(element, id);
+        this.buffer.putInt(id);
+    }
+
+    @Override
+    public synchronized void elementReleased(Element element) {
+        Integer id = this.elementIds.remove(element);
+
+        if (id == null || !this.beginRecord(JournalFormat.RELEASE_ELEMENT, 4))
+            return;
+
+        this.buffer.putInt(id);
+    }
+
+    @Override
+    public synchronized void elementModified(
+            Element element,
+            int modifiedAttributes,
+            ElementState state) {
+        Integer id = this.elementIds.get(element);
+
+        if (id == null)
+            return;
+
+        int size = 8 + 4 * Integer.bitCount(modifiedAttributes);
+
+        if (!this.beginRecord(JournalFormat.MODIFY_ELEMENT, size))
+            return;
+
+        this.buffer.putInt(id);
+        this.buffer.putInt(modifiedAttributes);
+
+        for (ElementAttribute attribute : JournalFormat.ATTRIBUTES) {
+            if ((modifiedAttributes & attribute.getMask()) != 0)
+                this.buffer.putInt(this.valueOf(attribute, state));
+        }
+    }
+
+    @Override
+    public synchronized void textureCreated(
+            Texture texture,
+            ByteBuffer data,
+            ColorModel pixelFormat) {
+        if (!this.beginRecord(JournalFormat.NEW_TEXTURE, 20))
+            return;
+
+        data = data.duplicate();
+
+        int id = this.nextTextureId++;
+        this.textureIds.put(texture, id);
+
+        this.buffer.putInt(id);
+        this.buffer.putInt(texture.getWidth());
+        this.buffer.putInt(texture.getHeight());
+        this.buffer.putInt(pixelFormat.ordinal());
+        this.buffer.putInt(data.remaining());
+
+        // The pixel data may exceed the buffer, thus it is written directly,
+        // if it does not fit.
+
+        if (data.remaining() <= this.buffer.remaining()) {
+            this.buffer.put(data);
+            return;
+        }
+
+        this.flush();
+
+        try {
+            while (data.hasRemaining())
+                this.channel.write(data);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot write journal!", ex);
+        }
+    }
+
+    @Override
+    public synchronized void textureReleased(Texture texture) {
+        Integer id = this.textureIds.remove(texture);
+
+        if (id == null || !this.beginRecord(JournalFormat.RELEASE_TEXTURE, 4))
+            return;
+
+        this.buffer.putInt(id);
+    }
+
+    @Override
+    public synchronized void frameRendered() {
+        this.beginRecord(JournalFormat.RENDER, 0);
+    }
+
+    /**
+     * Writes all pending records to the file and closes it.
+     *
+     * Any operation that is reported afterwards is ignored.
+     *
+     * @throws IOException  If writing the pending records fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed)
+            return;
+
+        this.closed = true;
+
+        try {
+            this.buffer.flip();
+
+            while (this.buffer.hasRemaining())
+                this.channel.write(this.buffer);
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Writes the header of a record into the buffer and ensures that there is
+     * enough space for its payload.
+     *
+     * @param opcode        The opcode of the record.
+     * @param payloadSize   The number of bytes that follow the header.
+     *
+     * @return  Either <code>true</code>, if the record shall be written,
+     *          otherwise <code>false</code>, if this writer has been closed.
+     */
+    private boolean beginRecord(byte opcode, int payloadSize) {
+        if (this.closed)
+            return false;
+
+        if (this.buffer.remaining() <
+                JournalFormat.RECORD_HEADER_SIZE + payloadSize)
+            this.flush();
+
+        long now = System.nanoTime();
+        long elapsedMicros = (now - this.lastRecordNanos) / 1000L;
+
+        // NOTE:    Only the microseconds that have been written are consumed,
+        //          so that the rounding errors do not add up.
+
+        this.lastRecordNanos += elapsedMicros * 1000L;
+
+        this.buffer.put(opcode);
+        this.buffer.putInt((int) Math.min(elapsedMicros, Integer.MAX_VALUE));
+
+        return true;
+    }
+
+    private void flush() {
+        this.buffer.flip();
+
+        try {
+            while (this.buffer.hasRemaining())
+                this.channel.write(this.buffer);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot write journal!", ex);
+        } finally {
+            this.buffer.clear();
+        }
+    }
+
+    private int valueOf(ElementAttribute attribute, ElementState state) {
+        switch (attribute) {
+            case X:
+                return state.getX();
+
+            case Y:
+                return state.getY();
+
+            case WIDTH:
+                return state.getWidth();
+
+            case HEIGHT:
+                return state.getHeight();
+
+            case RED_COMPONENT:
+                return state.getRed();
+
+            case GREEN_COMPONENT:
+                return state.getGreen();
+
+            case BLUE_COMPONENT:
+                return state.getBlue();
+
+            case ALPHA_COMPONENT:
+                return state.getAlpha();
+
+            case TEXTURE:
+                Integer id = state.getTexture() == null
+                        ? null
+                        : this.textureIds.get(state.getTexture());
+
+                return id == null ? JournalFormat.NO_TEXTURE : id;
+
+            case TEXTURE_X:
+                return state.getTextureX();
+
+            case TEXTURE_Y:
+                return state.getTextureY();
+
+            case TEXTURE_WIDTH:
+                return state.getTextureWidth();
+
+            case TEXTURE_HEIGHT:
+                return state.getTextureHeight();
+
+            case Z_INDEX:
+                return state.getZIndex();
+
+            case VISIBLE:
+                return state.isVisible() ? 1 : 0;
+
+            default:
+                throw new IllegalArgumentException("Invalid attribute!");
+        }
+    }
+}
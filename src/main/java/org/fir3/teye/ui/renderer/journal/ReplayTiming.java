@@ -0,0 +1,17 @@
+package org.fir3.teye.ui.renderer.journal;
+
+/**
+ * Determines the pace at which a {@link JournalReplayer} replays a journal.
+ */
+public enum ReplayTiming {
+    /**
+     * The records are replayed as fast as possible.
+     */
+    FULL_SPEED,
+
+    /**
+     * Every record is replayed no earlier than it has been recorded, relative
+     * to the start of the replay.
+     */
+    ORIGINAL
+}
@@ -0,0 +1,181 @@
+package org.fir3.teye.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative <code>long</code> values with a logarithmic
+ * bucket layout (in the style of HdrHistogram).
+ *
+ * Values below {@link #SUB_BUCKET_COUNT} are counted exactly, while larger
+ * values are counted in buckets whose width grows with the magnitude of the
+ * value. The relative error of any reported value is therefore bounded by
+ * roughly <code>1 / (SUB_BUCKET_COUNT / 2)</code>.
+ *
+ * Recording a value never allocates and is safe to be done by multiple
+ * threads concurrently. Reading while values are being recorded returns an
+ * approximate result.
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << Histogram.SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT =
+            Histogram.SUB_BUCKET_COUNT / 2;
+
+    /**
+     * The number of buckets that is required to cover all positive
+     * <code>long</code> values.
+     */
+    private static final int BUCKET_COUNT = Histogram.SUB_BUCKET_COUNT +
+            (64 - Histogram.SUB_BUCKET_BITS) * Histogram.HALF_SUB_BUCKET_COUNT;
+
+    /**
+     * Returns the index of the bucket that counts the specified
+     * <code>value</code>.
+     *
+     * @param value A non-negative value.
+     * @return  The index of the corresponding bucket.
+     */
+    static int indexOf(long value) {
+        if (value < Histogram.SUB_BUCKET_COUNT)
+            return (int) value;
+
+        // The group of a value is determined by its magnitude. Each group
+        // contains HALF_SUB_BUCKET_COUNT buckets that are twice as wide as the
+        // buckets of the previous group.
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int group = magnitude - Histogram.SUB_BUCKET_BITS + 1;
+        int subIndex = (int) (value >>> group)
+                - Histogram.HALF_SUB_BUCKET_COUNT;
+
+        return Histogram.SUB_BUCKET_COUNT
+                + (group - 1) * Histogram.HALF_SUB_BUCKET_COUNT
+                + subIndex;
+    }
+
+    /**
+     * Returns the value in the middle of the bucket at the specified
+     * <code>index</code>.
+     *
+     * @param index The index of the bucket.
+     * @return  The representative value of the bucket.
+     */
+    static long valueOf(int index) {
+        if (index < Histogram.SUB_BUCKET_COUNT)
+            return index;
+
+        int offset = index - Histogram.SUB_BUCKET_COUNT;
+        int group = offset / Histogram.HALF_SUB_BUCKET_COUNT + 1;
+        long sub = offset % Histogram.HALF_SUB_BUCKET_COUNT
+                + Histogram.HALF_SUB_BUCKET_COUNT;
+
+        return (sub << group) + ((1L << group) >>> 1);
+    }
+
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount;
+    private final AtomicLong maximum;
+
+    public Histogram() {
+        this.counts = new AtomicLongArray(Histogram.BUCKET_COUNT);
+        this.totalCount = new AtomicLong();
+        this.maximum = new AtomicLong();
+    }
+
+    /**
+     * Records the specified <code>value</code>.
+     *
+     * @param value The value that shall be recorded. Negative values are
+     *              recorded as zero.
+     */
+    public void record(long value) {
+        if (value < 0L)
+            value = 0L;
+
+        this.counts.incrementAndGet(Histogram.indexOf(value));
+        this.totalCount.incrementAndGet();
+
+        long max;
+
+        do {
+            max = this.maximum.get();
+
+            if (max >= value)
+                break;
+        } while (!this.maximum.compareAndSet(max, value));
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return  The number of recorded values.
+     */
+    public long getCount() {
+        return this.totalCount.get();
+    }
+
+    /**
+     * Returns the greatest recorded value.
+     *
+     * @return  The greatest recorded value or zero, if nothing has been
+     *          recorded yet.
+     */
+    public long getMaximum() {
+        return this.maximum.get();
+    }
+
+    /**
+     * Returns the (approximated) value below or at which the specified
+     * <code>percentile</code> of all recorded values are.
+     *
+     * @param percentile    The percentile between 0.0 and 100.0 (both
+     *                      inclusive).
+     *
+     * @return  The value at the specified <code>percentile</code>, or zero,
+     *          if nothing has been recorded yet.
+     *
+     * @throws IllegalArgumentException If <code>percentile</code> is not
+     *                                  between 0.0 and 100.0.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0)
+            throw new IllegalArgumentException("Invalid percentile!");
+
+        long total = this.totalCount.get();
+
+        if (total == 0L)
+            return 0L;
+
+        long threshold = Math.max(1L, (long) Math.ceil(
+                total * percentile / 100.0));
+
+        long count = 0L;
+
+        for (int i = 0; i < Histogram.BUCKET_COUNT; i++) {
+            count += this.counts.get(i);
+
+            // NOTE:    The last bucket is represented by the exact maximum,
+            //          thus the 100th percentile is not approximated.
+
+            if (count >= total)
+                break;
+
+            if (count >= threshold)
+                return Math.min(Histogram.valueOf(i), this.maximum.get());
+        }
+
+        return this.maximum.get();
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < Histogram.BUCKET_COUNT; i++)
+            this.counts.set(i, 0L);
+
+        this.totalCount.set(0L);
+        this.maximum.set(0L);
+    }
+}
@@ -1,6 +1,8 @@
 #version 150 core
 
 uniform mat4 projection_matrix;
+uniform isamplerBuffer transforms;
+uniform isamplerBuffer groups;
 
 in vec2 v_position;
 in vec4 v_color;
@@ -12,9 +14,23 @@ flat out int f_texture_index;
 out vec2 f_texture_position;
 
 void main() {
-    /* Calculating the position of the current vertex. */
+    /*
+     * Calculating the position of the current vertex.
+     *
+     * NOTE:    Each element consists of four consecutive vertices. If an
+     *          element has been moved, only its translation is updated,
+     *          instead of its vertices. The group of the element adds its
+     *          offset and opacity.
+     */
+
+    ivec4 transform = texelFetch(transforms, gl_VertexID / 4);
+    ivec4 group = texelFetch(groups, transform.z);
+    vec2 translation = vec2(transform.xy + group.xy);
 
-    gl_Position = projection_matrix * vec4(v_position.xy, 0.0, 1.0);
+    gl_Position = projection_matrix * vec4(
+        v_position.xy + translation,
+        0.0,
+        1.0);
 
     /*
      * Passing the required information to the fragment shader.
@@ -27,7 +43,7 @@ void main() {
         v_color.r / 255.0,
         v_color.g / 255.0,
         v_color.b / 255.0,
-        v_color.a / 255.0);
+        v_color.a / 255.0 * (group.z / 255.0));
 
     f_texture_index = v_texture_index;
     f_texture_position = v_texture_position;
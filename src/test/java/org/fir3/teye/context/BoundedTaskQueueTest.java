@@ -0,0 +1,321 @@
+package org.fir3.teye.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedTaskQueueTest {
+    private static final Runnable NO_WAKEUP = () -> { };
+
+    @Test
+    public void testConstructorArgumentValidation() {
+        // Invalid capacity
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new BoundedTaskQueue(
+                        0,
+                        OverflowPolicy.BLOCK,
+                        BoundedTaskQueueTest.NO_WAKEUP));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new BoundedTaskQueue(
+                        1,
+                        OverflowPolicy.BLOCK,
+                        BoundedTaskQueueTest.NO_WAKEUP));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new BoundedTaskQueue(
+                        12,
+                        OverflowPolicy.BLOCK,
+                        BoundedTaskQueueTest.NO_WAKEUP));
+
+        // Missing policy or wakeup
+
+        assertThrows(
+                NullPointerException.class,
+                () -> new BoundedTaskQueue(16, OverflowPolicy.BLOCK, null));
+
+        assertThrows(
+                NullPointerException.class,
+                () -> new BoundedTaskQueue(
+                        16,
+                        null,
+                        BoundedTaskQueueTest.NO_WAKEUP));
+    }
+
+    @Test
+    public void testOfferNull() {
+        BoundedTaskQueue queue = new BoundedTaskQueue(
+                16,
+                OverflowPolicy.COALESCE_BY_KEY,
+                BoundedTaskQueueTest.NO_WAKEUP);
+
+        assertThrows(NullPointerException.class, () -> queue.offer(null));
+        assertThrows(
+                NullPointerException.class,
+                () -> queue.offer("key", null));
+    }
+
+    @Test
+    public void testOrderingAndSize() {
+        BoundedTaskQueue queue = new BoundedTaskQueue(
+                16,
+                OverflowPolicy.BLOCK,
+                BoundedTaskQueueTest.NO_WAKEUP);
+
+        List<Integer> order = new ArrayList<>();
+
+        // Wrap around the ring multiple times.
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 16; i++) {
+                int value = i;
+                queue.offer(() -> order.add(value));
+            }
+
+            assertEquals(16, queue.size());
+            assertEquals(16, queue.drain(Integer.MAX_VALUE, Long.MAX_VALUE));
+            assertEquals(0, queue.size());
+            assertTrue(queue.isEmpty());
+        }
+
+        for (int i = 0; i < order.size(); i++)
+            assertEquals(i % 16, order.get(i));
+
+        assertNull(queue.poll());
+        assertEquals(48, queue.getLatencyHistogram().getCount());
+    }
+
+    @Test
+    public void testDropOldest() {
+        BoundedTaskQueue queue = new BoundedTaskQueue(
+                4,
+                OverflowPolicy.DROP_OLDEST,
+                BoundedTaskQueueTest.NO_WAKEUP);
+
+        List<Integer> order = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            queue.offer(() -> order.add(value));
+        }
+
+        // Only the newest four tasks survive.
+
+        assertEquals(4, queue.size());
+        assertEquals(6L, queue.getDroppedCount());
+        assertEquals(4, queue.drain(Integer.MAX_VALUE, Long.MAX_VALUE));
+
+        assertEquals(4, order.size());
+
+        for (int i = 0; i < 4; i++)
+            assertEquals(6 + i, order.get(i));
+    }
+
+    @Test
+    public void testDropOldestDiscardsTasks() {
+        BoundedTaskQueue queue = new BoundedTaskQueue(
+                2,
+                OverflowPolicy.DROP_OLDEST,
+                BoundedTaskQueueTest.NO_WAKEUP);
+
+        List<String> events = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            String name = "task" + i;
+
+            queue.offer(new TaskQueue.DiscardableTask() {
+                @Override
+                public void discarded() {
+                    events.add(name + " discarded");
+                }
+
+                @Override
+                public void run() {
+                    events.add(name + " run");
+                }
+            });
+        }
+
+        assertEquals(2, queue.drain(Integer.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(3, events.size());
+        assertEquals("task0 discarded", events.get(0));
+        assertEquals("task1 run", events.get(1));
+        assertEquals("task2 run", events.get(2));
+    }
+
+    @Test
+    public void testCoalesceByKey() {
+        BoundedTaskQueue queue = new BoundedTaskQueue(
+                4,
+                OverflowPolicy.COALESCE_BY_KEY,
+                BoundedTaskQueueTest.NO_WAKEUP);
+
+        List<String> order = new ArrayList<>();
+
+        // Many updates of the same key occupy a single slot only, while the
+        // position of the first update is kept.
+
+        queue.offer(() -> order.add("first"));
+
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            queue.offer("a", () -> order.add("a" + value));
+            queue.offer("b", () -> order.add("b" + value));
+        }
+
+        queue.offer(() -> order.add("last"));
+
+        assertEquals(4, queue.size());
+        assertEquals(198L, queue.getCoalescedCount());
+        assertEquals(4, queue.drain(Integer.MAX_VALUE, Long.MAX_VALUE));
+
+        assertEquals(4, order.size());
+        assertEquals("first", order.get(0));
+        assertEquals("a99", order.get(1));
+        assertEquals("b99", order.get(2));
+        assertEquals("last", order.get(3));
+
+        // After the pending task has been run, the key is enqueued again.
+
+        queue.offer("a", () -> order.add("again"));
+
+        assertEquals(1, queue.drain(Integer.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals("again", order.get(4));
+    }
+
+    @Test
+    public void testKeyIgnoredByOtherPolicies() {
+        BoundedTaskQueue queue = new BoundedTaskQueue(
+                4,
+                OverflowPolicy.BLOCK,
+                BoundedTaskQueueTest.NO_WAKEUP);
+
+        AtomicInteger counter = new AtomicInteger();
+
+        queue.offer("a", counter::incrementAndGet);
+        queue.offer("a", counter::incrementAndGet);
+
+        assertEquals(2, queue.drain(Integer.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(2, counter.get());
+        assertEquals(0L, queue.getCoalescedCount());
+    }
+
+    @Test
+    public void testBlockingProducers() throws InterruptedException {
+        int producerCount = 8;
+        int tasksPerProducer = 10_000;
+
+        // The capacity is much smaller than the number of tasks, thus the
+        // producers need to wait for the consumer.
+
+        BoundedTaskQueue queue = new BoundedTaskQueue(
+                64,
+                OverflowPolicy.BLOCK,
+                BoundedTaskQueueTest.NO_WAKEUP);
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger counter = new AtomicInteger();
+        int[] lastValues = new int[producerCount];
+        boolean[] outOfOrder = new boolean[1];
+        Thread[] producers = new Thread[producerCount];
+
+        for (int p = 0; p < producerCount; p++) {
+            int producer = p;
+
+            lastValues[p] = -1;
+            producers[p] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+
+                for (int i = 0; i < tasksPerProducer; i++) {
+                    int value = i;
+
+                    queue.offer(() -> {
+                        if (lastValues[producer] + 1 != value)
+                            outOfOrder[0] = true;
+
+                        lastValues[producer] = value;
+                        counter.incrementAndGet();
+                    });
+                }
+            });
+
+            producers[p].start();
+        }
+
+        start.countDown();
+
+        int expected = producerCount * tasksPerProducer;
+        long deadline = System.nanoTime() + 30_000_000_000L;
+
+        while (counter.get() < expected && System.nanoTime() < deadline) {
+            assertTrue(queue.size() <= 64);
+            queue.drain(16, Long.MAX_VALUE);
+        }
+
+        for (Thread producer : producers)
+            producer.join();
+
+        assertEquals(expected, counter.get());
+        assertFalse(outOfOrder[0]);
+        assertTrue(queue.isEmpty());
+        assertEquals(0L, queue.getDroppedCount());
+        assertEquals(expected, queue.getLatencyHistogram().getCount());
+    }
+
+    @Test
+    public void testBlockedProducerWakesUpConsumer() {
+        // The consumer waits like a context thread that waits for events: it
+        // only runs tasks after it has been woken up, and the producer wakes
+        // it up only after the whole batch has been enqueued.
+
+        int batchSize = 100;
+        AtomicInteger counter = new AtomicInteger();
+
+        // NOTE:    The consumer is the thread that runs the timed executable.
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            Thread consumer = Thread.currentThread();
+            BoundedTaskQueue queue = new BoundedTaskQueue(
+                    8,
+                    OverflowPolicy.BLOCK,
+                    () -> LockSupport.unpark(consumer));
+
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < batchSize; i++)
+                    queue.offer(counter::incrementAndGet);
+
+                LockSupport.unpark(consumer);
+            });
+
+            producer.start();
+
+            while (counter.get() < batchSize) {
+                queue.drain(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+                if (counter.get() < batchSize && queue.isEmpty())
+                    LockSupport.park(this);
+            }
+
+            producer.join();
+
+            assertTrue(queue.getBlockedHistogram().getCount() > 0);
+        });
+
+        assertEquals(batchSize, counter.get());
+    }
+}
@@ -0,0 +1,82 @@
+package org.fir3.teye.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContextExecutorTest {
+    private final AtomicInteger wakeupCount = new AtomicInteger();
+
+    private ContextExecutor createExecutor(TaskQueue tasks) {
+        return new ContextExecutor(
+                () -> false,
+                this.wakeupCount::incrementAndGet,
+                tasks);
+    }
+
+    @Test
+    public void testExecuteAllRejectsNullBeforeEnqueuing() {
+        ContextExecutor executor = this.createExecutor(new LinkedTaskQueue());
+        AtomicInteger runCount = new AtomicInteger();
+        Runnable task = runCount::incrementAndGet;
+
+        assertThrows(
+                NullPointerException.class,
+                () -> executor.executeAll(Arrays.asList(task, null, task)));
+
+        // Nothing has been enqueued, which would wait for a wakeup.
+
+        assertEquals(0, executor.getQueueDepth());
+        assertEquals(0, executor.drain(Integer.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(0, runCount.get());
+
+        executor.executeAll(Arrays.asList(task, task));
+
+        assertEquals(1, this.wakeupCount.get());
+        assertEquals(2, executor.drain(Integer.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(2, runCount.get());
+    }
+
+    @Test
+    public void testInternalTasksBypassOverflowPolicy() {
+        ContextExecutor executor = this.createExecutor(new BoundedTaskQueue(
+                2,
+                OverflowPolicy.DROP_OLDEST,
+                this.wakeupCount::incrementAndGet));
+
+        AtomicInteger runCount = new AtomicInteger();
+        AtomicInteger internalRunCount = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++)
+            executor.execute(runCount::incrementAndGet);
+
+        CompletableFuture<Void> internal =
+                executor.submitInternal(internalRunCount::incrementAndGet);
+
+        // Neither the full queue nor later tasks discard the internal task.
+
+        for (int i = 0; i < 4; i++)
+            executor.execute(runCount::incrementAndGet);
+
+        assertFalse(internal.isDone());
+        assertFalse(executor.isEmpty());
+
+        // The internal task is run first and does not count towards the
+        // limit of tasks.
+
+        assertEquals(2, executor.drain(1, Long.MAX_VALUE));
+        assertTrue(internal.isDone());
+        assertFalse(internal.isCompletedExceptionally());
+        assertEquals(1, internalRunCount.get());
+        assertEquals(1, runCount.get());
+
+        executor.drain(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+        assertTrue(executor.isEmpty());
+        assertEquals(2, runCount.get());
+    }
+}
@@ -0,0 +1,70 @@
+package org.fir3.teye.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ContextTest {
+    private static final long TIMEOUT_SECONDS = 10L;
+
+    /**
+     * Returns whether the native libraries of GLFW can be loaded.
+     */
+    private static boolean isWindowSystemAvailable() {
+        try {
+            Class.forName("org.lwjgl.glfw.GLFW");
+            return true;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    @Test
+    public void testInContextThread() throws Exception {
+        assumeTrue(ContextTest.isWindowSystemAvailable());
+
+        Context first = Context.create(64, 64, RenderApi.OpenGL_Headless);
+        Context second = Context.create(64, 64, RenderApi.OpenGL_Headless);
+
+        try {
+            // The calling thread is no context thread at all.
+
+            assertFalse(Context.inContextThread());
+            assertNull(Context.current());
+            assertFalse(first.getExecutor().inContextThread());
+            assertFalse(second.getExecutor().inContextThread());
+
+            // The thread of the first context is a context thread, but not
+            // the thread of the second context.
+
+            Boolean[] states = first.getExecutor()
+                    .submit(() -> new Boolean[] {
+                            Context.inContextThread(),
+                            Context.current() == first,
+                            first.getExecutor().inContextThread(),
+                            second.getExecutor().inContextThread()
+                    })
+                    .get(ContextTest.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            assertArrayEquals(
+                    new Boolean[] { true, true, true, false },
+                    states);
+
+            // The static methods address the context of the calling thread,
+            // even if it is not the default context. A task of the own
+            // context is run immediately.
+
+            Context target = second.getExecutor()
+                    .submit(() -> Context.submit(Context::current).join())
+                    .get(ContextTest.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            assertSame(second, target);
+        } finally {
+            first.requestClose();
+            second.requestClose();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.fir3.teye.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameTimerTest {
+    @Test
+    public void testConstructorArgumentValidation() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new FrameTimer(0L, null));
+    }
+
+    @Test
+    public void testFrameCounting() throws InterruptedException {
+        AtomicInteger reportedFrames = new AtomicInteger();
+        AtomicInteger reportedDrops = new AtomicInteger();
+
+        FrameTimer timer = new FrameTimer(
+                1_000_000L,
+                (tasks, render, present, wait, rendered, dropped) -> {
+                    if (rendered) reportedFrames.incrementAndGet();
+                    if (dropped)  reportedDrops.incrementAndGet();
+                });
+
+        timer.begin();
+
+        // A fast frame, a frame that exceeds the budget and an iteration
+        // without rendering
+
+        timer.lap(FramePhase.TASKS);
+        timer.lap(FramePhase.RENDER);
+        timer.lap(FramePhase.PRESENT);
+        timer.lap(FramePhase.WAIT);
+        timer.endFrame(true);
+
+        timer.lap(FramePhase.TASKS);
+        Thread.sleep(5L);
+        timer.lap(FramePhase.RENDER);
+        timer.lap(FramePhase.PRESENT);
+        timer.lap(FramePhase.WAIT);
+        timer.endFrame(true);
+
+        timer.lap(FramePhase.TASKS);
+        timer.lap(FramePhase.WAIT);
+        timer.endFrame(false);
+
+        assertEquals(2L, timer.getFrameCount());
+        assertEquals(1L, timer.getDroppedFrameCount());
+        assertEquals(2, reportedFrames.get());
+        assertEquals(1, reportedDrops.get());
+
+        assertTrue(timer.getMaximumNanos(FramePhase.RENDER) >= 5_000_000L);
+        assertTrue(timer.getPercentileMicros("RENDER", 100.0) >= 5_000L);
+
+        timer.reset();
+        assertEquals(0L, timer.getFrameCount());
+        assertEquals(0L, timer.getDroppedFrameCount());
+    }
+}
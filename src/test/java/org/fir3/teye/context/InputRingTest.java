@@ -0,0 +1,114 @@
+package org.fir3.teye.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InputRingTest {
+    private static final class RecordingListener implements InputListener {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void keyChanged(int key, int scancode, int action, int mods) {
+            this.events.add("key " + key + " " + action);
+        }
+
+        @Override
+        public void characterTyped(int codepoint) {
+            this.events.add("char " + codepoint);
+        }
+
+        @Override
+        public void mouseButtonChanged(int button, int action, int mods) {
+            this.events.add("button " + button + " " + action);
+        }
+
+        @Override
+        public void cursorMoved(double x, double y) {
+            this.events.add("cursor " + x + " " + y);
+        }
+
+        @Override
+        public void scrolled(double dx, double dy) {
+            this.events.add("scroll " + dx + " " + dy);
+        }
+    }
+
+    @Test
+    public void testConstructorArgumentValidation() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new InputRing(0, () -> {}));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new InputRing(3, () -> {}));
+
+        assertThrows(
+                NullPointerException.class,
+                () -> new InputRing(4, null));
+    }
+
+    @Test
+    public void testCoalescing() {
+        InputRing ring = new InputRing(16, () -> {});
+        InputBatch batch = new InputBatch(16);
+        RecordingListener listener = new RecordingListener();
+
+        // Consecutive cursor moves and scroll events are coalesced, but not
+        // across other events.
+
+        ring.offerCursorPos(1.0, 1.0);
+        ring.offerCursorPos(2.0, 3.0);
+        ring.offerMouseButton(0, 1, 0);
+        ring.offerCursorPos(4.0, 5.0);
+        ring.offerScroll(0.0, 1.0);
+        ring.offerScroll(0.5, 2.0);
+        ring.offerKey(65, 0, 1, 0);
+        ring.offerChar(97);
+
+        ring.drainTo(batch);
+        assertTrue(ring.isEmpty());
+        assertEquals(6, batch.size());
+
+        batch.dispatch(listener);
+
+        assertEquals(6, listener.events.size());
+        assertEquals("cursor 2.0 3.0", listener.events.get(0));
+        assertEquals("button 0 1", listener.events.get(1));
+        assertEquals("cursor 4.0 5.0", listener.events.get(2));
+        assertEquals("scroll 0.5 3.0", listener.events.get(3));
+        assertEquals("key 65 1", listener.events.get(4));
+        assertEquals("char 97", listener.events.get(5));
+
+        // The batch is reused for the next frame.
+
+        ring.drainTo(batch);
+        assertTrue(batch.isEmpty());
+    }
+
+    @Test
+    public void testWakeupAndOverflow() {
+        AtomicInteger wakeups = new AtomicInteger();
+        InputRing ring = new InputRing(4, wakeups::incrementAndGet);
+        InputBatch batch = new InputBatch(4);
+
+        // Only the first event after draining wakes up the consumer.
+
+        for (int i = 0; i < 6; i++)
+            ring.offerCursorPos(i, i);
+
+        assertEquals(1, wakeups.get());
+        assertEquals(2L, ring.getDroppedCount());
+
+        ring.drainTo(batch);
+        assertEquals(1, batch.size());
+
+        ring.offerChar(1);
+        assertEquals(2, wakeups.get());
+    }
+}
@@ -0,0 +1,137 @@
+package org.fir3.teye.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LinkedTaskQueueTest {
+    @Test
+    public void testConstructorArgumentValidation() {
+        // Negative pool size
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new LinkedTaskQueue(-1));
+    }
+
+    @Test
+    public void testOfferNull() {
+        LinkedTaskQueue queue = new LinkedTaskQueue();
+
+        assertThrows(NullPointerException.class, () -> queue.offer(null));
+    }
+
+    @Test
+    public void testOrdering() {
+        LinkedTaskQueue queue = new LinkedTaskQueue(4);
+        List<Integer> order = new ArrayList<>();
+
+        // Offering more tasks than pooled nodes exist, forces the queue to
+        // allocate additional nodes, which must not affect the order.
+
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            queue.offer(() -> order.add(value));
+        }
+
+        assertFalse(queue.isEmpty());
+        assertEquals(10, queue.drain(Integer.MAX_VALUE, Long.MAX_VALUE));
+        assertTrue(queue.isEmpty());
+
+        for (int i = 0; i < 10; i++)
+            assertEquals(i, order.get(i));
+
+        // Since everything has been drained, there should not be anything
+        // left.
+
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testDrainBudget() {
+        LinkedTaskQueue queue = new LinkedTaskQueue();
+        AtomicInteger counter = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++)
+            queue.offer(counter::incrementAndGet);
+
+        // The count budget limits the number of tasks per call.
+
+        assertEquals(3, queue.drain(3, Long.MAX_VALUE));
+        assertEquals(3, counter.get());
+
+        // A time budget of zero still runs a single task, because it is
+        // checked after each task.
+
+        assertEquals(1, queue.drain(Integer.MAX_VALUE, 0L));
+        assertEquals(4, counter.get());
+
+        // The remaining tasks are still available.
+
+        assertEquals(6, queue.drain(Integer.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(10, counter.get());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        int producerCount = 8;
+        int tasksPerProducer = 20_000;
+
+        LinkedTaskQueue queue = new LinkedTaskQueue(64);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger counter = new AtomicInteger();
+        int[] lastValues = new int[producerCount];
+        boolean[] outOfOrder = new boolean[1];
+        Thread[] producers = new Thread[producerCount];
+
+        for (int p = 0; p < producerCount; p++) {
+            int producer = p;
+
+            lastValues[p] = -1;
+            producers[p] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+
+                for (int i = 0; i < tasksPerProducer; i++) {
+                    int value = i;
+
+                    queue.offer(() -> {
+                        // The tasks of a single producer need to be run in
+                        // the order of their submission.
+
+                        if (lastValues[producer] + 1 != value)
+                            outOfOrder[0] = true;
+
+                        lastValues[producer] = value;
+                        counter.incrementAndGet();
+                    });
+                }
+            });
+
+            producers[p].start();
+        }
+
+        start.countDown();
+
+        int expected = producerCount * tasksPerProducer;
+        long deadline = System.nanoTime() + 30_000_000_000L;
+
+        while (counter.get() < expected && System.nanoTime() < deadline)
+            queue.drain(100, Long.MAX_VALUE);
+
+        for (Thread producer : producers)
+            producer.join();
+
+        assertEquals(expected, counter.get());
+        assertFalse(outOfOrder[0]);
+        assertTrue(queue.isEmpty());
+    }
+}
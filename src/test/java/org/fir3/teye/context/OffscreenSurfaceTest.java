@@ -0,0 +1,43 @@
+package org.fir3.teye.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffscreenSurfaceTest {
+    @Test
+    public void testFlipRows() {
+        // One leading byte, then three rows of two bytes each
+
+        ByteBuffer buf = ByteBuffer.wrap(new byte[] { 9, 1, 1, 2, 2, 3, 3 });
+
+        OffscreenSurface.flipRows(buf, 1, 2, 3);
+
+        assertArrayEquals(
+                new byte[] { 9, 3, 3, 2, 2, 1, 1 },
+                buf.array());
+
+        // The position of the buffer is left untouched.
+
+        assertEquals(0, buf.position());
+
+        OffscreenSurface.flipRows(buf, 1, 2, 2);
+
+        assertArrayEquals(
+                new byte[] { 9, 2, 2, 3, 3, 1, 1 },
+                buf.array());
+    }
+
+    @Test
+    public void testConstructorParameterValidation() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new OffscreenSurface(0, 1));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new OffscreenSurface(1, 0));
+    }
+}
@@ -0,0 +1,28 @@
+package org.fir3.teye.context;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PresentationPolicyTest {
+    @Test
+    public void testFrameCap() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> PresentationPolicy.frameCap(0));
+
+        PresentationPolicy policy = PresentationPolicy.frameCap(50);
+
+        assertEquals(PresentationPolicy.Mode.FRAME_CAP, policy.getMode());
+        assertEquals(20_000_000L, policy.getFrameIntervalNanos());
+    }
+
+    @Test
+    public void testUncappedPolicies() {
+        assertEquals(0L, PresentationPolicy.vsync().getFrameIntervalNanos());
+        assertEquals(0L, PresentationPolicy.adaptive().getFrameIntervalNanos());
+        assertEquals(
+                0L,
+                PresentationPolicy.unthrottled().getFrameIntervalNanos());
+    }
+}
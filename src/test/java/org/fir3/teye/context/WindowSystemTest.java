@@ -0,0 +1,16 @@
+package org.fir3.teye.context;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WindowSystemTest {
+    @Test
+    public void testNoWakeupWithoutGLFW() {
+        // GLFW has neither been initialized nor terminated yet, thus it must
+        // not be called at all.
+
+        assertNull(WindowSystem.getOwner());
+        assertFalse(WindowSystem.postEmptyEvent());
+    }
+}
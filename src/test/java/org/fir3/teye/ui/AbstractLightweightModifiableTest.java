@@ -0,0 +1,321 @@
+package org.fir3.teye.ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AbstractLightweightModifiableTest {
+    private static final class TestModification implements Modification {
+        @Override
+        public void reset() { }
+    }
+
+    private static final class TestModifiable
+            extends AbstractLightweightModifiable<
+                TestModifiable,
+                TestModification> {
+        // Expose the protected methods to the test
+
+        TestModification obtain() {
+            return this.obtainModification();
+        }
+
+        void report(TestModification modification) {
+            this.notifyModified(modification);
+        }
+    }
+
+    private static class RecordingListener
+            implements ModificationListener<TestModifiable, TestModification> {
+        private final List<TestModification> notified = new ArrayList<>();
+        private final List<TestModification> released = new ArrayList<>();
+
+        @Override
+        public void notifyModified(
+                TestModifiable modified,
+                TestModification modification) {
+            this.notified.add(modification);
+        }
+
+        @Override
+        public TestModification newModification() {
+            return new TestModification();
+        }
+
+        @Override
+        public void releaseModification(
+                TestModification modification,
+                boolean reuse) {
+            this.released.add(modification);
+        }
+    }
+
+    @Test
+    public void testWithoutListener() {
+        TestModifiable modifiable = new TestModifiable();
+
+        assertNull(modifiable.obtain());
+        assertFalse(modifiable.hasListener());
+    }
+
+    @Test
+    public void testNotify() {
+        TestModifiable modifiable = new TestModifiable();
+        RecordingListener listener = new RecordingListener();
+
+        modifiable.setModificationListener(listener);
+
+        TestModification mod = modifiable.obtain();
+        modifiable.report(mod);
+
+        assertEquals(1, listener.notified.size());
+        assertSame(mod, listener.notified.get(0));
+        assertTrue(listener.released.isEmpty());
+    }
+
+    @Test
+    public void testListenerSwap() {
+        TestModifiable modifiable = new TestModifiable();
+        RecordingListener oldListener = new RecordingListener();
+        RecordingListener newListener = new RecordingListener();
+
+        modifiable.setModificationListener(oldListener);
+        TestModification mod = modifiable.obtain();
+
+        // The modification of the old listener must not reach the new one,
+        // but it has to be returned to the old one.
+
+        modifiable.setModificationListener(newListener);
+        modifiable.report(mod);
+
+        assertTrue(oldListener.notified.isEmpty());
+        assertEquals(1, oldListener.released.size());
+        assertSame(mod, oldListener.released.get(0));
+        assertTrue(newListener.notified.isEmpty());
+        assertTrue(newListener.released.isEmpty());
+
+        // The same listener being assigned again is a swap as well
+
+        mod = modifiable.obtain();
+        modifiable.setModificationListener(newListener);
+        modifiable.report(mod);
+
+        assertTrue(newListener.notified.isEmpty());
+        assertEquals(1, newListener.released.size());
+    }
+
+    /**
+     * A listener that takes a while to handle a notification and counts the
+     * notifications that are still running after it has been replaced.
+     */
+    private static final class SlowListener
+            implements ModificationListener<TestModifiable, TestModification> {
+        private final CountDownLatch notified = new CountDownLatch(1);
+        private final AtomicBoolean replaced = new AtomicBoolean();
+        private final AtomicInteger lateNotifications;
+
+        private SlowListener(AtomicInteger lateNotifications) {
+            this.lateNotifications = lateNotifications;
+        }
+
+        @Override
+        public void notifyModified(
+                TestModifiable modified,
+                TestModification modification) {
+            this.notified.countDown();
+
+            try {
+                Thread.sleep(1L);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (this.replaced.get())
+                this.lateNotifications.incrementAndGet();
+        }
+
+        @Override
+        public TestModification newModification() {
+            return new TestModification();
+        }
+
+        @Override
+        public void releaseModification(
+                TestModification modification,
+                boolean reuse) {
+            // NOTE:    A modification that has been obtained before the swap
+            //          is still returned to this listener.
+        }
+    }
+
+    @Test
+    public void testConcurrentListenerSwap() throws InterruptedException {
+        TestModifiable modifiable = new TestModifiable();
+        AtomicInteger lateNotifications = new AtomicInteger();
+        AtomicBoolean stopped = new AtomicBoolean();
+
+        Thread notifier = new Thread(() -> {
+            while (!stopped.get()) {
+                TestModification mod = modifiable.obtain();
+
+                if (mod == null)
+                    Thread.yield();
+                else
+                    modifiable.report(mod);
+            }
+        });
+
+        notifier.start();
+
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                for (int i = 0; i < 50; i++) {
+                    SlowListener listener =
+                            new SlowListener(lateNotifications);
+
+                    modifiable.setModificationListener(listener);
+                    listener.notified.await();
+
+                    // The listener is notified right now, thus the swap has
+                    // to wait until the notification has finished.
+
+                    modifiable.setModificationListener(null);
+                    listener.replaced.set(true);
+                }
+            });
+        } finally {
+            stopped.set(true);
+            notifier.join();
+        }
+
+        assertEquals(0, lateNotifications.get());
+    }
+
+    /**
+     * A listener that blocks each notification until its gate is opened.
+     */
+    private static final class GatedListener
+            implements ModificationListener<TestModifiable, TestModification> {
+        private final CountDownLatch[] gates;
+        private final CountDownLatch[] entered;
+        private final AtomicBoolean[] finished;
+        private final AtomicInteger notificationCount = new AtomicInteger();
+
+        private GatedListener(int count) {
+            this.gates = new CountDownLatch[count];
+            this.entered = new CountDownLatch[count];
+            this.finished = new AtomicBoolean[count];
+
+            for (int i = 0; i < count; i++) {
+                this.gates[i] = new CountDownLatch(1);
+                this.entered[i] = new CountDownLatch(1);
+                this.finished[i] = new AtomicBoolean();
+            }
+        }
+
+        @Override
+        public void notifyModified(
+                TestModifiable modified,
+                TestModification modification) {
+            int index = this.notificationCount.getAndIncrement();
+            this.entered[index].countDown();
+
+            try {
+                this.gates[index].await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            this.finished[index].set(true);
+        }
+
+        @Override
+        public TestModification newModification() {
+            return new TestModification();
+        }
+
+        @Override
+        public void releaseModification(
+                TestModification modification,
+                boolean reuse) { }
+    }
+
+    @Test
+    public void testSwapAwaitsConcurrentNotifiers() throws Exception {
+        TestModifiable modifiable = new TestModifiable();
+        GatedListener listener = new GatedListener(2);
+        AtomicBoolean returnedEarly = new AtomicBoolean();
+
+        modifiable.setModificationListener(listener);
+
+        Thread first = new Thread(() -> modifiable.report(modifiable.obtain()));
+        first.start();
+        listener.entered[0].await();
+
+        Thread second = new Thread(
+                () -> modifiable.report(modifiable.obtain()));
+        second.start();
+        listener.entered[1].await();
+
+        // The first notification finishes while the second one is still in
+        // progress, which must still be awaited by the swap.
+
+        listener.gates[0].countDown();
+        first.join();
+
+        Thread swapper = new Thread(() -> {
+            modifiable.setModificationListener(null);
+            returnedEarly.set(!listener.finished[1].get());
+        });
+
+        swapper.start();
+        swapper.join(100L);
+
+        listener.gates[1].countDown();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            second.join();
+            swapper.join();
+        });
+
+        assertFalse(returnedEarly.get());
+    }
+
+    @Test
+    public void testListenerSwapWhileNotified() {
+        TestModifiable modifiable = new TestModifiable();
+        RecordingListener newListener = new RecordingListener();
+        RecordingListener oldListener = new RecordingListener() {
+            @Override
+            public void notifyModified(
+                    TestModifiable modified,
+                    TestModification modification) {
+                super.notifyModified(modified, modification);
+                modified.setModificationListener(newListener);
+            }
+        };
+
+        modifiable.setModificationListener(oldListener);
+
+        // Replacing the listener by the notified listener itself must not
+        // wait for its own notification.
+
+        assertTimeoutPreemptively(
+                Duration.ofSeconds(10),
+                () -> modifiable.report(modifiable.obtain()));
+
+        assertEquals(1, oldListener.notified.size());
+
+        modifiable.report(modifiable.obtain());
+
+        assertEquals(1, oldListener.notified.size());
+        assertEquals(1, newListener.notified.size());
+    }
+}
@@ -0,0 +1,99 @@
+package org.fir3.teye.ui.renderer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AbstractElementGroupTest {
+    @Test
+    public void testResolution() {
+        DummyRenderer renderer = new DummyRenderer();
+        DummyElementGroup panel = (DummyElementGroup) renderer.newGroup();
+        DummyElementGroup list = (DummyElementGroup) renderer.newGroup();
+
+        assertEquals(255, panel.getAlpha());
+        assertEquals(255, panel.getResolvedAlpha());
+
+        panel.setX(100);
+        panel.setY(50);
+        panel.setAlpha(128);
+
+        list.setParent(panel);
+        list.setY(-20);
+        list.setAlpha(128);
+
+        assertSame(panel, list.getParent());
+        assertEquals(100, list.getResolvedX());
+        assertEquals(30, list.getResolvedY());
+        assertEquals(64, list.getResolvedAlpha());
+
+        // Moving the outer group moves the nested one.
+
+        panel.setX(0);
+        assertEquals(0, list.getResolvedX());
+
+        list.setParent(null);
+        assertEquals(0, list.getResolvedX());
+        assertEquals(-20, list.getResolvedY());
+        assertEquals(128, list.getResolvedAlpha());
+    }
+
+    @Test
+    public void testModifications() {
+        DummyRenderer renderer = new DummyRenderer();
+        DummyElementGroup group = (DummyElementGroup) renderer.newGroup();
+
+        group.setX(1);
+        group.setX(1);
+        group.setAlpha(255);
+        group.setY(2);
+
+        assertEquals(2, group.modificationCount);
+
+        assertThrows(IllegalArgumentException.class, () -> group.setAlpha(-1));
+
+        assertThrows(IllegalArgumentException.class, () -> group.setAlpha(256));
+        assertEquals(2, group.modificationCount);
+    }
+
+    @Test
+    public void testInvalidParents() {
+        DummyRenderer renderer = new DummyRenderer();
+        ElementGroup outer = renderer.newGroup();
+        ElementGroup inner = renderer.newGroup();
+        ElementGroup foreign = new DummyRenderer().newGroup();
+
+        inner.setParent(outer);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> outer.setParent(inner));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> outer.setParent(outer));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> inner.setParent(foreign));
+
+        assertSame(outer, inner.getParent());
+        assertNull(outer.getParent());
+    }
+
+    @Test
+    public void testRelease() {
+        DummyRenderer renderer = new DummyRenderer();
+        ElementGroup group = renderer.newGroup();
+
+        assertThrows(
+                NullPointerException.class,
+                () -> renderer.release((ElementGroup) null));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new DummyRenderer().release(group));
+
+        renderer.release(group);
+    }
+}
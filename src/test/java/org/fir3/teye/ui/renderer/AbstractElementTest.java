@@ -0,0 +1,222 @@
+package org.fir3.teye.ui.renderer;
+
+import org.fir3.teye.ui.ModificationListener;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class AbstractElementTest {
+    private static final class RecordingListener
+            implements ModificationListener<DummyElement, ElementModification> {
+        private final List<Integer> notifiedMasks = new ArrayList<>();
+        private int obtainedCount;
+
+        @Override
+        public void notifyModified(
+                DummyElement modified,
+                ElementModification modification) {
+            this.notifiedMasks.add(modification.modifiedAttributes());
+        }
+
+        @Override
+        public ElementModification newModification() {
+            this.obtainedCount++;
+            return new ElementModification();
+        }
+
+        @Override
+        public void releaseModification(
+                ElementModification modification,
+                boolean reuse) { }
+    }
+
+    @Test
+    public void testSingleModification() {
+        DummyElement element = new DummyElement();
+        RecordingListener listener = new RecordingListener();
+
+        element.setModificationListener(listener);
+        element.setX(10);
+
+        assertEquals(1, listener.notifiedMasks.size());
+        assertEquals(
+                ElementAttribute.X.getMask(),
+                (int) listener.notifiedMasks.get(0));
+    }
+
+    @Test
+    public void testEditCoalescesModifications() {
+        DummyElement element = new DummyElement();
+        RecordingListener listener = new RecordingListener();
+
+        element.setModificationListener(listener);
+        element.beginEdit();
+
+        element.setX(1);
+        element.setY(2);
+        element.setRed(255);
+        element.setZIndex(5);
+
+        // Nested edits are reported by the outermost commit only.
+
+        element.beginEdit();
+        element.setWidth(3);
+        element.commitEdit();
+
+        assertTrue(listener.notifiedMasks.isEmpty());
+        assertEquals(0, listener.obtainedCount);
+
+        element.commitEdit();
+
+        assertEquals(1, listener.notifiedMasks.size());
+        assertEquals(1, listener.obtainedCount);
+
+        int expected = ElementAttribute.X.getMask()
+                | ElementAttribute.Y.getMask()
+                | ElementAttribute.RED_COMPONENT.getMask()
+                | ElementAttribute.Z_INDEX.getMask()
+                | ElementAttribute.WIDTH.getMask();
+
+        assertEquals(expected, (int) listener.notifiedMasks.get(0));
+
+        // The values are applied immediately.
+
+        assertEquals(1, element.getX());
+        assertEquals(2, element.getY());
+        assertEquals(3, element.getWidth());
+        assertEquals(255, element.getRed());
+        assertEquals(5, element.getZIndex());
+    }
+
+    @Test
+    public void testEditWithoutChanges() {
+        DummyElement element = new DummyElement();
+        RecordingListener listener = new RecordingListener();
+
+        element.setModificationListener(listener);
+        element.beginEdit();
+        element.setX(0);
+        element.setTexture(null);
+        element.commitEdit();
+
+        assertTrue(listener.notifiedMasks.isEmpty());
+        assertEquals(0, listener.obtainedCount);
+    }
+
+    @Test
+    public void testVisibility() {
+        DummyElement element = new DummyElement();
+        RecordingListener listener = new RecordingListener();
+
+        assertTrue(element.isVisible());
+        assertTrue(element.getRenderState().isVisible());
+
+        element.setModificationListener(listener);
+        element.setVisible(true);
+
+        assertTrue(listener.notifiedMasks.isEmpty());
+
+        element.setVisible(false);
+
+        assertFalse(element.isVisible());
+        assertEquals(1, listener.notifiedMasks.size());
+        assertEquals(
+                ElementAttribute.VISIBLE.getMask(),
+                (int) listener.notifiedMasks.get(0));
+    }
+
+    @Test
+    public void testCommitWithoutEdit() {
+        DummyElement element = new DummyElement();
+
+        assertThrows(IllegalStateException.class, element::commitEdit);
+
+        element.beginEdit();
+        element.commitEdit();
+
+        assertThrows(IllegalStateException.class, element::commitEdit);
+    }
+
+    @Test
+    public void testModificationIsModified() {
+        ElementModification mod = new ElementModification();
+
+        mod.modifiedAttributes(
+                ElementAttribute.TEXTURE.getMask()
+                        | ElementAttribute.TEXTURE_X.getMask());
+
+        assertTrue(mod.isModified(ElementAttribute.TEXTURE));
+        assertTrue(mod.isModified(ElementAttribute.TEXTURE_X));
+        assertFalse(mod.isModified(ElementAttribute.Z_INDEX));
+
+        mod.reset();
+
+        assertFalse(mod.isModified(ElementAttribute.TEXTURE));
+    }
+
+    @Test
+    public void testSettersDoNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean)
+                        ManagementFactory.getThreadMXBean();
+
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        DummyRenderer renderer = new DummyRenderer();
+        DummyElement element = (DummyElement) renderer.newElement();
+        Texture texture = renderer.newTexture(
+                1, 1,
+                TestUtil.createTextureBuffer(1, 1, ColorModel.RGBA_8888),
+                ColorModel.RGBA_8888);
+
+        element.setModificationListener(renderer);
+
+        // Warming up fills the modification pool of the renderer and the
+        // bookkeeping of the element. The values are outside of the range of
+        // the Integer cache, thus boxing them would show up.
+
+        for (int i = 0; i < 10_000; i++)
+            AbstractElementTest.modifyElement(element, texture, i);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+
+        for (int i = 0; i < 10_000; i++)
+            AbstractElementTest.modifyElement(element, texture, i);
+
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // NOTE:    Reading the counter may allocate a few bytes itself, but
+        //          boxing would allocate hundreds of kilobytes.
+
+        assertTrue(allocated < 1024L, "Allocated " + allocated + " bytes!");
+    }
+
+    private static void modifyElement(
+            DummyElement element,
+            Texture texture,
+            int i) {
+        int value = 1000 + (i & 0xFF);
+
+        element.setX(value);
+        element.setY(value + 1);
+        element.setWidth(value + 2);
+        element.setRed(i & 0xFF);
+        element.setZIndex(value);
+        element.setTexture((i & 1) == 0 ? texture : null);
+
+        element.beginEdit();
+        element.setHeight(value);
+        element.setTextureX(value);
+        element.commitEdit();
+    }
+}
@@ -1,10 +1,20 @@
 package org.fir3.teye.ui.renderer;
 
+import org.fir3.teye.ui.Modification;
+import org.fir3.teye.ui.ModificationListener;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -17,6 +27,43 @@ public class AbstractRendererTest {
                 () -> new DummyRenderer(-1.0F));
     }
 
+    @Test
+    public void testModificationsAreReportedToListener() {
+        DummyRenderer renderer = new DummyRenderer();
+        DummyElement element = (DummyElement) renderer.newElement();
+        AtomicInteger notifications = new AtomicInteger();
+
+        renderer.setModificationListener(new ModificationListener<
+                Renderer<Modification.NullModification>,
+                Modification.NullModification>() {
+            @Override
+            public void notifyModified(
+                    Renderer<Modification.NullModification> modified,
+                    Modification.NullModification modification) {
+                assertSame(renderer, modified);
+                notifications.incrementAndGet();
+            }
+
+            @Override
+            public Modification.NullModification newModification() {
+                return Modification.NullModification.INSTANCE;
+            }
+
+            @Override
+            public void releaseModification(
+                    Modification.NullModification modification,
+                    boolean reuse) { }
+        });
+
+        // Each modification of an element must reach the listener of the
+        // renderer, otherwise render-on-demand never renders the new scene.
+
+        renderer.notifyModified(element, renderer.newModification());
+        renderer.notifyModified(element, renderer.newModification());
+
+        assertEquals(2, notifications.get());
+    }
+
     @Test
     public void testElementModificationCaching() {
         DummyRenderer renderer = new DummyRenderer(1.0F);
@@ -60,4 +107,406 @@ public class AbstractRendererTest {
                     renderer.newModification()));
         }
     }
+
+    @Test
+    public void testPullModeCollectsOncePerElement() {
+        DummyRenderer renderer = new DummyRenderer(ModificationMode.PULL);
+        Element first = renderer.newElement();
+        Element second = renderer.newElement();
+        Element untouched = renderer.newElement();
+
+        assertEquals(ModificationMode.PULL, renderer.getModificationMode());
+
+        // Modifications are not handled until the renderer collects them.
+
+        for (int i = 1; i <= 100; i++) {
+            first.setX(i);
+            first.setY(i);
+            second.setAlpha(i);
+        }
+
+        untouched.setX(0);
+
+        assertTrue(renderer.handledModifications.isEmpty());
+
+        renderer.render();
+
+        // Each modified element is handled exactly once with all of its
+        // modified attributes.
+
+        assertEquals(2, renderer.handledModifications.size());
+        assertTrue(renderer.handledModifications.contains(
+                ElementAttribute.X.getMask()
+                        | ElementAttribute.Y.getMask()));
+
+        assertTrue(renderer.handledModifications.contains(
+                ElementAttribute.ALPHA_COMPONENT.getMask()));
+
+        // Nothing is left for the next frame, until an element is modified
+        // again.
+
+        renderer.handledModifications.clear();
+        renderer.render();
+
+        assertTrue(renderer.handledModifications.isEmpty());
+
+        first.setZIndex(5);
+        renderer.render();
+
+        assertEquals(1, renderer.handledModifications.size());
+        assertEquals(
+                ElementAttribute.Z_INDEX.getMask(),
+                (int) renderer.handledModifications.get(0));
+    }
+
+    @Test
+    public void testBulkElements() {
+        DummyRenderer renderer = new DummyRenderer(ModificationMode.PULL);
+        List<Element> elements = renderer.newElements(3);
+
+        assertEquals(3, elements.size());
+        assertTrue(renderer.newElements(0).isEmpty());
+
+        Set<Element> distinct =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+
+        distinct.addAll(elements);
+        assertEquals(3, distinct.size());
+
+        // The bulk-created elements are set up like single ones.
+
+        for (Element element : elements)
+            element.setX(1);
+
+        renderer.render();
+        assertEquals(3, renderer.handledModifications.size());
+
+        renderer.release(elements.subList(0, 2));
+        renderer.release(Collections.emptyList());
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> renderer.newElements(-1));
+
+        assertThrows(
+                NullPointerException.class,
+                () -> renderer.release((Collection<Element>) null));
+
+        assertThrows(
+                NullPointerException.class,
+                () -> renderer.release(Collections.singletonList(null)));
+    }
+
+    @Test
+    public void testInvalidBulkReleaseHasNoEffect() {
+        DummyRenderer renderer = new DummyRenderer();
+        List<Element> elements = renderer.newElements(2);
+        List<Element> released = new ArrayList<>();
+
+        renderer.setRecorder(new RendererRecorder() {
+            @Override
+            public void elementCreated(Element element) { }
+
+            @Override
+            public void elementReleased(Element element) {
+                released.add(element);
+            }
+
+            @Override
+            public void elementModified(
+                    Element element,
+                    int modifiedAttributes,
+                    ElementState state) { }
+
+            @Override
+            public void textureCreated(
+                    Texture texture,
+                    ByteBuffer data,
+                    ColorModel pixelFormat) { }
+
+            @Override
+            public void textureReleased(Texture texture) { }
+
+            @Override
+            public void frameRendered() { }
+        });
+
+        // The invalid entries are at the end, after valid ones.
+
+        assertThrows(
+                NullPointerException.class,
+                () -> renderer.release(Arrays.asList(
+                        elements.get(0),
+                        elements.get(1),
+                        null)));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> renderer.release(Arrays.asList(
+                        elements.get(0),
+                        elements.get(1),
+                        elements.get(0))));
+
+        assertTrue(released.isEmpty());
+
+        renderer.release(elements);
+        assertEquals(elements, released);
+    }
+
+    @Test
+    public void testCoalesceModeMergesModifications() {
+        DummyRenderer renderer = new DummyRenderer(ModificationMode.COALESCE);
+        AbstractElement<?> first = (AbstractElement<?>) renderer.newElement();
+        AbstractElement<?> second =
+                (AbstractElement<?>) renderer.newElement();
+
+        first.setX(5);
+
+        for (int i = 1; i <= 10; i++)
+            first.setX(5 + i * 10);
+
+        second.setY(1);
+        second.setZIndex(3);
+
+        assertTrue(renderer.handledModifications.isEmpty());
+
+        renderer.render();
+
+        // A single attribute keeps the first previous and the last new
+        // value, while several attributes only keep the bitmask.
+
+        assertEquals(2, renderer.handledModifications.size());
+
+        int firstIndex = renderer.handledModifications.indexOf(
+                ElementAttribute.X.getMask());
+
+        assertArrayEquals(
+                new int[] { 0, 105 },
+                renderer.handledValues.get(firstIndex));
+
+        assertTrue(renderer.handledModifications.contains(
+                ElementAttribute.Y.getMask()
+                        | ElementAttribute.Z_INDEX.getMask()));
+
+        assertEquals(105, first.getRenderState().getX());
+        assertEquals(3, second.getRenderState().getZIndex());
+
+        // Nothing is left for the next frame
+
+        renderer.handledModifications.clear();
+        renderer.render();
+
+        assertTrue(renderer.handledModifications.isEmpty());
+    }
+
+    @Test
+    public void testStatistics() {
+        DummyRenderer renderer = new DummyRenderer(ModificationMode.PUSH);
+        Element element = renderer.newElement();
+
+        element.setX(1);
+        element.setX(2);
+
+        element.beginEdit();
+        element.setX(3);
+        element.setAlpha(4);
+        element.commitEdit();
+
+        renderer.render();
+        renderer.render();
+
+        RendererStatistics statistics = renderer.getStatistics();
+
+        assertEquals(2, statistics.getFrameCount());
+        assertEquals(
+                3,
+                statistics.getModificationCount(ElementAttribute.X));
+
+        assertEquals(
+                1,
+                statistics.getModificationCount(
+                        ElementAttribute.ALPHA_COMPONENT));
+
+        assertEquals(4, statistics.getModificationCount());
+        assertEquals(0, statistics.getDrawCalls());
+
+        // In pull mode, the collected modifications are counted.
+
+        renderer = new DummyRenderer(ModificationMode.PULL);
+        element = renderer.newElement();
+
+        element.setX(1);
+        element.setX(2);
+        renderer.render();
+
+        assertEquals(
+                1,
+                renderer.getStatistics().getModificationCount(
+                        ElementAttribute.X));
+    }
+
+    @Test
+    public void testPullModeConcurrentModifications()
+            throws InterruptedException {
+        int elementCount = 64;
+        int threadCount = 4;
+        int iterations = 10_000;
+
+        DummyRenderer renderer = new DummyRenderer(ModificationMode.PULL);
+        Element[] elements = new Element[elementCount];
+
+        for (int i = 0; i < elementCount; i++)
+            elements[i] = renderer.newElement();
+
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadCount];
+
+        for (int t = 0; t < threadCount; t++) {
+            int thread = t;
+
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+
+                for (int i = 1; i <= iterations; i++) {
+                    Element element = elements[(i * 7 + thread) % elementCount];
+                    element.setX(i);
+                }
+            });
+
+            threads[t].start();
+        }
+
+        start.countDown();
+
+        // Collecting concurrently to the modifications must neither lose an
+        // element nor hand out an element twice per collection.
+
+        while (threads[0].isAlive() || threads[threadCount - 1].isAlive())
+            renderer.render();
+
+        for (Thread thread : threads)
+            thread.join();
+
+        renderer.handledModifications.clear();
+
+        for (Element element : elements)
+            element.setX(iterations + 1);
+
+        renderer.render();
+
+        assertEquals(elementCount, renderer.handledModifications.size());
+    }
+
+    @Test
+    public void testRenderStateIsCapturedByRenderer() {
+        DummyRenderer renderer = new DummyRenderer(ModificationMode.PULL);
+        AbstractElement<?> element =
+                (AbstractElement<?>) renderer.newElement();
+
+        element.setX(10);
+
+        // The renderer does not see the modification before it collected it.
+
+        assertEquals(10, element.getX());
+        assertEquals(0, element.getRenderState().getX());
+
+        renderer.render();
+
+        assertEquals(10, element.getRenderState().getX());
+    }
+
+    @Test
+    public void testOpenEditDoesNotBlockRenderer() throws InterruptedException {
+        DummyRenderer renderer = new DummyRenderer(ModificationMode.COALESCE);
+        AbstractElement<?> element =
+                (AbstractElement<?>) renderer.newElement();
+
+        element.setY(3);
+
+        // The edit is never committed by the worker. The renderer still needs
+        // to capture the state from before the edit, without waiting.
+
+        Thread worker = new Thread(() -> {
+            element.beginEdit();
+            element.setX(5);
+        });
+
+        worker.start();
+        worker.join();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), renderer::render);
+
+        assertEquals(3, element.getRenderState().getY());
+        assertEquals(0, element.getRenderState().getX());
+        assertEquals(5, element.getX());
+
+        element.commitEdit();
+        renderer.render();
+
+        assertEquals(5, element.getRenderState().getX());
+    }
+
+    @Test
+    public void testCoalescingIgnoresElementMonitor() {
+        DummyRenderer renderer = new DummyRenderer(ModificationMode.COALESCE);
+        Element element = renderer.newElement();
+
+        // The element is locked by its user on this thread, which must
+        // neither block the modification nor the renderer on the thread of
+        // the timeout.
+
+        synchronized (element) {
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                element.setX(5);
+                renderer.render();
+            });
+        }
+
+        assertEquals(1, renderer.handledModifications.size());
+    }
+
+    @Test
+    public void testRenderStateIsConsistent() throws InterruptedException {
+        DummyRenderer renderer = new DummyRenderer(ModificationMode.PULL);
+        AbstractElement<?> element =
+                (AbstractElement<?>) renderer.newElement();
+
+        int iterations = 200_000;
+
+        // A worker modifies both coordinates within an edit, thus the renderer
+        // must never capture different values.
+
+        Thread worker = new Thread(() -> {
+            for (int i = 1; i <= iterations; i++) {
+                element.beginEdit();
+                element.setX(i);
+                element.setY(i);
+                element.commitEdit();
+            }
+        });
+
+        worker.start();
+
+        boolean inconsistent = false;
+
+        while (worker.isAlive()) {
+            renderer.render();
+
+            ElementState state = element.getRenderState();
+
+            if (state.getX() != state.getY())
+                inconsistent = true;
+        }
+
+        worker.join();
+        renderer.render();
+
+        assertFalse(inconsistent);
+        assertEquals(iterations, element.getRenderState().getX());
+        assertEquals(iterations, element.getRenderState().getY());
+    }
 }
@@ -0,0 +1,36 @@
+package org.fir3.teye.ui.renderer;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+final class DummyElementGroup extends AbstractElementGroup {
+    final Set<Element> members;
+    int modificationCount;
+
+    DummyElementGroup(Renderer<?> renderer) {
+        super(renderer);
+        this.members = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    @Override
+    public void add(Element element) {
+        if (element == null)
+            throw new NullPointerException("element is null!");
+
+        this.members.add(element);
+    }
+
+    @Override
+    public void remove(Element element) {
+        if (element == null)
+            throw new NullPointerException("element is null!");
+
+        this.members.remove(element);
+    }
+
+    @Override
+    protected void modified() {
+        this.modificationCount++;
+    }
+}
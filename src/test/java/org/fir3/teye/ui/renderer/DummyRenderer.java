@@ -1,28 +1,73 @@
 package org.fir3.teye.ui.renderer;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 final class DummyRenderer extends AbstractRenderer<DummyElement> {
+    /**
+     * The bitmasks of the modifications that have been handled so far, or
+     * <code>null</code>, if they are not recorded (recording allocates).
+     */
+    final List<Integer> handledModifications;
+
+    /**
+     * The previous and new value of each handled modification, or
+     * <code>null</code>, if they are not recorded.
+     */
+    final List<int[]> handledValues;
+
     DummyRenderer(float oversizeFactor) {
         super(oversizeFactor);
+        this.handledModifications = null;
+        this.handledValues = null;
+    }
+
+    DummyRenderer(ModificationMode modificationMode) {
+        super(modificationMode);
+        this.handledModifications = new ArrayList<>();
+        this.handledValues = new ArrayList<>();
     }
 
     DummyRenderer() {
         super();
+        this.handledModifications = null;
+        this.handledValues = null;
     }
 
     @Override
     protected Element newElement0() {
-        return new DummyElement();
+        DummyElement element = new DummyElement();
+
+        if (this.handledModifications != null)
+            element.setModificationListener(this);
+
+        return element;
     }
 
     @Override
     protected void release0(Element element) { }
 
+    @Override
+    protected ElementGroup newGroup0() {
+        return new DummyElementGroup(this);
+    }
+
+    @Override
+    protected void release0(ElementGroup group) { }
+
     @Override
     protected boolean notifyModified0(
             DummyElement modified,
             ElementModification modification) {
+        if (this.handledModifications != null) {
+            this.handledModifications.add(modification.modifiedAttributes());
+            this.handledValues.add(new int[] {
+                    modification.previousValueAsInt(),
+                    modification.newValueAsInt()
+            });
+        }
+
         return true;
     }
 
@@ -33,13 +78,15 @@ final class DummyRenderer extends AbstractRenderer<DummyElement> {
     public void destroy() { }
 
     @Override
-    public void render() { }
+    protected void render0() {
+        this.collectModifications();
+    }
 
     @Override
-    public Texture newTexture(int width, int height, ByteBuffer data, ColorModel pixelFormat) {
+    protected Texture newTexture0(int width, int height, ByteBuffer data, ColorModel pixelFormat) {
         return new DummyTexture(width, height, pixelFormat, data);
     }
 
     @Override
-    public void release(Texture texture) { }
+    protected void release0(Texture texture) { }
 }
@@ -0,0 +1,100 @@
+package org.fir3.teye.ui.renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModificationPoolTest {
+    @Test
+    public void testCapacity() {
+        ModificationPool pool = new ModificationPool();
+        Set<ElementModification> offered =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+
+        // More instances than fit into a single magazine need to pass the
+        // depot.
+
+        int capacity = ModificationPool.MAGAZINE_SIZE * 3 + 5;
+
+        for (int i = 0; i < capacity * 2; i++) {
+            ElementModification mod = new ElementModification();
+
+            offered.add(mod);
+            pool.offer(mod, capacity);
+        }
+
+        for (int i = 0; i < capacity; i++) {
+            ElementModification mod = pool.poll();
+
+            assertNotNull(mod);
+            assertTrue(offered.remove(mod));
+        }
+
+        assertNull(pool.poll());
+    }
+
+    @Test
+    public void testConcurrentThreads() throws InterruptedException {
+        int threadCount = 8;
+        int iterations = 100_000;
+
+        ModificationPool pool = new ModificationPool();
+        Set<ElementModification> inUse = Collections.synchronizedSet(
+                Collections.newSetFromMap(new IdentityHashMap<>()));
+
+        AtomicBoolean handedOutTwice = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadCount];
+
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                ElementModification[] held = new ElementModification[20];
+
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+
+                // Obtaining and releasing batches forces the threads to
+                // exchange magazines with the depot.
+
+                for (int i = 0; i < iterations; i++) {
+                    int index = i % held.length;
+
+                    if (held[index] != null) {
+                        inUse.remove(held[index]);
+                        pool.offer(held[index], 1000.0F);
+                        held[index] = null;
+                        continue;
+                    }
+
+                    ElementModification mod = pool.poll();
+
+                    if (mod == null)
+                        mod = new ElementModification();
+
+                    if (!inUse.add(mod))
+                        handedOutTwice.set(true);
+
+                    held[index] = mod;
+                }
+            });
+
+            threads[t].start();
+        }
+
+        start.countDown();
+
+        for (Thread thread : threads)
+            thread.join();
+
+        assertFalse(handedOutTwice.get());
+    }
+}
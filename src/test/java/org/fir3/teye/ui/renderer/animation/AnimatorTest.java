@@ -0,0 +1,336 @@
+package org.fir3.teye.ui.renderer.animation;
+
+import org.fir3.teye.ui.ModificationListener;
+import org.fir3.teye.ui.renderer.AbstractElement;
+import org.fir3.teye.ui.renderer.ElementAttribute;
+import org.fir3.teye.ui.renderer.ElementModification;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnimatorTest {
+    private static final class TestElement
+            extends AbstractElement<TestElement> { }
+
+    /**
+     * An element whose width cannot be modified.
+     */
+    private static final class FailingElement
+            extends AbstractElement<FailingElement> {
+        @Override
+        public void setWidth(int width) {
+            throw new IllegalStateException("Width is fixed!");
+        }
+    }
+
+    private static final class CountingListener
+            implements ModificationListener<TestElement, ElementModification> {
+        private int notificationCount;
+
+        @Override
+        public void notifyModified(
+                TestElement modified,
+                ElementModification modification) {
+            this.notificationCount++;
+        }
+
+        @Override
+        public ElementModification newModification() {
+            return new ElementModification();
+        }
+
+        @Override
+        public void releaseModification(
+                ElementModification modification,
+                boolean reuse) { }
+    }
+
+    /**
+     * The time that the animator sees, in milliseconds.
+     */
+    private long nowMillis;
+
+    private int wakeupCount;
+
+    private Animator createAnimator() {
+        return new Animator(
+                () -> TimeUnit.MILLISECONDS.toNanos(this.nowMillis),
+                () -> this.wakeupCount++);
+    }
+
+    @Test
+    public void testLinearTween() {
+        Animator animator = this.createAnimator();
+        TestElement element = new TestElement();
+
+        element.setX(100);
+
+        Tween tween = animator.animate(
+                element, ElementAttribute.X,
+                200,
+                100, TimeUnit.MILLISECONDS,
+                Easing.LINEAR);
+
+        // Nothing happens before the next frame
+
+        assertEquals(1, this.wakeupCount);
+        assertEquals(100, element.getX());
+
+        // The animation starts in the first frame
+
+        this.nowMillis = 1000;
+        assertEquals(1, animator.update());
+        assertEquals(100, element.getX());
+
+        this.nowMillis = 1025;
+        animator.update();
+        assertEquals(125, element.getX());
+
+        this.nowMillis = 1050;
+        animator.update();
+        assertEquals(150, element.getX());
+        assertFalse(tween.isFinished());
+
+        // The target value is reached exactly, even if a frame is late.
+
+        this.nowMillis = 1500;
+        assertEquals(0, animator.update());
+        assertEquals(200, element.getX());
+        assertTrue(tween.isFinished());
+
+        this.nowMillis = 2000;
+        assertEquals(0, animator.update());
+        assertEquals(200, element.getX());
+    }
+
+    @Test
+    public void testEasing() {
+        for (Easing easing : Easing.values()) {
+            assertEquals(0.0F, easing.apply(0.0F), 1e-6F);
+            assertEquals(1.0F, easing.apply(1.0F), 1e-6F);
+        }
+
+        assertEquals(0.25F, Easing.EASE_IN.apply(0.5F), 1e-6F);
+        assertEquals(0.75F, Easing.EASE_OUT.apply(0.5F), 1e-6F);
+        assertEquals(0.5F, Easing.EASE_IN_OUT.apply(0.5F), 1e-6F);
+    }
+
+    @Test
+    public void testOneModificationPerElementAndFrame() {
+        Animator animator = this.createAnimator();
+        TestElement element = new TestElement();
+        CountingListener listener = new CountingListener();
+
+        element.setModificationListener(listener);
+
+        animator.animate(
+                element, ElementAttribute.X,
+                100,
+                10, TimeUnit.MILLISECONDS,
+                Easing.LINEAR);
+
+        animator.animate(
+                element, ElementAttribute.ALPHA_COMPONENT,
+                255,
+                10, TimeUnit.MILLISECONDS,
+                Easing.EASE_OUT);
+
+        this.nowMillis = 0;
+        animator.update();
+
+        this.nowMillis = 5;
+        animator.update();
+
+        assertEquals(1, listener.notificationCount);
+
+        this.nowMillis = 10;
+        animator.update();
+
+        assertEquals(2, listener.notificationCount);
+        assertEquals(100, element.getX());
+        assertEquals(255, element.getAlpha());
+    }
+
+    @Test
+    public void testCancellation() {
+        Animator animator = this.createAnimator();
+        TestElement element = new TestElement();
+
+        Tween first = animator.animate(
+                element, ElementAttribute.Y,
+                100,
+                10, TimeUnit.MILLISECONDS,
+                Easing.LINEAR);
+
+        animator.update();
+
+        this.nowMillis = 5;
+        animator.update();
+        assertEquals(50, element.getY());
+
+        // A new animation of the same attribute replaces the old one.
+
+        Tween second = animator.animate(
+                element, ElementAttribute.Y,
+                20,
+                10, TimeUnit.MILLISECONDS,
+                Easing.LINEAR);
+
+        this.nowMillis = 10;
+        assertEquals(1, animator.update());
+        assertTrue(first.isCancelled());
+        assertFalse(first.isFinished());
+        assertEquals(50, element.getY());
+
+        this.nowMillis = 20;
+        animator.update();
+        assertEquals(20, element.getY());
+        assertTrue(second.isFinished());
+
+        // Cancelling all animations of an element
+
+        animator.animate(
+                element, ElementAttribute.Y,
+                0,
+                10, TimeUnit.MILLISECONDS,
+                Easing.LINEAR);
+
+        animator.cancel(element);
+        assertEquals(0, animator.update());
+        assertEquals(20, element.getY());
+    }
+
+    @Test
+    public void testArgumentValidation() {
+        Animator animator = this.createAnimator();
+        TestElement element = new TestElement();
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> animator.animate(
+                        element, ElementAttribute.TEXTURE,
+                        0,
+                        10, TimeUnit.MILLISECONDS,
+                        Easing.LINEAR));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> animator.animate(
+                        element, ElementAttribute.X,
+                        0,
+                        -1, TimeUnit.MILLISECONDS,
+                        Easing.LINEAR));
+
+        // Target values that the element would reject
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> animator.animate(
+                        element, ElementAttribute.X,
+                        -1,
+                        10, TimeUnit.MILLISECONDS,
+                        Easing.LINEAR));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> animator.animate(
+                        element, ElementAttribute.WIDTH,
+                        -1,
+                        10, TimeUnit.MILLISECONDS,
+                        Easing.LINEAR));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> animator.animate(
+                        element, ElementAttribute.RED_COMPONENT,
+                        256,
+                        10, TimeUnit.MILLISECONDS,
+                        Easing.LINEAR));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> animator.animate(
+                        element, ElementAttribute.ALPHA_COMPONENT,
+                        -1,
+                        10, TimeUnit.MILLISECONDS,
+                        Easing.LINEAR));
+
+        assertEquals(0, animator.update());
+
+        // The z-index has no range.
+
+        animator.animate(
+                element, ElementAttribute.Z_INDEX,
+                -5,
+                0, TimeUnit.MILLISECONDS,
+                Easing.LINEAR);
+
+        animator.update();
+        assertEquals(-5, element.getZIndex());
+
+        assertThrows(
+                NullPointerException.class,
+                () -> animator.animate(
+                        null, ElementAttribute.X,
+                        0,
+                        10, TimeUnit.MILLISECONDS,
+                        Easing.LINEAR));
+
+        assertThrows(
+                NullPointerException.class,
+                () -> new Animator(null, () -> { }));
+    }
+
+    @Test
+    public void testFailingTweenIsDropped() {
+        Animator animator = this.createAnimator();
+        TestElement before = new TestElement();
+        FailingElement failing = new FailingElement();
+        TestElement after = new TestElement();
+
+        Tween first = animator.animate(
+                before, ElementAttribute.X,
+                100,
+                10, TimeUnit.MILLISECONDS,
+                Easing.LINEAR);
+
+        Tween broken = animator.animate(
+                failing, ElementAttribute.WIDTH,
+                100,
+                10, TimeUnit.MILLISECONDS,
+                Easing.LINEAR);
+
+        Tween last = animator.animate(
+                after, ElementAttribute.Y,
+                100,
+                10, TimeUnit.MILLISECONDS,
+                Easing.LINEAR);
+
+        // The failure reaches the caller, while the edits are committed
+        // nevertheless.
+
+        assertThrows(IllegalStateException.class, animator::update);
+        assertTrue(broken.isCancelled());
+        assertThrows(IllegalStateException.class, before::commitEdit);
+        assertThrows(IllegalStateException.class, failing::commitEdit);
+
+        // The other animations are kept. The one after the failing animation
+        // has not been evaluated yet, thus it starts in the next frame.
+
+        this.nowMillis = 5;
+        assertEquals(2, animator.update());
+        assertEquals(50, before.getX());
+        assertEquals(0, after.getY());
+
+        this.nowMillis = 10;
+        assertEquals(1, animator.update());
+        assertTrue(first.isFinished());
+        assertEquals(50, after.getY());
+
+        this.nowMillis = 15;
+        assertEquals(0, animator.update());
+        assertTrue(last.isFinished());
+    }
+}
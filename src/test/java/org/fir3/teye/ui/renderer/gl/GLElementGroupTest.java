@@ -0,0 +1,27 @@
+package org.fir3.teye.ui.renderer.gl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GLElementGroupTest {
+    @Test
+    public void testAddChecksOwner() {
+        GLRenderer renderer = new GLRenderer(1, 1);
+        GLRenderer other = new GLRenderer(1, 1);
+        GLElementGroup group = new GLElementGroup(renderer, 1);
+        GLElement element = new GLElement(renderer);
+        GLElement foreign = new GLElement(other);
+
+        // NOTE:    The elements have not been placed in a mosaic, thus adding
+        //          them does not require an OpenGL context.
+
+        group.add(element);
+        assertSame(group, element.group);
+
+        assertThrows(IllegalArgumentException.class, () -> group.add(foreign));
+        assertNull(foreign.group);
+
+        assertThrows(NullPointerException.class, () -> group.add(null));
+    }
+}
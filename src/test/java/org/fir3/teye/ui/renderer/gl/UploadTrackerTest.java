@@ -0,0 +1,166 @@
+package org.fir3.teye.ui.renderer.gl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UploadTrackerTest {
+    private static final ByteBuffer DATA = ByteBuffer.allocate(4);
+
+    private ExecutorService uploadThread;
+
+    @BeforeEach
+    public void startUploadThread() {
+        this.uploadThread = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    public void stopUploadThread() {
+        this.uploadThread.shutdownNow();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void testCompletedUpload() {
+        UploadTracker<String> tracker = new UploadTracker<>();
+        CountDownLatch started = new CountDownLatch(1);
+        UploadTracker.Upload<String> upload = tracker.add(
+                "atlas",
+                1, 2,
+                1, 1,
+                UploadTrackerTest.DATA);
+
+        long generation = tracker.collect(failed -> fail());
+
+        this.uploadThread.execute(() -> {
+            UploadTrackerTest.await(started);
+            upload.complete();
+        });
+
+        // The region is not ready, until the upload thread completed it.
+
+        assertFalse(tracker.isReady("atlas", 1, 2));
+        assertTrue(tracker.isReady("atlas", 2, 1));
+        assertTrue(tracker.isReady("other", 1, 2));
+        assertEquals(generation, tracker.collect(failed -> fail()));
+
+        started.countDown();
+
+        assertTimeoutPreemptively(
+                Duration.ofSeconds(10),
+                () -> tracker.await("atlas"));
+
+        assertTrue(tracker.isReady("atlas", 1, 2));
+        assertEquals(generation + 1, tracker.collect(failed -> fail()));
+    }
+
+    @Test
+    public void testFailedUploadIsRepeated() {
+        UploadTracker<String> tracker = new UploadTracker<>();
+        RuntimeException cause = new IllegalStateException("Upload failed!");
+        UploadTracker.Upload<String> upload = tracker.add(
+                "atlas",
+                0, 0,
+                1, 1,
+                UploadTrackerTest.DATA);
+
+        this.uploadThread.execute(() -> upload.fail(cause));
+
+        assertTimeoutPreemptively(
+                Duration.ofSeconds(10),
+                () -> tracker.await(null));
+
+        // A failed region must not be used, until the upload is repeated.
+
+        assertFalse(tracker.isReady("atlas", 0, 0));
+
+        List<UploadTracker.Upload<String>> repeated = new ArrayList<>();
+        tracker.collect(repeated::add);
+
+        assertEquals(1, repeated.size());
+        assertSame(upload, repeated.get(0));
+        assertSame(UploadTrackerTest.DATA, repeated.get(0).getData());
+        assertTrue(tracker.isReady("atlas", 0, 0));
+
+        // A failure of the repeated upload reaches the caller, but all
+        // finished uploads are collected nevertheless.
+
+        UploadTracker.Upload<String> first = tracker.add(
+                "atlas",
+                0, 0,
+                1, 1,
+                UploadTrackerTest.DATA);
+
+        UploadTracker.Upload<String> second = tracker.add(
+                "atlas",
+                1, 1,
+                1, 1,
+                UploadTrackerTest.DATA);
+
+        first.fail(cause);
+        second.complete();
+
+        assertSame(cause, assertThrows(
+                IllegalStateException.class,
+                () -> tracker.collect(failed -> {
+                    throw cause;
+                })));
+
+        assertTrue(tracker.isReady("atlas", 0, 0));
+        assertTrue(tracker.isReady("atlas", 1, 1));
+    }
+
+    @Test
+    public void testAwaitOnlyWaitsForAtlas() {
+        UploadTracker<String> tracker = new UploadTracker<>();
+        CountDownLatch blocked = new CountDownLatch(1);
+        UploadTracker.Upload<String> pending = tracker.add(
+                "pending",
+                0, 0,
+                1, 1,
+                UploadTrackerTest.DATA);
+
+        UploadTracker.Upload<String> completed = tracker.add(
+                "completed",
+                0, 0,
+                1, 1,
+                UploadTrackerTest.DATA);
+
+        this.uploadThread.execute(() -> {
+            completed.complete();
+            UploadTrackerTest.await(blocked);
+            pending.complete();
+        });
+
+        assertTimeoutPreemptively(
+                Duration.ofSeconds(10),
+                () -> tracker.await("completed"));
+
+        assertFalse(pending.isDone());
+
+        blocked.countDown();
+
+        assertTimeoutPreemptively(
+                Duration.ofSeconds(10),
+                () -> tracker.await(null));
+
+        assertTrue(pending.isDone());
+    }
+}
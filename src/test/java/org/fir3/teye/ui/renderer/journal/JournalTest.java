@@ -0,0 +1,286 @@
+package org.fir3.teye.ui.renderer.journal;
+
+import org.fir3.teye.ui.renderer.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalTest {
+    private static final class TestElement
+            extends AbstractElement<TestElement> { }
+
+    private static final class TestTexture extends AbstractTexture {
+        TestTexture(
+                int width, int height,
+                ColorModel pixelFormat,
+                ByteBuffer data) {
+            super(width, height, pixelFormat, data);
+        }
+    }
+
+    private static final class TestRenderer
+            extends AbstractRenderer<TestElement> {
+        @Override
+        protected Element newElement0() {
+            TestElement element = new TestElement();
+            element.setModificationListener(this);
+
+            return element;
+        }
+
+        @Override
+        protected void release0(Element element) { }
+
+        @Override
+        protected ElementGroup newGroup0() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void release0(ElementGroup group) { }
+
+        @Override
+        protected boolean notifyModified0(
+                TestElement modified,
+                ElementModification modification) {
+            return true;
+        }
+
+        @Override
+        protected void render0() { }
+
+        @Override
+        protected Texture newTexture0(
+                int width, int height,
+                ByteBuffer data,
+                ColorModel pixelFormat) {
+            return new TestTexture(width, height, pixelFormat, data);
+        }
+
+        @Override
+        protected void release0(Texture texture) { }
+
+        @Override
+        public void initialize() { }
+
+        @Override
+        public void destroy() { }
+    }
+
+    /**
+     * Describes every operation of a renderer by a string, so that the
+     * operations of two renderers can be compared.
+     */
+    private static final class LoggingRecorder implements RendererRecorder {
+        private final List<String> log = new ArrayList<>();
+
+        @Override
+        public void elementCreated(Element element) {
+            this.log.add("element");
+        }
+
+        @Override
+        public void elementReleased(Element element) {
+            this.log.add("release element");
+        }
+
+        @Override
+        public void elementModified(
+                Element element,
+                int modifiedAttributes,
+                ElementState state) {
+            this.log.add(String.format(
+                    "modify %d: %d %d %d %d %d %s %d",
+                    modifiedAttributes,
+                    state.getX(), state.getY(),
+                    state.getWidth(), state.getAlpha(),
+                    state.getZIndex(),
+                    state.getTexture() == null
+                            ? "-"
+                            : state.getTexture().getWidth(),
+                    state.getTextureHeight()));
+        }
+
+        @Override
+        public void textureCreated(
+                Texture texture,
+                ByteBuffer data,
+                ColorModel pixelFormat) {
+            this.log.add(String.format(
+                    "texture %d %d %d %d",
+                    texture.getWidth(), texture.getHeight(),
+                    data.remaining(), data.get(data.position() + 7)));
+        }
+
+        @Override
+        public void textureReleased(Texture texture) {
+            this.log.add("release texture");
+        }
+
+        @Override
+        public void frameRendered() {
+            this.log.add("render");
+        }
+    }
+
+    @Test
+    public void testRecordAndReplay(@TempDir Path directory)
+            throws IOException {
+        Path path = directory.resolve("session.journal");
+        TestRenderer renderer = new TestRenderer();
+        LoggingRecorder expected = new LoggingRecorder();
+
+        try (JournalWriter writer = new JournalWriter(path)) {
+            renderer.setRecorder(new RendererRecorder() {
+                @Override
+                public void elementCreated(Element element) {
+                    writer.elementCreated(element);
+                    expected.elementCreated(element);
+                }
+
+                @Override
+                public void elementReleased(Element element) {
+                    writer.elementReleased(element);
+                    expected.elementReleased(element);
+                }
+
+                @Override
+                public void elementModified(
+                        Element element,
+                        int modifiedAttributes,
+                        ElementState state) {
+                    writer.elementModified(element, modifiedAttributes, state);
+                    expected.elementModified(
+                            element,
+                            modifiedAttributes,
+                            state);
+                }
+
+                @Override
+                public void textureCreated(
+                        Texture texture,
+                        ByteBuffer data,
+                        ColorModel pixelFormat) {
+                    writer.textureCreated(texture, data, pixelFormat);
+                    expected.textureCreated(texture, data, pixelFormat);
+                }
+
+                @Override
+                public void textureReleased(Texture texture) {
+                    writer.textureReleased(texture);
+                    expected.textureReleased(texture);
+                }
+
+                @Override
+                public void frameRendered() {
+                    writer.frameRendered();
+                    expected.frameRendered();
+                }
+            });
+
+            // The texture exceeds the buffer of the writer.
+
+            ByteBuffer data = ByteBuffer.allocate(200 * 100 * 4);
+            data.put(7, (byte) 42);
+
+            Texture texture = renderer.newTexture(
+                    200, 100,
+                    data,
+                    ColorModel.RGBA_8888);
+
+            Element first = renderer.newElement();
+            Element second = renderer.newElement();
+
+            first.setX(10);
+            first.setY(20);
+            renderer.render();
+
+            second.beginEdit();
+            second.setWidth(30);
+            second.setAlpha(255);
+            second.setTexture(texture);
+            second.setTextureHeight(100);
+            second.commitEdit();
+
+            first.setZIndex(3);
+            renderer.render();
+
+            renderer.release(first);
+            second.setTexture(null);
+            renderer.release(texture);
+            renderer.render();
+        }
+
+        TestRenderer target = new TestRenderer();
+        LoggingRecorder actual = new LoggingRecorder();
+        target.setRecorder(actual);
+
+        int frameCount = new JournalReplayer(path).replay(
+                target,
+                ReplayTiming.FULL_SPEED);
+
+        // The replayer releases the element that is still in use.
+
+        expected.log.add("release element");
+
+        assertEquals(3, frameCount);
+        assertEquals(expected.log, actual.log);
+    }
+
+    @Test
+    public void testOriginalTiming(@TempDir Path directory)
+            throws IOException, InterruptedException {
+        Path path = directory.resolve("session.journal");
+        TestRenderer renderer = new TestRenderer();
+
+        try (JournalWriter writer = new JournalWriter(path)) {
+            renderer.setRecorder(writer);
+
+            renderer.render();
+            Thread.sleep(50);
+            renderer.render();
+        }
+
+        long start = System.nanoTime();
+        int frameCount = new JournalReplayer(path).replay(
+                new TestRenderer(),
+                ReplayTiming.ORIGINAL);
+
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(2, frameCount);
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void testInvalidJournal(@TempDir Path directory)
+            throws IOException {
+        Path path = directory.resolve("invalid.journal");
+        Files.write(path, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+
+        JournalReplayer replayer = new JournalReplayer(path);
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> replayer.replay(
+                        new TestRenderer(),
+                        ReplayTiming.ORIGINAL));
+
+        assertThrows(
+                NullPointerException.class,
+                () -> replayer.replay(null, ReplayTiming.ORIGINAL));
+
+        assertThrows(
+                NullPointerException.class,
+                () -> new JournalReplayer(null));
+    }
+}
@@ -0,0 +1,65 @@
+package org.fir3.teye.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTest {
+    @Test
+    public void testBucketRoundTrip() {
+        // Every representative value needs to fall into its own bucket, and
+        // every value needs to be represented with a small relative error.
+
+        for (int i = 0; i < 200; i++)
+            assertEquals(i, Histogram.indexOf(Histogram.valueOf(i)));
+
+        long[] values = { 0L, 1L, 31L, 32L, 33L, 1000L, 16_666_667L,
+                Long.MAX_VALUE };
+
+        for (long value : values) {
+            long represented = Histogram.valueOf(Histogram.indexOf(value));
+            double error = Math.abs((double) represented - value);
+
+            assertTrue(error <= value / 16.0, "Value " + value);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        Histogram histogram = new Histogram();
+
+        assertEquals(0L, histogram.getPercentile(50.0));
+
+        for (long i = 1; i <= 1000; i++)
+            histogram.record(i * 1000L);
+
+        assertEquals(1000L, histogram.getCount());
+        assertEquals(1_000_000L, histogram.getMaximum());
+
+        assertEquals(500_000.0, histogram.getPercentile(50.0), 500_000 / 16.0);
+        assertEquals(990_000.0, histogram.getPercentile(99.0), 990_000 / 16.0);
+        assertEquals(1_000_000L, histogram.getPercentile(100.0));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> histogram.getPercentile(-1.0));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> histogram.getPercentile(100.1));
+    }
+
+    @Test
+    public void testReset() {
+        Histogram histogram = new Histogram();
+
+        histogram.record(-5L);
+        histogram.record(42L);
+        assertEquals(2L, histogram.getCount());
+        assertEquals(0L, histogram.getPercentile(50.0));
+
+        histogram.reset();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMaximum());
+    }
+}